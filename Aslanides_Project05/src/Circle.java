@@ -27,12 +27,9 @@ public class Circle implements FractalElement{
     /** The radius of the circle */
     private final double radius;
 
-    /** The color of the circle */
+    /** The color of the circle, with the opacity as its alpha, created once instead of on every draw */
     private final Color color;
 
-    /** The opacity of the circle */
-    private final int opacity;
-
     //----------------------------------------------------------------------------------------------------------------//
     // Constructor
     //----------------------------------------------------------------------------------------------------------------//
@@ -47,8 +44,7 @@ public class Circle implements FractalElement{
     public Circle(Point center, double radius, Color color, int opacity) {
         this.center = center;
         this.radius = radius;
-        this.color = color;
-        this.opacity = opacity;
+        this.color = new Color(color.getRed(), color.getGreen(), color.getBlue(), opacity);
     }
 
     //----------------------------------------------------------------------------------------------------------------//
@@ -57,7 +53,7 @@ public class Circle implements FractalElement{
 
     @Override
     public void draw(Graphics g) {
-        g.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), opacity));
+        g.setColor(color);
         g.fillOval(center.x - (int)radius, center.y - (int)radius, 2*(int)radius, 2*(int)radius);
     }
 }
@@ -0,0 +1,311 @@
+/**
+ * An escape-time fractal, the Mandelbrot set or a Julia set, drawn as rectangles colored by the number of iterations
+ * each takes to escape. The box around the bounding triangle is split into quarters as far as the recursion depth
+ * allows, but only where the corners and center of a rectangle escape at different times, so large areas of one color
+ * stay single rectangles. Depth n resolves rectangles of 1 / 2<sup>n-1</sup> of the box.
+ * <p>
+ * Unlike the other types, the cost follows the length of the boundary of the set at the finest level and the number
+ * of iterations, not a fixed branching factor. Points inside the set are drawn black, and each escape time gets a
+ * color chosen from the palette with the seed, so the circle opacity does not apply. The quarters of the first two
+ * levels are generated as separate parts, in parallel for deep fractals.
+ * </p>
+ * <p>
+ * The same set can also be rendered pixel by pixel behind the elements, as an {@link EscapeTimeLayer} made by
+ * {@link #newLayer(FractalRequest)}.
+ * </p>
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+
+//--------------------------------------------------------------------------------------------------------------------//
+// Contents
+// 1. Static Variables
+// 2. Instance Variables
+// 3. Constructor
+// 4. Fractal Type
+// 5. Subdivision
+// 6. Background Layer
+// 7. Iteration
+//--------------------------------------------------------------------------------------------------------------------//
+
+public class EscapeTimeFractal implements FractalType {
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Static Variables
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /** The number of iterations after which a point is taken to be inside the set */
+    public static final int MAX_ITERATIONS = 256;
+
+    /** The color of points inside the set */
+    private static final int INSIDE_COLOR = 0xFF000000;
+
+    /** The number of levels of quarters generated as separate parts */
+    private static final int PART_LEVELS = 2;
+
+    /** How far the colors of a background layer are faded towards white, so the elements stand out in front of it */
+    private static final double LAYER_FADE = 0.5;
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Instance Variables
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /** The identifier */
+    private final String id;
+
+    /** The display name */
+    private final String name;
+
+    /** The real part of the center of the box */
+    private final double centerRe;
+
+    /** The imaginary part of the center of the box */
+    private final double centerIm;
+
+    /** The width of the box on the complex plane, of which the height holds at least four fifths */
+    private final double span;
+
+    /** Whether this is a Julia set, which iterates every point with the same constant */
+    private final boolean julia;
+
+    /** The real part of the constant of a Julia set */
+    private final double constantRe;
+
+    /** The imaginary part of the constant of a Julia set */
+    private final double constantIm;
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Constructor
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Constructor for the EscapeTimeFractal class
+     * @param id The identifier
+     * @param name The display name
+     * @param centerRe The real part of the center of the box
+     * @param centerIm The imaginary part of the center of the box
+     * @param span The width of the box on the complex plane
+     * @param julia Whether this is a Julia set
+     * @param constantRe The real part of the constant of a Julia set
+     * @param constantIm The imaginary part of the constant of a Julia set
+     */
+    private EscapeTimeFractal(String id, String name, double centerRe, double centerIm, double span, boolean julia,
+                              double constantRe, double constantIm) {
+        this.id = id;
+        this.name = name;
+        this.centerRe = centerRe;
+        this.centerIm = centerIm;
+        this.span = span;
+        this.julia = julia;
+        this.constantRe = constantRe;
+        this.constantIm = constantIm;
+    }
+
+    /**
+     * Creates the Mandelbrot set, iterating z = z<sup>2</sup> + c from z = 0 for every point c
+     * @return The Mandelbrot set type
+     */
+    public static EscapeTimeFractal mandelbrot() {
+        return new EscapeTimeFractal("mandelbrot", "Mandelbrot Set", -0.6, 0, 3, false, 0, 0);
+    }
+
+    /**
+     * Creates a Julia set, iterating z = z<sup>2</sup> + c from every point z for a constant c
+     * @param id The identifier
+     * @param name The display name
+     * @param constantRe The real part of the constant
+     * @param constantIm The imaginary part of the constant
+     * @return The Julia set type
+     */
+    public static EscapeTimeFractal julia(String id, String name, double constantRe, double constantIm) {
+        return new EscapeTimeFractal(id, name, 0, 0, 3.2, true, constantRe, constantIm);
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Fractal Type
+    //----------------------------------------------------------------------------------------------------------------//
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getMaxDepth() {
+        return 9;
+    }
+
+    @Override
+    public void generate(FractalRequest request, FractalSink sink) {
+        if (request.getDepth() <= 0) {
+            return;
+        }
+        Plane plane = new Plane(request);
+        // One color per escape time, so the rectangles only look it up
+        int[] colors = getColors(request);
+        generateCell(request, request.toScreen(sink), plane, colors, request.getLeft(), request.getTop(),
+                request.getWidth(), request.getHeight(), request.getDepth() - 1);
+    }
+
+    /**
+     * Gets the color of each escape time, chosen from the palette with the seed of a request
+     * @param request The request
+     * @return The packed colors, indexed by the number of iterations, with the color inside the set last
+     */
+    private static int[] getColors(FractalRequest request) {
+        long rootKey = request.getRootKey();
+        int[] colors = new int[MAX_ITERATIONS + 1];
+        for (int iterations = 0; iterations < MAX_ITERATIONS; iterations++) {
+            colors[iterations] = request.fillColor(FractalRequest.childKey(rootKey, iterations));
+        }
+        colors[MAX_ITERATIONS] = INSIDE_COLOR;
+        return colors;
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Subdivision
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Draws a rectangle in one color if it escapes uniformly or cannot be split further, and splits it into quarters
+     * otherwise
+     * @param request The request, for cancellation and parallel parts
+     * @param out The sink to send the elements to
+     * @param plane The mapping from the canvas to the complex plane
+     * @param colors The color of each escape time
+     * @param left The left edge of the rectangle
+     * @param top The top edge of the rectangle
+     * @param width The width of the rectangle
+     * @param height The height of the rectangle
+     * @param level The number of times the rectangle can still be split
+     */
+    private void generateCell(FractalRequest request, FractalSink out, Plane plane, int[] colors, double left,
+                              double top, double width, double height, int level) {
+        request.checkCancelled();
+        int center = escapeTime(plane, left + width / 2, top + height / 2);
+        if (level > 0 && !isUniform(plane, center, left, top, width, height)) {
+            double halfWidth = width / 2;
+            double halfHeight = height / 2;
+            FractalRequest.Part quarter = (part, partOut) -> generateCell(request, partOut, plane, colors,
+                    left + (part & 1) * halfWidth, top + (part >> 1) * halfHeight, halfWidth, halfHeight, level - 1);
+            if (level > request.getDepth() - 1 - PART_LEVELS) {
+                request.generateParts(4, quarter, out);
+            } else {
+                for (int part = 0; part < 4; part++) {
+                    quarter.generate(part, out);
+                }
+            }
+            return;
+        }
+        float x1 = (float) left;
+        float y1 = (float) top;
+        float x2 = (float) (left + width);
+        float y2 = (float) (top + height);
+        int color = colors[center];
+        out.addFilledTriangle(x1, y1, x2, y1, x2, y2, color);
+        out.addFilledTriangle(x1, y1, x2, y2, x1, y2, color);
+    }
+
+    /**
+     * Checks whether the corners of a rectangle escape at the same time as its center
+     * @param plane The mapping from the canvas to the complex plane
+     * @param center The escape time of the center
+     * @param left The left edge of the rectangle
+     * @param top The top edge of the rectangle
+     * @param width The width of the rectangle
+     * @param height The height of the rectangle
+     * @return Whether all five points escape at the same time
+     */
+    private boolean isUniform(Plane plane, int center, double left, double top, double width, double height) {
+        return escapeTime(plane, left, top) == center && escapeTime(plane, left + width, top) == center
+                && escapeTime(plane, left, top + height) == center
+                && escapeTime(plane, left + width, top + height) == center;
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Background Layer
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Creates a background layer of this set for the view of a request. The set lies where the elements of the same
+     * request would, and has their colors, faded halfway to white.
+     * @param request The parameters of the fractal; the recursion depth, opacity and parallel services are not used
+     * @return The layer
+     */
+    public EscapeTimeLayer newLayer(FractalRequest request) {
+        Plane plane = new Plane(request);
+        FractalView view = request.getView();
+        // Screen pixel (0, 0) is the canvas point at the origin of the view
+        double originRe = centerRe + (view.getOriginX() - plane.centerX) * plane.scale;
+        double originIm = centerIm + (view.getOriginY() - plane.centerY) * plane.scale;
+        int[] colors = getColors(request);
+        for (int index = 0; index < colors.length; index++) {
+            colors[index] = fade(colors[index]);
+        }
+        return new EscapeTimeLayer(originRe, originIm, plane.scale / view.getZoom(), julia, constantRe, constantIm,
+                colors);
+    }
+
+    /**
+     * Fades a color towards white by {@link #LAYER_FADE}
+     * @param argb The packed color
+     * @return The faded color, opaque
+     */
+    private static int fade(int argb) {
+        int faded = 0xFF000000;
+        for (int shift = 0; shift <= 16; shift += 8) {
+            int channel = (argb >> shift) & 0xFF;
+            faded |= (int) Math.round(channel + (255 - channel) * LAYER_FADE) << shift;
+        }
+        return faded;
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Iteration
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Counts the iterations a point of the canvas takes to escape the circle of radius 2
+     * @param plane The mapping from the canvas to the complex plane
+     * @param x The x coordinate on the canvas
+     * @param y The y coordinate on the canvas
+     * @return The number of iterations, or {@link #MAX_ITERATIONS} if the point does not escape
+     */
+    private int escapeTime(Plane plane, double x, double y) {
+        double pointRe = centerRe + (x - plane.centerX) * plane.scale;
+        double pointIm = centerIm + (y - plane.centerY) * plane.scale;
+        return julia ? ScalarEscapeTimeKernel.escapeTime(pointRe, pointIm, constantRe, constantIm, MAX_ITERATIONS)
+                : ScalarEscapeTimeKernel.escapeTime(0, 0, pointRe, pointIm, MAX_ITERATIONS);
+    }
+
+    /**
+     * The mapping from the canvas to the complex plane of one request. The box around the bounding triangle is
+     * centered on the center of the set, and holds its span across and four fifths of it down.
+     */
+    private final class Plane {
+
+        /** The x coordinate of the center of the box on the canvas */
+        private final double centerX;
+
+        /** The y coordinate of the center of the box on the canvas */
+        private final double centerY;
+
+        /** The distance on the complex plane per unit of the canvas */
+        private final double scale;
+
+        /**
+         * Constructor for the Plane class
+         * @param request The request whose bounding triangle the box is around
+         */
+        Plane(FractalRequest request) {
+            this.centerX = request.getLeft() + request.getWidth() / 2.0;
+            this.centerY = request.getTop() + request.getHeight() / 2.0;
+            this.scale = Math.max(span / request.getWidth(), span * 0.8 / request.getHeight());
+        }
+    }
+}
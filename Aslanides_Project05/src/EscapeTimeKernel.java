@@ -0,0 +1,34 @@
+/**
+ * Interface for the inner loop of an escape-time fractal: counting the iterations of z = z<sup>2</sup> + c for a row
+ * of evenly spaced points until each escapes the circle of radius 2. Every implementation returns exactly the same
+ * counts for the same row, so a faster one can replace another without changing the image.
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+public interface EscapeTimeKernel {
+
+    /**
+     * This method is used to retrieve a short name of the implementation, for reports and benchmarks.
+     * @return the name of the kernel
+     */
+    String getName();
+
+    /**
+     * This method is used to count the iterations of a row of points. The point at index i of the row is
+     * startRe + i * stepRe on the real axis. For the Mandelbrot set it is the constant c, iterated from z = 0; for a
+     * Julia set it is the first z, iterated with the constant of the set.
+     * @param startRe The real part of the first point
+     * @param stepRe The distance between neighboring points on the real axis
+     * @param im The imaginary part of every point of the row
+     * @param julia Whether the points are the first z of a Julia set instead of the constants of the Mandelbrot set
+     * @param constantRe The real part of the constant of a Julia set
+     * @param constantIm The imaginary part of the constant of a Julia set
+     * @param maxIterations The number of iterations after which a point is taken to be inside the set
+     * @param counts The array to store the number of iterations of each point in
+     * @param offset The index in counts of the first point
+     * @param length The number of points in the row
+     * @return the sum of the iterations of the row
+     */
+    long iterateRow(double startRe, double stepRe, double im, boolean julia, double constantRe, double constantIm,
+                    int maxIterations, int[] counts, int offset, int length);
+}
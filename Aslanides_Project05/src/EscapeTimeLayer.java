@@ -0,0 +1,215 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+/**
+ * An escape-time fractal rendered pixel by pixel, as a background behind the fractal elements. A layer is immutable
+ * and holds everything one frame depends on: the set, where its part of the complex plane lies on the screen, and the
+ * color of each escape time. Two equal layers render the same image, so a drawing only renders a new one when the
+ * layer or the image size changed.
+ * <p>
+ * The rows of the image are iterated in a parallel stream, and each row writes its colors straight into the
+ * {@code int[]} raster of the image. The iterations are counted by the fastest {@link EscapeTimeKernel} available:
+ * {@link VectorEscapeTimeKernel} when the jdk.incubator.vector module is resolved and the system property
+ * {@code fractal.vector} is not false, and {@link ScalarEscapeTimeKernel} otherwise.
+ * </p>
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+
+//--------------------------------------------------------------------------------------------------------------------//
+// Contents
+// 1. Static Variables
+// 2. Instance Variables
+// 3. Constructor
+// 4. Rendering
+// 5. Kernels
+// 6. Equality
+//--------------------------------------------------------------------------------------------------------------------//
+
+public final class EscapeTimeLayer {
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Static Variables
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /** The module of the Vector API */
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    /** The logger the chosen kernel is reported to */
+    private static final Logger LOGGER = Logger.getLogger(EscapeTimeLayer.class.getName());
+
+    /** The kernel layers render with by default */
+    private static final EscapeTimeKernel DEFAULT_KERNEL = loadKernel();
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Instance Variables
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /** The real part of the point at the top left corner of the screen */
+    private final double originRe;
+
+    /** The imaginary part of the point at the top left corner of the screen */
+    private final double originIm;
+
+    /** The distance on the complex plane per screen pixel */
+    private final double step;
+
+    /** Whether this is a Julia set, which iterates every point with the same constant */
+    private final boolean julia;
+
+    /** The real part of the constant of a Julia set */
+    private final double constantRe;
+
+    /** The imaginary part of the constant of a Julia set */
+    private final double constantIm;
+
+    /** The packed RGB color of each escape time, with the color inside the set last */
+    private final int[] colors;
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Constructor
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Constructor for the EscapeTimeLayer class
+     * @param originRe The real part of the point at the top left corner of the screen
+     * @param originIm The imaginary part of the point at the top left corner of the screen
+     * @param step The distance on the complex plane per screen pixel
+     * @param julia Whether this is a Julia set
+     * @param constantRe The real part of the constant of a Julia set
+     * @param constantIm The imaginary part of the constant of a Julia set
+     * @param colors The packed RGB color of each escape time from 0 to the maximum number of iterations, which is
+     *               the color inside the set
+     */
+    public EscapeTimeLayer(double originRe, double originIm, double step, boolean julia, double constantRe,
+                           double constantIm, int[] colors) {
+        if (colors.length < 2) {
+            throw new IllegalArgumentException("At least one iteration and the inside color are needed");
+        }
+        this.originRe = originRe;
+        this.originIm = originIm;
+        this.step = step;
+        this.julia = julia;
+        this.constantRe = constantRe;
+        this.constantIm = constantIm;
+        this.colors = colors.clone();
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Rendering
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Gets the number of iterations after which a point is taken to be inside the set
+     * @return The maximum number of iterations
+     */
+    public int getMaxIterations() {
+        return colors.length - 1;
+    }
+
+    /**
+     * Renders the layer into the whole image with the default kernel
+     * @param image The image, of type {@link BufferedImage#TYPE_INT_RGB} or {@link BufferedImage#TYPE_INT_ARGB}
+     * @param scale The number of image pixels per screen pixel
+     * @return The sum of the iterations of every pixel
+     */
+    public long render(BufferedImage image, double scale) {
+        return render(image, scale, DEFAULT_KERNEL);
+    }
+
+    /**
+     * Renders the layer into the whole image, one row per task of a parallel stream. Each pixel is iterated at its
+     * center and written into the raster of the image as an opaque color.
+     * @param image The image, of type {@link BufferedImage#TYPE_INT_RGB} or {@link BufferedImage#TYPE_INT_ARGB}
+     * @param scale The number of image pixels per screen pixel
+     * @param kernel The kernel that counts the iterations
+     * @return The sum of the iterations of every pixel
+     * @throws IllegalArgumentException If the image does not store a packed int per pixel
+     */
+    public long render(BufferedImage image, double scale, EscapeTimeKernel kernel) {
+        if (image.getType() != BufferedImage.TYPE_INT_RGB && image.getType() != BufferedImage.TYPE_INT_ARGB) {
+            throw new IllegalArgumentException("The image must store a packed int per pixel");
+        }
+        int width = image.getWidth();
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        double pixelStep = step / scale;
+        int maxIterations = getMaxIterations();
+        return IntStream.range(0, image.getHeight()).parallel().mapToLong(row -> {
+            int offset = row * width;
+            double startRe = originRe + 0.5 * pixelStep;
+            double im = originIm + (row + 0.5) * pixelStep;
+            // The counts go into the raster first and are replaced by their colors, so a row needs no buffer
+            long iterations = kernel.iterateRow(startRe, pixelStep, im, julia, constantRe, constantIm, maxIterations,
+                    pixels, offset, width);
+            for (int index = offset; index < offset + width; index++) {
+                pixels[index] = 0xFF000000 | colors[pixels[index]];
+            }
+            return iterations;
+        }).sum();
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Kernels
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Gets the kernel layers render with by default
+     * @return The vector kernel if it could be loaded, otherwise the scalar kernel
+     */
+    public static EscapeTimeKernel getDefaultKernel() {
+        return DEFAULT_KERNEL;
+    }
+
+    /**
+     * Loads the vector kernel by name if its module is resolved and it is not switched off, so this class never links
+     * against the Vector API on runtimes where it is missing
+     * @return The kernel
+     */
+    private static EscapeTimeKernel loadKernel() {
+        EscapeTimeKernel kernel = new ScalarEscapeTimeKernel();
+        if (!"false".equals(System.getProperty("fractal.vector"))
+                && ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                kernel = (EscapeTimeKernel) Class.forName("VectorEscapeTimeKernel").getDeclaredConstructor()
+                        .newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                LOGGER.warning("Vector kernel unavailable, using the scalar kernel: " + e);
+            }
+        }
+        LOGGER.fine("Escape-time kernel: " + kernel.getName());
+        return kernel;
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Equality
+    //----------------------------------------------------------------------------------------------------------------//
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof EscapeTimeLayer)) {
+            return false;
+        }
+        EscapeTimeLayer layer = (EscapeTimeLayer) other;
+        return originRe == layer.originRe && originIm == layer.originIm && step == layer.step
+                && julia == layer.julia && constantRe == layer.constantRe && constantIm == layer.constantIm
+                && Arrays.equals(colors, layer.colors);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = Double.hashCode(originRe);
+        hash = 31 * hash + Double.hashCode(originIm);
+        hash = 31 * hash + Double.hashCode(step);
+        hash = 31 * hash + Boolean.hashCode(julia);
+        hash = 31 * hash + Double.hashCode(constantRe);
+        hash = 31 * hash + Double.hashCode(constantIm);
+        hash = 31 * hash + Arrays.hashCode(colors);
+        return hash;
+    }
+}
@@ -0,0 +1,328 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Bounded cache of generated fractal elements, keyed by the parameters they were generated from.
+ * The least recently used entries are evicted once the estimated memory footprint of all entries exceeds the limit.
+ * Hits, misses and evictions are counted.
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+
+//--------------------------------------------------------------------------------------------------------------------//
+// Contents
+// 1. Static Variables
+// 2. Instance Variables
+// 3. Constructor
+// 4. Cache Methods
+// 5. Statistics
+// 6. Key
+//--------------------------------------------------------------------------------------------------------------------//
+
+public class FractalCache {
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Static Variables
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /** The default limit on the estimated memory footprint of the cache, in bytes */
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Instance Variables
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /** The cached elements, in order from least to most recently used */
+    private final LinkedHashMap<Key, FractalElementBuffer> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** The limit on the estimated memory footprint, in bytes */
+    private long maxBytes;
+
+    /** The estimated memory footprint of all entries, in bytes */
+    private long bytes;
+
+    /** The number of lookups that found an entry */
+    private long hits;
+
+    /** The number of lookups that found no entry */
+    private long misses;
+
+    /** The number of entries evicted to stay within the limit */
+    private long evictions;
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Constructor
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Constructor for the FractalCache class
+     * @param maxBytes The limit on the estimated memory footprint, in bytes
+     */
+    public FractalCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Cache Methods
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Looks up the elements generated from a set of parameters, marking them as most recently used
+     * @param key The generation parameters
+     * @return The elements, or null if they are not cached
+     */
+    public synchronized FractalElementBuffer get(Key key) {
+        FractalElementBuffer elements = entries.get(key);
+        if (elements == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return elements;
+    }
+
+    /**
+     * Caches the elements generated from a set of parameters, then evicts the least recently used entries until the
+     * cache is within its limit. Elements larger than the limit on their own are not cached.
+     * @param key The generation parameters
+     * @param elements The generated elements, which must not be modified afterwards
+     */
+    public synchronized void put(Key key, FractalElementBuffer elements) {
+        long size = estimateBytes(elements);
+        if (size > maxBytes) {
+            return;
+        }
+        FractalElementBuffer previous = entries.put(key, elements);
+        if (previous != null) {
+            bytes -= estimateBytes(previous);
+        }
+        bytes += size;
+        evict();
+    }
+
+    /**
+     * Sets the limit on the estimated memory footprint, evicting entries if the cache is now over it
+     * @param maxBytes The limit, in bytes
+     */
+    public synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        evict();
+    }
+
+    /**
+     * Removes all entries. The statistics are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Evicts the least recently used entries until the cache is within its limit
+     */
+    private void evict() {
+        Iterator<FractalElementBuffer> iterator = entries.values().iterator();
+        while (bytes > maxBytes && iterator.hasNext()) {
+            bytes -= estimateBytes(iterator.next());
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Estimates the memory footprint of a buffer: a type byte, six float coordinates and an int color per element.
+     * Geometry shared between buffers is counted for each of them.
+     * @param elements The buffer
+     * @return The estimated footprint, in bytes
+     */
+    private static long estimateBytes(FractalElementBuffer elements) {
+        return 64 + (long) elements.size() * (1 + 6 * Float.BYTES + Integer.BYTES);
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Statistics
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Gets the number of lookups that found an entry
+     * @return The number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of lookups that found no entry
+     * @return The number of misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the number of entries evicted to stay within the limit
+     * @return The number of evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Gets the number of cached entries
+     * @return The number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the estimated memory footprint of all entries
+     * @return The footprint, in bytes
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "FractalCache[entries=" + entries.size() + ", bytes=" + bytes + ", hits=" + hits + ", misses=" + misses
+                + ", evictions=" + evictions + "]";
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Key
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * The parameters a set of fractal elements is generated from: the fractal type, the recursion depth, whether its
+     * deepest triangles are collapsed, the bounding triangle, the color mode (the packed colors to choose from and the
+     * circle opacity) and the seed for choosing colors.
+     */
+    public static final class Key {
+
+        /** The identifier of the fractal type */
+        private final String type;
+
+        /** The recursion depth */
+        private final int depth;
+
+        /** Whether the deepest triangles are collapsed into filled triangles */
+        private final boolean collapsed;
+
+        /** The bounding triangle, as six coordinates */
+        private final int[] triangle;
+
+        /** The packed colors to choose from */
+        private final int[] palette;
+
+        /** The circle opacity */
+        private final int circleOpacity;
+
+        /** The seed for choosing colors */
+        private final long seed;
+
+        /**
+         * Constructor for the Key class
+         * @param type The identifier of the fractal type
+         * @param depth The recursion depth
+         * @param collapsed Whether the deepest triangles are collapsed into filled triangles
+         * @param triangle The bounding triangle, as six coordinates
+         * @param palette The packed colors to choose from
+         * @param circleOpacity The circle opacity
+         * @param seed The seed for choosing colors
+         */
+        public Key(String type, int depth, boolean collapsed, int[] triangle, int[] palette, int circleOpacity,
+                   long seed) {
+            this.type = type;
+            this.depth = depth;
+            this.collapsed = collapsed;
+            this.triangle = triangle.clone();
+            this.palette = palette.clone();
+            this.circleOpacity = circleOpacity;
+            this.seed = seed;
+        }
+
+        /**
+         * Gets the identifier of the fractal type
+         * @return The identifier
+         */
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * Gets the recursion depth
+         * @return The recursion depth
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * Gets whether the deepest triangles are collapsed into filled triangles
+         * @return Whether the elements are collapsed
+         */
+        public boolean isCollapsed() {
+            return collapsed;
+        }
+
+        /**
+         * Gets the bounding triangle
+         * @return A copy of the six coordinates
+         */
+        public int[] getTriangle() {
+            return triangle.clone();
+        }
+
+        /**
+         * Gets the packed colors to choose from
+         * @return A copy of the packed colors
+         */
+        public int[] getPalette() {
+            return palette.clone();
+        }
+
+        /**
+         * Gets the circle opacity
+         * @return The circle opacity
+         */
+        public int getCircleOpacity() {
+            return circleOpacity;
+        }
+
+        /**
+         * Gets the seed for choosing colors
+         * @return The seed
+         */
+        public long getSeed() {
+            return seed;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return type.equals(key.type) && depth == key.depth && collapsed == key.collapsed
+                    && circleOpacity == key.circleOpacity && seed == key.seed && Arrays.equals(triangle, key.triangle)
+                    && Arrays.equals(palette, key.palette);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = type.hashCode();
+            hash = 31 * hash + depth;
+            hash = 31 * hash + Boolean.hashCode(collapsed);
+            hash = 31 * hash + Arrays.hashCode(triangle);
+            hash = 31 * hash + Arrays.hashCode(palette);
+            hash = 31 * hash + circleOpacity;
+            hash = 31 * hash + Long.hashCode(seed);
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,364 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A file of generated fractal elements, read through a memory map. The file holds the parameters the elements were
+ * generated from, so a later run can use it in place of generating them again.
+ * <p>
+ * The format is little-endian. A header of 4-byte fields comes first: the magic number, the format version, the
+ * number of elements, the recursion depth, flags (bit 0: collapsed), the circle opacity, the seed as 8 bytes, the six
+ * coordinates of the bounding triangle, the number of palette colors followed by the colors, and the length of the
+ * fractal type identifier followed by its UTF-8 bytes, padded to four bytes. The elements follow in the binary form
+ * of {@link FractalElementBuffer#writeBinary(ByteBuffer)}: the type codes padded to four bytes, six floats of
+ * coordinates per element and an ARGB int per element.
+ * </p>
+ * <p>
+ * Nothing is parsed element by element. {@link #toBuffer()} copies each section with one bulk transfer, and
+ * {@link #writeTo(FractalSink)} streams the elements straight from the mapped file, so exports need no copy at all.
+ * </p>
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+
+//--------------------------------------------------------------------------------------------------------------------//
+// Contents
+// 1. Static Variables
+// 2. Instance Variables
+// 3. Constructor
+// 4. Writing
+// 5. Reading
+// 6. Get Methods
+// 7. Element View
+// 8. Header
+//--------------------------------------------------------------------------------------------------------------------//
+
+public class FractalCacheFile {
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Static Variables
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /** The magic number at the start of every file, "FRAC" in ASCII */
+    public static final int MAGIC = 0x46524143;
+
+    /** The version of the format, increased whenever the layout changes */
+    public static final int FORMAT_VERSION = 2;
+
+    /** The extension of cache file names */
+    public static final String EXTENSION = ".frac";
+
+    /** The size of the header without the palette and the type identifier, in bytes */
+    private static final int FIXED_HEADER_SIZE = 60;
+
+    /** The longest fractal type identifier a file holds, in bytes */
+    private static final int MAX_TYPE_LENGTH = 256;
+
+    /** The flag set for collapsed elements */
+    private static final int COLLAPSED_FLAG = 1;
+
+    /** The number of coordinates stored per element */
+    private static final int COORDINATES = 6;
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Instance Variables
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /** The parameters the elements were generated from */
+    private final FractalCache.Key key;
+
+    /** The number of elements */
+    private final int size;
+
+    /** The mapped file, positioned at the start of the elements */
+    private final ByteBuffer elements;
+
+    /** The offset of the coordinates in the elements, in bytes */
+    private final int coordinatesOffset;
+
+    /** The offset of the colors in the elements, in bytes */
+    private final int colorsOffset;
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Constructor
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Constructor for the FractalCacheFile class
+     * @param key The parameters the elements were generated from
+     * @param size The number of elements
+     * @param elements The mapped elements, little-endian, starting at position 0
+     */
+    private FractalCacheFile(FractalCache.Key key, int size, ByteBuffer elements) {
+        this.key = key;
+        this.size = size;
+        this.elements = elements;
+        this.colorsOffset = (int) (FractalElementBuffer.binarySize(size) - (long) size * Integer.BYTES);
+        this.coordinatesOffset = colorsOffset - size * COORDINATES * Float.BYTES;
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Writing
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Gets the file name for the elements of a set of parameters. The name includes the recursion depth and a hash of
+     * all parameters; the header is still checked on reading, in case two sets of parameters share a hash.
+     * @param key The parameters
+     * @return The file name
+     */
+    public static String fileName(FractalCache.Key key) {
+        ByteBuffer header = ByteBuffer.allocate(headerSize(key)).order(ByteOrder.LITTLE_ENDIAN);
+        putHeader(header, key, 0);
+        // 64-bit FNV-1a over the header
+        long hash = 0xcbf29ce484222325L;
+        for (int index = 0; index < header.capacity(); index++) {
+            hash = (hash ^ (header.get(index) & 0xFF)) * 0x100000001b3L;
+        }
+        return String.format("fractal-%d-%016x%s", key.getDepth(), hash, EXTENSION);
+    }
+
+    /**
+     * Writes elements and the parameters they were generated from to a file. The file is written under a temporary
+     * name and then moved into place, so readers never see a partly written file.
+     * @param file The file
+     * @param key The parameters the elements were generated from
+     * @param elements The elements
+     * @throws IOException If writing fails, the elements do not fit in one mapped file or the type identifier is
+     *                     longer than 256 bytes
+     */
+    public static void write(Path file, FractalCache.Key key, FractalElementBuffer elements) throws IOException {
+        long length = headerSize(key) + FractalElementBuffer.binarySize(elements.size());
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Too many elements for a cache file: " + elements.size());
+        }
+        if (key.getType().getBytes(StandardCharsets.UTF_8).length > MAX_TYPE_LENGTH) {
+            throw new IOException("Fractal type identifier too long for a cache file: " + key.getType());
+        }
+        Path directory = file.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+                out.order(ByteOrder.LITTLE_ENDIAN);
+                putHeader(out, key, elements.size());
+                elements.writeBinary(out);
+            }
+            try {
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Reading
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Maps a cache file into memory and reads its header. The elements are only read when they are used.
+     * @param file The file
+     * @return The mapped file
+     * @throws IOException If the file cannot be read, is not a cache file, has another format version or is truncated
+     */
+    public static FractalCacheFile map(Path file) throws IOException {
+        MappedByteBuffer data;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < FIXED_HEADER_SIZE + Integer.BYTES || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Not a fractal cache file: " + file);
+            }
+            // The mapping stays valid after the channel is closed
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        data.order(ByteOrder.LITTLE_ENDIAN);
+        if (data.getInt(0) != MAGIC) {
+            throw new IOException("Not a fractal cache file: " + file);
+        }
+        if (data.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Unsupported cache file version " + data.getInt(4) + ": " + file);
+        }
+        int size = data.getInt(8);
+        int paletteLength = data.getInt(56);
+        int typeOffset = FIXED_HEADER_SIZE + paletteLength * Integer.BYTES;
+        if (size < 0 || paletteLength < 0
+                || paletteLength > (data.capacity() - FIXED_HEADER_SIZE - Integer.BYTES) / Integer.BYTES) {
+            throw new IOException("Truncated or damaged cache file: " + file);
+        }
+        int typeLength = data.getInt(typeOffset);
+        int elementsOffset = typeOffset + Integer.BYTES + padded(typeLength);
+        if (typeLength < 0 || typeLength > MAX_TYPE_LENGTH
+                || data.capacity() != elementsOffset + FractalElementBuffer.binarySize(size)) {
+            throw new IOException("Truncated or damaged cache file: " + file);
+        }
+        byte[] type = new byte[typeLength];
+        data.get(typeOffset + Integer.BYTES, type);
+
+        int[] triangle = new int[6];
+        for (int coordinate = 0; coordinate < triangle.length; coordinate++) {
+            triangle[coordinate] = data.getInt(32 + coordinate * Integer.BYTES);
+        }
+        int[] palette = new int[paletteLength];
+        for (int color = 0; color < palette.length; color++) {
+            palette[color] = data.getInt(FIXED_HEADER_SIZE + color * Integer.BYTES);
+        }
+        FractalCache.Key key = new FractalCache.Key(new String(type, StandardCharsets.UTF_8), data.getInt(12),
+                (data.getInt(16) & COLLAPSED_FLAG) != 0, triangle, palette, data.getInt(20), data.getLong(24));
+
+        data.position(elementsOffset);
+        return new FractalCacheFile(key, size, data.slice().order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Get Methods
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Gets the parameters the elements were generated from
+     * @return The parameters
+     */
+    public FractalCache.Key getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the number of elements
+     * @return The number of elements
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the type code of an element, read from the mapped file
+     * @param index The index of the element
+     * @return {@link FractalElementBuffer#CIRCLE}, {@link FractalElementBuffer#TRIANGLE} or
+     * {@link FractalElementBuffer#FILLED_TRIANGLE}
+     */
+    public byte getType(int index) {
+        return elements.get(index);
+    }
+
+    /**
+     * Gets a coordinate of an element, read from the mapped file, as in
+     * {@link FractalElementBuffer#getCoordinate(int, int)}
+     * @param index The index of the element
+     * @param coordinate The coordinate, from 0 to 5
+     * @return The coordinate value
+     */
+    public float getCoordinate(int index, int coordinate) {
+        return elements.getFloat(coordinatesOffset + (index * COORDINATES + coordinate) * Float.BYTES);
+    }
+
+    /**
+     * Gets the packed ARGB color of an element, read from the mapped file
+     * @param index The index of the element
+     * @return The packed ARGB color
+     */
+    public int getColor(int index) {
+        return elements.getInt(colorsOffset + index * Integer.BYTES);
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Element View
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Copies the elements into a buffer that can be drawn, one bulk transfer per section
+     * @return A frozen buffer with the elements
+     */
+    public FractalElementBuffer toBuffer() {
+        return FractalElementBuffer.readBinary(elements.duplicate().order(ByteOrder.LITTLE_ENDIAN), size);
+    }
+
+    /**
+     * Sends every element to a sink, in drawing order, straight from the mapped file
+     * @param sink The sink
+     */
+    public void writeTo(FractalSink sink) {
+        for (int index = 0; index < size; index++) {
+            int offset = coordinatesOffset + index * COORDINATES * Float.BYTES;
+            float x1 = elements.getFloat(offset);
+            float y1 = elements.getFloat(offset + Float.BYTES);
+            float x2 = elements.getFloat(offset + 2 * Float.BYTES);
+            int argb = getColor(index);
+            byte type = getType(index);
+            if (type == FractalElementBuffer.CIRCLE) {
+                sink.addCircle(x1, y1, x2, argb);
+                continue;
+            }
+            float y2 = elements.getFloat(offset + 3 * Float.BYTES);
+            float x3 = elements.getFloat(offset + 4 * Float.BYTES);
+            float y3 = elements.getFloat(offset + 5 * Float.BYTES);
+            if (type == FractalElementBuffer.FILLED_TRIANGLE) {
+                sink.addFilledTriangle(x1, y1, x2, y2, x3, y3, argb);
+            } else {
+                sink.addTriangle(x1, y1, x2, y2, x3, y3, argb);
+            }
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Header
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Gets the size of the header for a set of parameters
+     * @param key The parameters
+     * @return The size, in bytes, a multiple of four
+     */
+    private static int headerSize(FractalCache.Key key) {
+        return FIXED_HEADER_SIZE + key.getPalette().length * Integer.BYTES + Integer.BYTES
+                + padded(key.getType().getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    /**
+     * Rounds a length up to a multiple of four, so the fields after it stay aligned
+     * @param length The length, in bytes
+     * @return The padded length, in bytes
+     */
+    private static int padded(int length) {
+        return (length + 3) & ~3;
+    }
+
+    /**
+     * Writes the header
+     * @param out The output, little-endian
+     * @param key The parameters the elements were generated from
+     * @param size The number of elements
+     */
+    private static void putHeader(ByteBuffer out, FractalCache.Key key, int size) {
+        out.putInt(MAGIC);
+        out.putInt(FORMAT_VERSION);
+        out.putInt(size);
+        out.putInt(key.getDepth());
+        out.putInt(key.isCollapsed() ? COLLAPSED_FLAG : 0);
+        out.putInt(key.getCircleOpacity());
+        out.putLong(key.getSeed());
+        for (int coordinate : key.getTriangle()) {
+            out.putInt(coordinate);
+        }
+        int[] palette = key.getPalette();
+        out.putInt(palette.length);
+        for (int color : palette) {
+            out.putInt(color);
+        }
+        byte[] type = key.getType().getBytes(StandardCharsets.UTF_8);
+        out.putInt(type.length);
+        out.put(type);
+        for (int index = type.length; index < padded(type.length); index++) {
+            out.put((byte) 0);
+        }
+    }
+}
@@ -1,11 +1,42 @@
 import javax.swing.*;
 import java.awt.*;
-import java.util.ArrayList;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Objects;
 
 /**
  *
  * This class is responsible for drawing the fractal on the screen.
- * It is an observer of the FractalGenerator class.
+ * It is an observer of the FractalGenerator class, and tells it how many device pixels the canvas is drawn at, so
+ * its level of detail matches the screen.
+ * <p>
+ * The mouse wheel zooms around the pointer, dragging pans, and a double click shows the whole fractal again.
+ * </p>
+ * <p>
+ * The elements are drawn in batches of one shape and color, which is much faster for deep fractals. The time of every
+ * painted frame is recorded in the metrics of the generator.
+ * </p>
+ * <p>
+ * When the generator refines progressively, every depth it publishes on the way to a deep fractal is a new data
+ * version, so the drawing shows the shallower levels first and redraws as the detail fills in.
+ * </p>
+ * <p>
+ * An escape-time background chosen in the generator is rendered pixel by pixel behind the elements. It is kept in its
+ * own image, which is only rendered again when the layer or the size changes, and copied under the elements of every
+ * data version. Its time and iteration count are recorded in the metrics.
+ * </p>
+ * <p>
+ * When a new data version only changes part of the fractal, such as a recoloring of some depths, only the bounds of
+ * the changed elements are repainted. The offscreen image is rendered again in that region alone, from the elements the
+ * spatial index of the snapshot finds there, and Swing only copies the region to the screen.
+ * </p>
+ * <p>
+ * The same index answers {@link #getElementsInRegion(Rectangle)} and {@link #getElementAt(float, float)}, and the
+ * tooltip of the drawing shows the depth and path of the triangle under the pointer.
+ * </p>
  * @author Abraham Aslanides
  * @version CSC 143, June 4, 2023
  */
@@ -17,6 +48,15 @@ public class FractalDrawing implements FractalObserver{
     /** The height of the window */
     public static final int HEIGHT = 600;
 
+    /** The factor the zoom changes by for each notch of the mouse wheel */
+    private static final double ZOOM_STEP = 1.25;
+
+    /** The margin around changed bounds, in pixels, for the rounding and antialiasing of their edges */
+    private static final int DIRTY_MARGIN = 2;
+
+    /** The fraction of the canvas above which a changed region is not worth rendering on its own */
+    private static final double MAX_DIRTY_FRACTION = 0.5;
+
     /** The draw area */
     private final DrawArea drawArea;
 
@@ -24,11 +64,23 @@ public class FractalDrawing implements FractalObserver{
     private final FractalSubject subject;
 
     /** The elements to draw */
-    private ArrayList<FractalElement> elements;
+    private FractalElementBuffer elements;
+
+    /** The version of the elements to draw */
+    private long dataVersion = -1;
+
+    /** The snapshot the elements to draw were taken from, which holds their spatial index */
+    private FractalSnapshot snapshot = FractalSnapshot.EMPTY;
+
+    /** Renders the elements into the offscreen image, tiled across threads for large fractals */
+    private final FractalRasterizer rasterizer = new FractalRasterizer();
 
     /** Whether the fractal should be drawn */
     private boolean drawFractal = true;
 
+    /** The escape-time background to draw behind the elements, or null for none */
+    private EscapeTimeLayer backgroundLayer;
+
 
     /**
      * Constructor for the FractalDrawing class
@@ -38,7 +90,10 @@ public class FractalDrawing implements FractalObserver{
 
         this.subject = subject;
         this.subject.registerObserver(this);
-        this.elements = new ArrayList<>();
+        this.elements = new FractalElementBuffer();
+
+        // On screen, speed matters more than the stacking order of overlapping colors
+        rasterizer.setBatched(true);
 
         JFrame frame = new JFrame();
 
@@ -59,6 +114,7 @@ public class FractalDrawing implements FractalObserver{
         //drawArea.setBackground(Color.WHITE);
         mainPanel.add(drawArea);
 
+        update();
         frame.setVisible(true);
     }
 
@@ -66,46 +122,304 @@ public class FractalDrawing implements FractalObserver{
      * {@inheritDoc}
      * <br><br>
      * <p>This specific implementation also ensures that the drawing area is repainted
-     * to reflect the updated fractal elements.</p>     */
+     * to reflect the updated fractal elements. Only the changed region is repainted
+     * when nothing but some of the elements changed.</p>     */
     @Override
     public void update() {
 
-        // Debugging
-        System.out.println("Updated elements in FractalDrawing: " + elements.size());
-
-        elements = subject.getData();
         // Type casting needed to access isDrawFractal()
-        drawFractal = ((FractalGenerator) subject).isDrawFractal();
-        drawArea.repaint();
+        boolean draw = ((FractalGenerator) subject).isDrawFractal();
+        EscapeTimeLayer layer = ((FractalGenerator) subject).getBackgroundLayer();
+        boolean repaintAll = draw != drawFractal || !Objects.equals(layer, backgroundLayer);
+        drawFractal = draw;
+        backgroundLayer = layer;
+
+        // The snapshot is shared, not copied, and the elements are only taken when their version changed
+        FractalSnapshot latest = subject.getSnapshot();
+        if (latest.getVersion() != dataVersion) {
+            int[] changed = latest.getElements().getChangedBounds(elements, new int[4]);
+            snapshot = latest;
+            elements = latest.getElements();
+            dataVersion = latest.getVersion();
+            if (changed != null && !repaintAll) {
+                drawArea.repaintElements(changed);
+            }
+        }
+        if (repaintAll) {
+            drawArea.repaintAll();
+        }
+    }
+
+    /**
+     * Gets the spatial index of the elements being drawn, whose element indices the queries of this drawing return
+     * @return The index
+     */
+    public FractalSpatialIndex getSpatialIndex() {
+        return snapshot.getIndex();
     }
 
     /**
-     * Private inner class for the draw area
+     * Finds the elements being drawn in a region of the drawing
+     * @param region The region, in the coordinates of the draw area
+     * @return The indices of the elements whose bounds overlap the region, in drawing order, into the elements of
+     *         {@link #getSpatialIndex()}
+     */
+    public int[] getElementsInRegion(Rectangle region) {
+        return snapshot.getIndex().query(region.x, region.y, region.x + region.width, region.y + region.height);
+    }
+
+    /**
+     * Finds the element drawn last at a point of the drawing, which is the deepest one of a Sierpinski triangle
+     * @param x The x coordinate of the point, in the coordinates of the draw area
+     * @param y The y coordinate of the point
+     * @return The index of the element, into the elements of {@link #getSpatialIndex()}, or -1 if there is none
+     */
+    public int getElementAt(float x, float y) {
+        int[] found = snapshot.getIndex().queryPoint(x, y);
+        return found.length == 0 ? -1 : found[found.length - 1];
+    }
+
+    /**
+     * Private inner class for the draw area.
+     * The elements are rendered into an offscreen image once per data version, and every repaint copies that image.
+     * A data version that changed a small region only renders that region of the image again.
      */
     private class DrawArea extends JPanel {
 
-        /** Unused constructor for the DrawArea class */
-        public DrawArea() {}
+        /** The serialization version, declared as the superclass is serializable; instances are never serialized */
+        private static final long serialVersionUID = 1L;
+
+        /** The offscreen image of the elements */
+        private BufferedImage image;
+
+        /** The data version rendered into the image */
+        private long imageVersion = -1;
+
+        /** The background color the image was rendered on */
+        private Color imageBackground;
+
+        /** The escape-time background the image was rendered on, or null */
+        private EscapeTimeLayer imageLayer;
+
+        /** The rendered escape-time background, or null when there is none */
+        private BufferedImage backdrop;
+
+        /** The escape-time background rendered into the backdrop */
+        private EscapeTimeLayer backdropLayer;
+
+        /** The scale the backdrop was rendered at */
+        private double backdropScale;
+
+        /** The region changed since the image was rendered, in element coordinates, or null for none */
+        private Rectangle dirtyRegion;
+
+        /** Whether the whole image must be rendered again, whatever the dirty region */
+        private boolean dirtyAll = true;
+
+        /** The last point of a drag, or null when not dragging */
+        private Point dragPoint;
+
+        /**
+         * Constructor for the DrawArea class. Adds the zoom and pan controls.
+         */
+        public DrawArea() {
+            MouseAdapter controls = new MouseAdapter() {
+                @Override
+                public void mouseWheelMoved(MouseWheelEvent e) {
+                    double factor = Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation());
+                    FractalGenerator generator = (FractalGenerator) subject;
+                    generator.setView(generator.getView().zoomAt(e.getX(), e.getY(), factor));
+                }
+
+                @Override
+                public void mousePressed(MouseEvent e) {
+                    dragPoint = e.getPoint();
+                }
+
+                @Override
+                public void mouseDragged(MouseEvent e) {
+                    if (dragPoint != null) {
+                        FractalGenerator generator = (FractalGenerator) subject;
+                        generator.setView(generator.getView().pan(e.getX() - dragPoint.x, e.getY() - dragPoint.y));
+                        dragPoint = e.getPoint();
+                    }
+                }
+
+                @Override
+                public void mouseReleased(MouseEvent e) {
+                    dragPoint = null;
+                }
+
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    if (e.getClickCount() == 2) {
+                        ((FractalGenerator) subject).setView(FractalView.IDENTITY);
+                    }
+                }
+            };
+            addMouseListener(controls);
+            addMouseMotionListener(controls);
+            addMouseWheelListener(controls);
+            // Registers with the tooltip manager, which then asks getToolTipText(MouseEvent) for the text
+            setToolTipText("");
+        }
 
         /**
          * {@inheritDoc}
          * <br><br>
-         * <p>Draws the elements on the screen.
-         * Syncs on the subject to avoid concurrent modification.</p>
+         * <p>Describes the element under the pointer: the depth and the corners taken from the root for a
+         * Sierpinski triangle, or its index otherwise.</p>
+         */
+        @Override
+        public String getToolTipText(MouseEvent e) {
+            FractalSpatialIndex index = snapshot.getIndex();
+            int[] found = index.queryPoint(e.getX(), e.getY());
+            if (!drawFractal || found.length == 0) {
+                return null;
+            }
+            int element = found[found.length - 1];
+            int[] path = index.getPath(element);
+            if (path == null) {
+                return "Element " + element;
+            }
+            StringBuilder text = new StringBuilder("Depth ").append(path.length + 1);
+            for (int level = 0; level < path.length; level++) {
+                text.append(level == 0 ? ", corners " : "-").append(path[level] + 1);
+            }
+            return text.toString();
+        }
+
+        /**
+         * Marks the whole image as changed and repaints the whole draw area
+         */
+        public void repaintAll() {
+            dirtyAll = true;
+            repaint();
+        }
+
+        /**
+         * Marks a region of the image as changed and repaints only that region of the draw area
+         * @param bounds The changed bounds, in element coordinates, as min x, min y, max x and max y
+         */
+        public void repaintElements(int[] bounds) {
+            Rectangle region = new Rectangle(bounds[0] - DIRTY_MARGIN, bounds[1] - DIRTY_MARGIN,
+                    bounds[2] - bounds[0] + 2 * DIRTY_MARGIN, bounds[3] - bounds[1] + 2 * DIRTY_MARGIN);
+            dirtyRegion = dirtyRegion == null ? region : dirtyRegion.union(region);
+            repaint(region);
+        }
+
+        /**
+         * {@inheritDoc}
+         * <br><br>
+         * <p>Draws the elements on the screen by copying the offscreen image, which is rendered again first if the
+         * size or the background changed, or only in the changed region if just some elements changed. The copy is
+         * clipped to the region Swing repaints.</p>
          */
         @Override
         protected void paintComponent(Graphics g) {
+            FractalMetrics metrics = ((FractalGenerator) subject).getMetrics();
+            long start = metrics.start();
             super.paintComponent(g);
-            ArrayList<FractalElement> localElements;
-            // Synchronize on the subject to avoid concurrent modification
-            synchronized (subject) {
-                localElements = new ArrayList<>(subject.getData());
-            }
             if (drawFractal) {
-                for (FractalElement element : localElements) {
-                    element.draw(g);
+                // Render at device resolution so the copy is not scaled on high-DPI screens
+                AffineTransform transform = ((Graphics2D) g).getTransform();
+                double scale = Math.max(transform.getScaleX(), transform.getScaleY());
+                // Level of detail is measured in device pixels; this only regenerates when the scale changes
+                ((FractalGenerator) subject).setPixelScale(scale);
+                int imageWidth = (int) Math.ceil(getWidth() * scale);
+                int imageHeight = (int) Math.ceil(getHeight() * scale);
+                if (dirtyAll || image == null || image.getWidth() != imageWidth || image.getHeight() != imageHeight
+                        || !getBackground().equals(imageBackground) || !Objects.equals(backgroundLayer, imageLayer)) {
+                    renderImage(imageWidth, imageHeight, scale);
+                } else if (imageVersion != dataVersion) {
+                    renderDirtyRegion(scale);
                 }
+                g.drawImage(image, 0, 0, getWidth(), getHeight(), null);
+            }
+            metrics.recordPaint(start);
+        }
+
+        /**
+         * Renders the elements into the offscreen image, over the escape-time background if there is one
+         * @param imageWidth The width of the image in pixels
+         * @param imageHeight The height of the image in pixels
+         * @param scale The scale from component to image coordinates
+         */
+        private void renderImage(int imageWidth, int imageHeight, double scale) {
+            if (image == null || image.getWidth() != imageWidth || image.getHeight() != imageHeight) {
+                image = new BufferedImage(Math.max(imageWidth, 1), Math.max(imageHeight, 1),
+                        BufferedImage.TYPE_INT_RGB);
+            }
+            EscapeTimeLayer layer = backgroundLayer;
+            if (layer == null) {
+                backdrop = null;
+                backdropLayer = null;
+                // Fill with the background so blending matches drawing straight onto the panel
+                rasterizer.render(elements, image, getBackground(), scale);
+            } else {
+                renderBackdrop(layer, scale);
+                image.getRaster().setRect(backdrop.getRaster());
+                rasterizer.render(elements, image, null, scale);
+            }
+            imageVersion = dataVersion;
+            imageBackground = getBackground();
+            imageLayer = layer;
+            dirtyRegion = null;
+            dirtyAll = false;
+        }
+
+        /**
+         * Renders the dirty region of the offscreen image again, from the elements the spatial index finds in it and
+         * the backdrop under them. A region covering most of the image renders the whole image instead.
+         * @param scale The scale from component to image coordinates
+         */
+        private void renderDirtyRegion(double scale) {
+            Rectangle dirty = dirtyRegion;
+            Rectangle region = dirty == null ? new Rectangle() : new Rectangle(
+                    (int) Math.floor(dirty.x * scale), (int) Math.floor(dirty.y * scale),
+                    (int) Math.ceil(dirty.width * scale) + 1, (int) Math.ceil(dirty.height * scale) + 1)
+                    .intersection(new Rectangle(image.getWidth(), image.getHeight()));
+            if ((double) region.width * region.height > MAX_DIRTY_FRACTION * image.getWidth() * image.getHeight()) {
+                renderImage(image.getWidth(), image.getHeight(), scale);
+                return;
+            }
+            if (!region.isEmpty()) {
+                FractalSpatialIndex index = snapshot.getIndex();
+                // Every element reaching into a pixel of the region is drawn again, clipped to the region
+                int[] indices = index.query((int) Math.floor(region.x / scale) - 1,
+                        (int) Math.floor(region.y / scale) - 1, (int) Math.ceil(region.getMaxX() / scale) + 1,
+                        (int) Math.ceil(region.getMaxY() / scale) + 1);
+                if (backdrop != null) {
+                    image.getRaster().setRect(backdrop.getRaster().createChild(region.x, region.y, region.width,
+                            region.height, region.x, region.y, null));
+                }
+                rasterizer.renderRegion(index.getElements(), indices, image,
+                        backdrop == null ? getBackground() : null, scale, region);
+            }
+            imageVersion = dataVersion;
+            dirtyRegion = null;
+        }
+
+        /**
+         * Renders the escape-time background into the backdrop, unless it already holds it at the size of the image
+         * @param layer The escape-time background
+         * @param scale The scale from component to image coordinates
+         */
+        private void renderBackdrop(EscapeTimeLayer layer, double scale) {
+            if (backdrop != null && backdrop.getWidth() == image.getWidth() && backdrop.getHeight() == image.getHeight()
+                    && layer.equals(backdropLayer) && scale == backdropScale) {
+                return;
+            }
+            if (backdrop == null || backdrop.getWidth() != image.getWidth()
+                    || backdrop.getHeight() != image.getHeight()) {
+                backdrop = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
             }
+            FractalMetrics metrics = ((FractalGenerator) subject).getMetrics();
+            long start = metrics.start();
+            long iterations = layer.render(backdrop, scale);
+            metrics.recordBackground(start, (long) backdrop.getWidth() * backdrop.getHeight(), iterations);
+            backdropLayer = layer;
+            backdropScale = scale;
         }
     }
 }
@@ -0,0 +1,812 @@
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Compact store for fractal elements. Instead of one {@link Circle} or {@link Triangle} object per element, the
+ * elements are kept in parallel primitive arrays: a type code, six coordinates and a packed ARGB color per element.
+ * Circles use the first three coordinates for the center and radius, triangles use all six for their vertices.
+ * Triangles are either outlined, like the ones of the recursion, or filled, standing in for a subtree that is too
+ * small to draw in detail.
+ * <p>
+ * Elements are drawn in the order they were added. {@link #toElements()} builds the equivalent
+ * {@link FractalElement} objects for code that still works with them.
+ * </p>
+ * <p>
+ * For speed, elements can instead be drawn in batches of one shape and color: the circles and filled triangles of a
+ * color are filled as one path with a single call, and each color is only set once. This skips most of the
+ * per-element work of the graphics pipeline, at the cost of the drawing order between batches.
+ * </p>
+ * <p>
+ * A buffer can be frozen once it is complete, after which no elements can be added. Frozen buffers are safe to share
+ * between threads without copying, which is how the generator hands out its elements.
+ * </p>
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+
+//--------------------------------------------------------------------------------------------------------------------//
+// Contents
+// 1. Static Variables
+// 2. Instance Variables
+// 3. Constructors
+// 4. Add Methods
+// 5. Get Methods
+// 6. Draw Methods
+// 7. Element View
+// 8. Binary Form
+// 9. Batch
+//--------------------------------------------------------------------------------------------------------------------//
+
+public class FractalElementBuffer implements FractalSink {
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Static Variables
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /** Type code of a circle element */
+    public static final byte CIRCLE = 0;
+
+    /** Type code of a triangle element */
+    public static final byte TRIANGLE = 1;
+
+    /** Type code of a filled triangle element, which stands in for a whole subtree too small to draw in detail */
+    public static final byte FILLED_TRIANGLE = 2;
+
+    /** The number of coordinates stored per element */
+    private static final int COORDINATES = 6;
+
+    /** The capacity of a buffer created without one */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /** The number of batch slots to start with when drawing in batches, a power of two */
+    private static final int INITIAL_BATCHES = 16;
+
+    /** The rank of circle batches, which are drawn first */
+    private static final long CIRCLE_RANK = 0;
+
+    /** The rank of filled triangle batches, which are drawn after the circles */
+    private static final long FILLED_RANK = 1;
+
+    /** The rank of outlined triangle batches, which are drawn last */
+    private static final long OUTLINE_RANK = 2;
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Instance Variables
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /** The type code of each element */
+    private byte[] types;
+
+    /** The coordinates of each element, six per element */
+    private float[] coordinates;
+
+    /** The packed ARGB color of each element */
+    private int[] colors;
+
+    /** The number of elements */
+    private int size;
+
+    /** Whether the buffer is read-only */
+    private boolean frozen;
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Constructors
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Constructor for an empty FractalElementBuffer
+     */
+    public FractalElementBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor for an empty FractalElementBuffer with room for the given number of elements
+     * @param capacity The number of elements the buffer can hold before growing
+     */
+    public FractalElementBuffer(int capacity) {
+        types = new byte[capacity];
+        coordinates = new float[capacity * COORDINATES];
+        colors = new int[capacity];
+    }
+
+    /**
+     * Creates a buffer with the same elements as this one but different colors. The new buffer shares the types and
+     * coordinates of this one, so neither may have elements added while the other is in use.
+     * @param newColors The packed ARGB color of each element
+     * @return The recolored buffer
+     */
+    public FractalElementBuffer withColors(int[] newColors) {
+        if (newColors.length < size) {
+            throw new IllegalArgumentException("Expected " + size + " colors but got " + newColors.length);
+        }
+        FractalElementBuffer recolored = new FractalElementBuffer(0);
+        recolored.types = types;
+        recolored.coordinates = coordinates;
+        recolored.colors = newColors;
+        recolored.size = size;
+        return recolored;
+    }
+
+    /**
+     * Creates a copy of this buffer, trimmed to its size. The copy is never frozen.
+     * @return The copy
+     */
+    public FractalElementBuffer copy() {
+        FractalElementBuffer copy = new FractalElementBuffer(0);
+        copy.types = Arrays.copyOf(types, size);
+        copy.coordinates = Arrays.copyOf(coordinates, size * COORDINATES);
+        copy.colors = Arrays.copyOf(colors, size);
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Makes this buffer read-only. Adding elements to a frozen buffer throws an {@link IllegalStateException}.
+     * @return This buffer
+     */
+    public FractalElementBuffer freeze() {
+        frozen = true;
+        return this;
+    }
+
+    /**
+     * Gets whether this buffer is read-only
+     * @return Whether the buffer is frozen
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Add Methods
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Adds a circle
+     * <br><br>
+     * {@inheritDoc}
+     * @param centerX The x coordinate of the center
+     * @param centerY The y coordinate of the center
+     * @param radius The radius
+     * @param argb The packed ARGB color, where the alpha is the opacity of the circle
+     */
+    @Override
+    public void addCircle(float centerX, float centerY, float radius, int argb) {
+        int offset = add(CIRCLE, argb);
+        coordinates[offset] = centerX;
+        coordinates[offset + 1] = centerY;
+        coordinates[offset + 2] = radius;
+    }
+
+    /**
+     * Adds a triangle
+     * <br><br>
+     * {@inheritDoc}
+     * @param x1 The x coordinate of the first point
+     * @param y1 The y coordinate of the first point
+     * @param x2 The x coordinate of the second point
+     * @param y2 The y coordinate of the second point
+     * @param x3 The x coordinate of the third point
+     * @param y3 The y coordinate of the third point
+     * @param argb The packed ARGB color
+     */
+    @Override
+    public void addTriangle(float x1, float y1, float x2, float y2, float x3, float y3, int argb) {
+        addTriangle(TRIANGLE, x1, y1, x2, y2, x3, y3, argb);
+    }
+
+    /**
+     * Adds a filled triangle
+     * <br><br>
+     * {@inheritDoc}
+     * @param x1 The x coordinate of the first point
+     * @param y1 The y coordinate of the first point
+     * @param x2 The x coordinate of the second point
+     * @param y2 The y coordinate of the second point
+     * @param x3 The x coordinate of the third point
+     * @param y3 The y coordinate of the third point
+     * @param argb The packed ARGB color
+     */
+    @Override
+    public void addFilledTriangle(float x1, float y1, float x2, float y2, float x3, float y3, int argb) {
+        addTriangle(FILLED_TRIANGLE, x1, y1, x2, y2, x3, y3, argb);
+    }
+
+    /**
+     * Adds an outlined or filled triangle
+     * @param type {@link #TRIANGLE} or {@link #FILLED_TRIANGLE}
+     * @param x1 The x coordinate of the first point
+     * @param y1 The y coordinate of the first point
+     * @param x2 The x coordinate of the second point
+     * @param y2 The y coordinate of the second point
+     * @param x3 The x coordinate of the third point
+     * @param y3 The y coordinate of the third point
+     * @param argb The packed ARGB color
+     */
+    private void addTriangle(byte type, float x1, float y1, float x2, float y2, float x3, float y3, int argb) {
+        int offset = add(type, argb);
+        coordinates[offset] = x1;
+        coordinates[offset + 1] = y1;
+        coordinates[offset + 2] = x2;
+        coordinates[offset + 3] = y2;
+        coordinates[offset + 4] = x3;
+        coordinates[offset + 5] = y3;
+    }
+
+    /**
+     * Adds all elements of another buffer, in order
+     * @param other The buffer to add
+     */
+    public void addAll(FractalElementBuffer other) {
+        addRange(other, 0, other.size);
+    }
+
+    /**
+     * Adds a range of elements of another buffer, in order
+     * @param other The buffer to add from
+     * @param from The index of the first element to add
+     * @param to The index after the last element to add
+     */
+    public void addRange(FractalElementBuffer other, int from, int to) {
+        checkNotFrozen();
+        int count = to - from;
+        ensureCapacity(size + count);
+        System.arraycopy(other.types, from, types, size, count);
+        System.arraycopy(other.coordinates, from * COORDINATES, coordinates, size * COORDINATES,
+                count * COORDINATES);
+        System.arraycopy(other.colors, from, colors, size, count);
+        size += count;
+    }
+
+    /**
+     * Appends the type and color of a new element
+     * @param type The type code
+     * @param argb The packed ARGB color
+     * @return The offset of the new element's coordinates
+     */
+    private int add(byte type, int argb) {
+        checkNotFrozen();
+        ensureCapacity(size + 1);
+        types[size] = type;
+        colors[size] = argb;
+        return size++ * COORDINATES;
+    }
+
+    /**
+     * Checks that elements can be added to this buffer
+     * @throws IllegalStateException If the buffer is frozen
+     */
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("Cannot add elements to a frozen buffer");
+        }
+    }
+
+    /**
+     * Grows the arrays so the buffer can hold at least the given number of elements
+     * @param capacity The required capacity
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > types.length) {
+            int newCapacity = Math.max(capacity, types.length * 2);
+            types = Arrays.copyOf(types, newCapacity);
+            coordinates = Arrays.copyOf(coordinates, newCapacity * COORDINATES);
+            colors = Arrays.copyOf(colors, newCapacity);
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Get Methods
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Gets the number of elements
+     * @return The number of elements
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the type code of an element
+     * @param index The index of the element
+     * @return {@link #CIRCLE}, {@link #TRIANGLE} or {@link #FILLED_TRIANGLE}
+     */
+    public byte getType(int index) {
+        return types[index];
+    }
+
+    /**
+     * Gets a coordinate of an element. For circles, coordinates 0 to 2 are the center x, center y and radius.
+     * For triangles of either kind, coordinates 0 to 5 are the x and y of each point in turn.
+     * @param index The index of the element
+     * @param coordinate The coordinate, from 0 to 5
+     * @return The coordinate value
+     */
+    public float getCoordinate(int index, int coordinate) {
+        return coordinates[index * COORDINATES + coordinate];
+    }
+
+    /**
+     * Gets the packed ARGB color of an element
+     * @param index The index of the element
+     * @return The packed ARGB color
+     */
+    public int getColor(int index) {
+        return colors[index];
+    }
+
+    /**
+     * Gets the bounds of the pixels an element covers when drawn at its own coordinates
+     * @param index The index of the element
+     * @param bounds The array to store the bounds in, as min x, min y, max x and max y, with the maximums exclusive
+     * @return The bounds array
+     */
+    public int[] getBounds(int index, int[] bounds) {
+        int offset = index * COORDINATES;
+        // Rounded outwards, so fractional coordinates, as zoomed views and other types have, stay inside the bounds
+        if (types[index] == CIRCLE) {
+            float radius = coordinates[offset + 2];
+            bounds[0] = (int) Math.floor(coordinates[offset] - radius);
+            bounds[1] = (int) Math.floor(coordinates[offset + 1] - radius);
+            bounds[2] = (int) Math.ceil(coordinates[offset] + radius) + 1;
+            bounds[3] = (int) Math.ceil(coordinates[offset + 1] + radius) + 1;
+        } else {
+            float x1 = coordinates[offset];
+            float y1 = coordinates[offset + 1];
+            float x2 = coordinates[offset + 2];
+            float y2 = coordinates[offset + 3];
+            float x3 = coordinates[offset + 4];
+            float y3 = coordinates[offset + 5];
+            bounds[0] = (int) Math.floor(Math.min(x1, Math.min(x2, x3)));
+            bounds[1] = (int) Math.floor(Math.min(y1, Math.min(y2, y3)));
+            bounds[2] = (int) Math.ceil(Math.max(x1, Math.max(x2, x3))) + 1;
+            bounds[3] = (int) Math.ceil(Math.max(y1, Math.max(y2, y3))) + 1;
+        }
+        return bounds;
+    }
+
+    /**
+     * Gets the bounds of everything drawn differently by this buffer and another one. Elements are compared by index,
+     * and an element that differs in type, coordinates or color adds its bounds in both buffers, as do the elements
+     * only one of the buffers has. Buffers sharing their geometry, as recolored ones do, only compare colors.
+     * @param other The other buffer
+     * @param bounds The array to store the bounds in, as min x, min y, max x and max y, with the maximums exclusive
+     * @return The bounds array, or null if both buffers draw the same elements
+     */
+    public int[] getChangedBounds(FractalElementBuffer other, int[] bounds) {
+        bounds[0] = Integer.MAX_VALUE;
+        bounds[1] = Integer.MAX_VALUE;
+        bounds[2] = Integer.MIN_VALUE;
+        bounds[3] = Integer.MIN_VALUE;
+        boolean sameGeometry = types == other.types && coordinates == other.coordinates;
+        if (sameGeometry && colors == other.colors && size == other.size) {
+            return null;
+        }
+        int[] elementBounds = new int[4];
+        int common = Math.min(size, other.size);
+        boolean changed = false;
+        for (int index = 0; index < Math.max(size, other.size); index++) {
+            if (index < common && colors[index] == other.colors[index] && (sameGeometry
+                    || types[index] == other.types[index] && Arrays.equals(coordinates, index * COORDINATES,
+                    (index + 1) * COORDINATES, other.coordinates, index * COORDINATES, (index + 1) * COORDINATES))) {
+                continue;
+            }
+            if (index < size) {
+                addBounds(getBounds(index, elementBounds), bounds);
+            }
+            if (index < other.size) {
+                addBounds(other.getBounds(index, elementBounds), bounds);
+            }
+            changed = true;
+        }
+        return changed ? bounds : null;
+    }
+
+    /**
+     * Grows bounds to include other bounds
+     * @param added The bounds to include
+     * @param bounds The bounds to grow
+     */
+    private static void addBounds(int[] added, int[] bounds) {
+        bounds[0] = Math.min(bounds[0], added[0]);
+        bounds[1] = Math.min(bounds[1], added[1]);
+        bounds[2] = Math.max(bounds[2], added[2]);
+        bounds[3] = Math.max(bounds[3], added[3]);
+    }
+
+    /**
+     * Checks whether the shape of an element contains a point. Outlined triangles count their inside, so a point
+     * is in every triangle it lies within, not only on the lines.
+     * @param index The index of the element
+     * @param x The x coordinate of the point
+     * @param y The y coordinate of the point
+     * @return Whether the circle or triangle contains the point, including its edge
+     */
+    public boolean contains(int index, float x, float y) {
+        int offset = index * COORDINATES;
+        if (types[index] == CIRCLE) {
+            float dx = x - coordinates[offset];
+            float dy = y - coordinates[offset + 1];
+            float radius = coordinates[offset + 2];
+            return dx * dx + dy * dy <= radius * radius;
+        }
+        // The point is inside when it is on the same side of all three edges, whichever way the triangle winds
+        float x1 = coordinates[offset];
+        float y1 = coordinates[offset + 1];
+        float x2 = coordinates[offset + 2];
+        float y2 = coordinates[offset + 3];
+        float x3 = coordinates[offset + 4];
+        float y3 = coordinates[offset + 5];
+        float side1 = (x2 - x1) * (y - y1) - (y2 - y1) * (x - x1);
+        float side2 = (x3 - x2) * (y - y2) - (y3 - y2) * (x - x2);
+        float side3 = (x1 - x3) * (y - y3) - (y1 - y3) * (x - x3);
+        return (side1 >= 0 && side2 >= 0 && side3 >= 0) || (side1 <= 0 && side2 <= 0 && side3 <= 0);
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Draw Methods
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Draws all elements in order. Produces the same output as drawing the equivalent {@link Circle} and
+     * {@link Triangle} objects, but only changes the color of the graphics object when it differs from the last one.
+     * @param g The graphics object
+     */
+    public void draw(Graphics g) {
+        draw(g, null, size);
+    }
+
+    /**
+     * Draws some of the elements, in the order given
+     * @param g The graphics object
+     * @param indices The indices of the elements to draw, or null to draw the first elements in order
+     * @param count The number of elements to draw
+     */
+    public void draw(Graphics g, int[] indices, int count) {
+        int[] xPoints = new int[3];
+        int[] yPoints = new int[3];
+        int lastColor = 0;
+        boolean colorSet = false;
+        for (int position = 0; position < count; position++) {
+            int index = indices == null ? position : indices[position];
+            if (!colorSet || colors[index] != lastColor) {
+                lastColor = colors[index];
+                colorSet = true;
+                g.setColor(new Color(lastColor, true));
+            }
+            drawShape(g, index, xPoints, yPoints);
+        }
+    }
+
+    /**
+     * Draws the shape of one element with the current color of the graphics object
+     * @param g The graphics object
+     * @param index The index of the element
+     * @param xPoints Scratch space for the x coordinates of a filled triangle
+     * @param yPoints Scratch space for the y coordinates of a filled triangle
+     */
+    private void drawShape(Graphics g, int index, int[] xPoints, int[] yPoints) {
+        int offset = index * COORDINATES;
+        if (types[index] == CIRCLE) {
+            int centerX = (int) coordinates[offset];
+            int centerY = (int) coordinates[offset + 1];
+            int radius = (int) coordinates[offset + 2];
+            g.fillOval(centerX - radius, centerY - radius, 2 * radius, 2 * radius);
+        } else {
+            int x1 = (int) coordinates[offset];
+            int y1 = (int) coordinates[offset + 1];
+            int x2 = (int) coordinates[offset + 2];
+            int y2 = (int) coordinates[offset + 3];
+            int x3 = (int) coordinates[offset + 4];
+            int y3 = (int) coordinates[offset + 5];
+            if (types[index] == FILLED_TRIANGLE) {
+                xPoints[0] = x1;
+                yPoints[0] = y1;
+                xPoints[1] = x2;
+                yPoints[1] = y2;
+                xPoints[2] = x3;
+                yPoints[2] = y3;
+                g.fillPolygon(xPoints, yPoints, 3);
+                return;
+            }
+            g.drawLine(x1, y1, x2, y2);
+            g.drawLine(x2, y2, x3, y3);
+            g.drawLine(x3, y3, x1, y1);
+        }
+    }
+
+    /**
+     * Draws all elements in batches, as in {@link #drawBatched(Graphics2D, int[], int)}
+     * @param g The graphics object
+     */
+    public void drawBatched(Graphics2D g) {
+        drawBatched(g, null, size);
+    }
+
+    /**
+     * Draws some of the elements in batches of one shape and color, with one color change per batch. The circles and
+     * filled triangles of a batch are collected into one path, which is filled with a single call. The outlined
+     * triangles of a batch are drawn line by line, as stroking one large path costs more than it saves and rounds
+     * differently where the lines are clipped.
+     * <p>
+     * Circles are drawn first, then filled triangles, then outlined triangles, each shape in order of color.
+     * Overlapping elements of different colors therefore do not always stack as they do in drawing order, and
+     * overlapping translucent circles of one color are blended once. The order only depends on the shapes and
+     * colors, so drawing any subset, such as the elements of a tile, agrees with drawing all elements.
+     * </p>
+     * @param g The graphics object
+     * @param indices The indices of the elements to draw, or null to draw the first elements
+     * @param count The number of elements to draw
+     */
+    public void drawBatched(Graphics2D g, int[] indices, int count) {
+        // Open addressing from batch key to batch; a theme only has a few colors, so the table stays small
+        Batch[] table = new Batch[INITIAL_BATCHES];
+        int batches = 0;
+        Ellipse2D.Float ellipse = new Ellipse2D.Float();
+        for (int position = 0; position < count; position++) {
+            int index = indices == null ? position : indices[position];
+            long key = batchKey(types[index], colors[index]);
+            int slot = findSlot(table, key);
+            if (table[slot] == null) {
+                table[slot] = new Batch(key);
+                // Keep the table at most half full, so probes stay short
+                if (2 * ++batches > table.length) {
+                    table = rehash(table, 2 * table.length);
+                    slot = findSlot(table, key);
+                }
+            }
+            Batch batch = table[slot];
+            if (batch.path == null) {
+                batch.add(index);
+            } else {
+                appendShape(batch.path, index, ellipse);
+            }
+        }
+
+        // Draw the batches in key order: by shape, then by color
+        long[] order = new long[batches];
+        int next = 0;
+        for (Batch batch : table) {
+            if (batch != null) {
+                order[next++] = batch.key;
+            }
+        }
+        Arrays.sort(order);
+        int[] xPoints = new int[3];
+        int[] yPoints = new int[3];
+        for (long key : order) {
+            Batch batch = table[findSlot(table, key)];
+            g.setColor(new Color((int) key, true));
+            if (batch.path != null) {
+                g.fill(batch.path);
+            } else {
+                for (int position = 0; position < batch.count; position++) {
+                    drawShape(g, batch.indices[position], xPoints, yPoints);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the slot of a batch key in an open addressing table, or the empty slot it belongs in
+     * @param table The batches, with null for empty slots; the length is a power of two
+     * @param key The batch key
+     * @return The slot
+     */
+    private static int findSlot(Batch[] table, long key) {
+        int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & (table.length - 1);
+        while (table[slot] != null && table[slot].key != key) {
+            slot = (slot + 1) & (table.length - 1);
+        }
+        return slot;
+    }
+
+    /**
+     * Moves the batches of an open addressing table into a new table
+     * @param table The batches, with null for empty slots
+     * @param length The length of the new table, a power of two greater than the number of batches
+     * @return The new table
+     */
+    private static Batch[] rehash(Batch[] table, int length) {
+        Batch[] rehashed = new Batch[length];
+        for (Batch batch : table) {
+            if (batch != null) {
+                rehashed[findSlot(rehashed, batch.key)] = batch;
+            }
+        }
+        return rehashed;
+    }
+
+    /**
+     * Adds the shape of a circle or filled triangle to a batch path, with the same integer coordinates it is drawn
+     * with one by one
+     * @param path The path
+     * @param index The index of the element
+     * @param ellipse Scratch space for the shape of a circle
+     */
+    private void appendShape(Path2D.Float path, int index, Ellipse2D.Float ellipse) {
+        int offset = index * COORDINATES;
+        if (types[index] == CIRCLE) {
+            int centerX = (int) coordinates[offset];
+            int centerY = (int) coordinates[offset + 1];
+            int radius = (int) coordinates[offset + 2];
+            ellipse.setFrame(centerX - radius, centerY - radius, 2 * radius, 2 * radius);
+            path.append(ellipse, false);
+        } else {
+            path.moveTo((int) coordinates[offset], (int) coordinates[offset + 1]);
+            path.lineTo((int) coordinates[offset + 2], (int) coordinates[offset + 3]);
+            path.lineTo((int) coordinates[offset + 4], (int) coordinates[offset + 5]);
+            path.closePath();
+        }
+    }
+
+    /**
+     * Gets the key of the batch an element is drawn in, which orders the batches by shape and then by color
+     * @param type The type code of the element
+     * @param argb The packed ARGB color of the element
+     * @return The shape rank in the upper half and the color in the lower half
+     */
+    private static long batchKey(byte type, int argb) {
+        long rank = type == CIRCLE ? CIRCLE_RANK : type == FILLED_TRIANGLE ? FILLED_RANK : OUTLINE_RANK;
+        return (rank << 32) | (argb & 0xFFFFFFFFL);
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Element View
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Sends every element to a sink, in drawing order
+     * @param sink The sink
+     */
+    public void writeTo(FractalSink sink) {
+        for (int index = 0; index < size; index++) {
+            int offset = index * COORDINATES;
+            if (types[index] == CIRCLE) {
+                sink.addCircle(coordinates[offset], coordinates[offset + 1], coordinates[offset + 2], colors[index]);
+            } else if (types[index] == FILLED_TRIANGLE) {
+                sink.addFilledTriangle(coordinates[offset], coordinates[offset + 1], coordinates[offset + 2],
+                        coordinates[offset + 3], coordinates[offset + 4], coordinates[offset + 5], colors[index]);
+            } else {
+                sink.addTriangle(coordinates[offset], coordinates[offset + 1], coordinates[offset + 2],
+                        coordinates[offset + 3], coordinates[offset + 4], coordinates[offset + 5], colors[index]);
+            }
+        }
+    }
+
+    /**
+     * Creates the {@link Circle} and {@link Triangle} objects equivalent to the stored elements
+     * @return An ArrayList of FractalElements, in drawing order
+     */
+    public ArrayList<FractalElement> toElements() {
+        ArrayList<FractalElement> elements = new ArrayList<>(size);
+        for (int index = 0; index < size; index++) {
+            int offset = index * COORDINATES;
+            if (types[index] == CIRCLE) {
+                Point center = new Point((int) coordinates[offset], (int) coordinates[offset + 1]);
+                elements.add(new Circle(center, coordinates[offset + 2], new Color(colors[index] & 0xFFFFFF),
+                        colors[index] >>> 24));
+            } else {
+                Point ptA = new Point((int) coordinates[offset], (int) coordinates[offset + 1]);
+                Point ptB = new Point((int) coordinates[offset + 2], (int) coordinates[offset + 3]);
+                Point ptC = new Point((int) coordinates[offset + 4], (int) coordinates[offset + 5]);
+                elements.add(new Triangle(ptA, ptB, ptC, new Color(colors[index], true),
+                        types[index] == FILLED_TRIANGLE));
+            }
+        }
+        return elements;
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Binary Form
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Gets the number of bytes the binary form of a buffer takes, as written by {@link #writeBinary(ByteBuffer)}
+     * @param size The number of elements
+     * @return The number of bytes
+     */
+    public static long binarySize(int size) {
+        return paddedTypesSize(size) + (long) size * (COORDINATES * Float.BYTES + Integer.BYTES);
+    }
+
+    /**
+     * Writes the elements as packed primitive sections: the type codes, padded with zeros to a multiple of four bytes,
+     * then the coordinates and then the colors, in the byte order of the output
+     * @param out The output, with at least {@link #binarySize(int)} bytes remaining
+     */
+    public void writeBinary(ByteBuffer out) {
+        out.put(types, 0, size);
+        for (long pad = size; pad < paddedTypesSize(size); pad++) {
+            out.put((byte) 0);
+        }
+        out.asFloatBuffer().put(coordinates, 0, size * COORDINATES);
+        out.position(out.position() + size * COORDINATES * Float.BYTES);
+        out.asIntBuffer().put(colors, 0, size);
+        out.position(out.position() + size * Integer.BYTES);
+    }
+
+    /**
+     * Reads elements written by {@link #writeBinary(ByteBuffer)}. Each section is copied with one bulk transfer, so
+     * reading costs little more than copying the bytes.
+     * @param in The input, in the byte order it was written in
+     * @param size The number of elements
+     * @return A frozen buffer with the elements
+     */
+    public static FractalElementBuffer readBinary(ByteBuffer in, int size) {
+        FractalElementBuffer elements = new FractalElementBuffer(size);
+        in.get(elements.types, 0, size);
+        in.position((int) (in.position() - size + paddedTypesSize(size)));
+        in.asFloatBuffer().get(elements.coordinates, 0, size * COORDINATES);
+        in.position(in.position() + size * COORDINATES * Float.BYTES);
+        in.asIntBuffer().get(elements.colors, 0, size);
+        in.position(in.position() + size * Integer.BYTES);
+        elements.size = size;
+        return elements.freeze();
+    }
+
+    /**
+     * Gets the number of bytes the type codes take in the binary form, padded to a multiple of four
+     * @param size The number of elements
+     * @return The number of bytes
+     */
+    private static long paddedTypesSize(int size) {
+        return (size + 3L) & ~3L;
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Batch
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * The elements of one shape and color, collected to be drawn together
+     */
+    private static class Batch {
+
+        /** The batch key: the shape rank in the upper half and the color in the lower half */
+        private final long key;
+
+        /** The shapes of the circles or filled triangles, or null for a batch of outlined triangles */
+        private final Path2D.Float path;
+
+        /** The indices of the outlined triangles, or null for a batch of filled shapes */
+        private int[] indices;
+
+        /** The number of outlined triangles */
+        private int count;
+
+        /**
+         * Constructor for the Batch class
+         * @param key The batch key
+         */
+        Batch(long key) {
+            this.key = key;
+            if ((key >>> 32) == OUTLINE_RANK) {
+                path = null;
+                indices = new int[DEFAULT_CAPACITY];
+            } else {
+                path = new Path2D.Float(Path2D.WIND_NON_ZERO);
+            }
+        }
+
+        /**
+         * Adds an outlined triangle
+         * @param index The index of the triangle
+         */
+        void add(int index) {
+            if (count == indices.length) {
+                indices = Arrays.copyOf(indices, 2 * count);
+            }
+            indices[count++] = index;
+        }
+    }
+}
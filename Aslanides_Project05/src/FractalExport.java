@@ -0,0 +1,400 @@
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Headless entry point that renders fractals to PNG or SVG files without opening any windows.
+ * It drives a {@link FractalGenerator} directly, with the bounding triangle scaled to the requested output size.
+ * <p>
+ * In batch mode, every line of a batch file holds the options for one render, on top of the options given on the
+ * command line, and the renders run on a thread pool. Blank lines and lines starting with # are skipped. The theme
+ * file, batch file and thread count apply to the whole batch, so they are only accepted on the command line.
+ * </p>
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+
+//--------------------------------------------------------------------------------------------------------------------//
+// Contents
+// 1. Static Variables
+// 2. Main Method
+// 3. Export
+// 4. Batch Mode
+// 5. Options
+//--------------------------------------------------------------------------------------------------------------------//
+
+public class FractalExport {
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Static Variables
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /** The command line usage */
+    private static final String USAGE = String.join("\n",
+            "Usage: java FractalExport [options] --out FILE",
+            "       java FractalExport [options] --batch FILE",
+            "  --type ID            fractal type: " + FractalTypes.getIds() + " (default sierpinski)",
+            "  --depth N            recursion depth (default 5)",
+            "  --theme NAME         theme from the theme file (default: the first theme)",
+            "  --themes FILE        theme file (default " + FractalThemes.DEFAULT_FILE + ")",
+            "  --color RRGGBB       draw every element in this color instead of the theme",
+            "  --opacity N          circle opacity from 0 to 255 (default 255)",
+            "  --seed N             seed for choosing theme colors (default 0)",
+            "  --detail PIXELS      fill in triangles smaller than this instead of recursing (default 0: off)",
+            "  --width N            output width in pixels (default 600)",
+            "  --height N           output height in pixels (default 600)",
+            "  --background RRGGBB  background color (default FFFFFF)",
+            "  --draw ordered|batched  PNG drawing: in element order, or faster in batches of one color",
+            "                       (default ordered)",
+            "  --format png|svg     output format (default: from the output file extension)",
+            "  --cache DIR          keep generated elements in DIR and reuse them in later runs",
+            "  --out FILE           output file",
+            "  --batch FILE         render each line of FILE as a set of options",
+            "  --threads N          batch worker threads (default: one per processor)");
+
+    /** Unused constructor for the FractalExport class */
+    public FractalExport() {}
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Main Method
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Main method for headless exports
+     * @param args The options
+     */
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        try {
+            Options options = Options.parse(args, new Options(), false);
+            FractalThemes themes = FractalThemes.load(new File(options.themeFile));
+            if (options.batchFile != null) {
+                runBatch(options, themes);
+            } else {
+                FractalRasterizer rasterizer = new FractalRasterizer();
+                rasterizer.setBatched(options.batched);
+                export(options, themes, rasterizer);
+                rasterizer.shutdown();
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Export
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Generates one fractal and writes it to the output file
+     * @param options The options of the render
+     * @param themes The themes to choose from
+     * @param rasterizer The rasterizer for PNG output, or null to draw serially on the calling thread
+     * @throws IOException If writing the output fails
+     */
+    public static void export(Options options, FractalThemes themes, FractalRasterizer rasterizer)
+            throws IOException {
+        if (options.outFile == null) {
+            throw new IllegalArgumentException("No output file given");
+        }
+        ArrayList<Color> theme = options.theme == null ? themes.getTheme(0) : themes.getTheme(options.theme);
+
+        FractalGenerator generator = new FractalGenerator(theme);
+        if (rasterizer == null) {
+            // Batch renders already run in parallel, so each one generates on its own thread
+            generator.setParallelThreshold(Integer.MAX_VALUE);
+        }
+        generator.setFractalType(options.type);
+        generator.setCanvasSize(options.width, options.height);
+        generator.setSeed(options.seed);
+        generator.setCircleOpacity(options.opacity);
+        generator.setColor(options.color);
+        generator.setDetailThreshold(options.detail);
+        generator.setRecursionDepth(options.depth);
+        if (options.cacheDirectory != null) {
+            generator.setCacheDirectory(Path.of(options.cacheDirectory));
+        }
+
+        File outFile = new File(options.outFile);
+        if (options.getFormat().equals("svg")) {
+            // Stream the elements straight into the file, so deep fractals are never held in memory
+            try (FileChannel channel = FileChannel.open(outFile.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                 FractalSvgWriter svg = new FractalSvgWriter(channel, options.width, options.height,
+                         options.background)) {
+                generator.generate(svg);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        } else {
+            FractalElementBuffer elements = generator.getData();
+            BufferedImage image = new BufferedImage(options.width, options.height, BufferedImage.TYPE_INT_RGB);
+            if (rasterizer == null) {
+                FractalRasterizer.renderSerial(elements, image, options.background, 1, options.batched);
+            } else {
+                rasterizer.render(elements, image, options.background, 1);
+            }
+            if (!ImageIO.write(image, options.getFormat(), outFile)) {
+                throw new IOException("No image writer for format " + options.getFormat());
+            }
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Batch Mode
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Renders every line of the batch file on a thread pool. Failed renders are reported and do not stop the others.
+     * @param defaults The options from the command line, which each line adds to
+     * @param themes The themes to choose from
+     * @throws IOException If the batch file cannot be read
+     */
+    private static void runBatch(Options defaults, FractalThemes themes) throws IOException {
+        List<String> lines = Files.readAllLines(new File(defaults.batchFile).toPath(), StandardCharsets.UTF_8);
+        ArrayList<Options> jobs = new ArrayList<>();
+        for (int index = 0; index < lines.size(); index++) {
+            String line = lines.get(index).trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                try {
+                    jobs.add(Options.parse(line.split("\\s+"), defaults, true));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Line " + (index + 1) + ": " + e.getMessage());
+                }
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(defaults.threads);
+        ArrayList<Future<?>> results = new ArrayList<>();
+        for (Options job : jobs) {
+            results.add(executor.submit(() -> {
+                export(job, themes, null);
+                return null;
+            }));
+        }
+        executor.shutdown();
+
+        int failures = 0;
+        for (int index = 0; index < results.size(); index++) {
+            try {
+                results.get(index).get();
+                System.out.println("Wrote " + jobs.get(index).outFile);
+            } catch (ExecutionException e) {
+                failures++;
+                System.err.println("Error: " + jobs.get(index).outFile + ": " + e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                executor.shutdownNow();
+                return;
+            }
+        }
+        if (failures > 0) {
+            System.err.println(failures + " of " + jobs.size() + " renders failed");
+            System.exit(1);
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Options
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * The options of one render
+     */
+    public static class Options implements Cloneable {
+
+        /** The fractal type */
+        FractalType type = FractalTypes.SIERPINSKI;
+
+        /** The recursion depth */
+        int depth = 5;
+
+        /** The name of the theme, or null for the first theme */
+        String theme;
+
+        /** The theme file */
+        String themeFile = FractalThemes.DEFAULT_FILE;
+
+        /** The color of every element, or null to use the theme */
+        Color color;
+
+        /** The circle opacity */
+        int opacity = 255;
+
+        /** The seed for choosing theme colors */
+        long seed;
+
+        /** The smallest size of a triangle drawn in detail, in pixels, or 0 to draw every level in detail */
+        double detail;
+
+        /** The output width */
+        int width = FractalGenerator.DEFAULT_CANVAS_SIZE;
+
+        /** The output height */
+        int height = FractalGenerator.DEFAULT_CANVAS_SIZE;
+
+        /** The background color */
+        Color background = Color.WHITE;
+
+        /** Whether PNG output is drawn in batches of one shape and color instead of in element order */
+        boolean batched;
+
+        /** The output format, or null to use the output file extension */
+        String format;
+
+        /** The output file */
+        String outFile;
+
+        /** The directory generated elements are kept in between runs, or null to keep them in memory only */
+        String cacheDirectory;
+
+        /** The batch file */
+        String batchFile;
+
+        /** The number of batch worker threads */
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * Parses options on top of a set of defaults
+         * @param args The options
+         * @param defaults The defaults
+         * @param batchLine Whether the options are a line of a batch file, which must not set the theme file, batch
+         *                  file or thread count of the batch
+         * @return The parsed options
+         * @throws IllegalArgumentException If an option is unknown, not allowed or has an invalid value
+         */
+        static Options parse(String[] args, Options defaults, boolean batchLine) {
+            Options options = defaults.copy();
+            for (int index = 0; index < args.length; index++) {
+                String option = args[index];
+                if (index + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + option);
+                }
+                if (batchLine && (option.equals("--themes") || option.equals("--batch")
+                        || option.equals("--threads"))) {
+                    throw new IllegalArgumentException(option + " is only allowed on the command line");
+                }
+                String value = args[++index];
+                try {
+                    switch (option) {
+                        case "--type":
+                            options.type = FractalTypes.forId(value);
+                            break;
+                        case "--depth":
+                            options.depth = Integer.parseInt(value);
+                            break;
+                        case "--theme":
+                            options.theme = value;
+                            break;
+                        case "--themes":
+                            options.themeFile = value;
+                            break;
+                        case "--color":
+                            options.color = parseColor(value);
+                            break;
+                        case "--opacity":
+                            options.opacity = Integer.parseInt(value);
+                            break;
+                        case "--seed":
+                            options.seed = Long.parseLong(value);
+                            break;
+                        case "--detail":
+                            options.detail = Double.parseDouble(value);
+                            break;
+                        case "--width":
+                            options.width = Integer.parseInt(value);
+                            break;
+                        case "--height":
+                            options.height = Integer.parseInt(value);
+                            break;
+                        case "--background":
+                            options.background = parseColor(value);
+                            break;
+                        case "--draw":
+                            if (!value.equals("ordered") && !value.equals("batched")) {
+                                throw new IllegalArgumentException("Invalid value for " + option + ": " + value);
+                            }
+                            options.batched = value.equals("batched");
+                            break;
+                        case "--format":
+                            options.format = value.toLowerCase();
+                            break;
+                        case "--out":
+                            options.outFile = value;
+                            break;
+                        case "--cache":
+                            options.cacheDirectory = value;
+                            break;
+                        case "--batch":
+                            options.batchFile = value;
+                            break;
+                        case "--threads":
+                            options.threads = Integer.parseInt(value);
+                            break;
+                        default:
+                            throw new IllegalArgumentException("Unknown option " + option);
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid value for " + option + ": " + value);
+                }
+            }
+            if (options.depth < 0 || options.width < 1 || options.height < 1 || options.threads < 1
+                    || options.opacity < 0 || options.opacity > 255 || !(options.detail >= 0)) {
+                throw new IllegalArgumentException("Depth, size, threads, opacity or detail out of range");
+            }
+            return options;
+        }
+
+        /**
+         * Parses a hex color such as 2F2059 or #2F2059
+         * @param value The hex color
+         * @return The color
+         */
+        private static Color parseColor(String value) {
+            return new Color(Integer.parseInt(value.startsWith("#") ? value.substring(1) : value, 16));
+        }
+
+        /**
+         * Gets the output format, from the output file extension if no format was given
+         * @return png, svg or another image format supported by ImageIO
+         */
+        String getFormat() {
+            if (format != null) {
+                return format;
+            }
+            int dot = outFile.lastIndexOf('.');
+            return dot < 0 ? "png" : outFile.substring(dot + 1).toLowerCase();
+        }
+
+        /**
+         * Copies these options
+         * @return The copy
+         */
+        Options copy() {
+            try {
+                return (Options) clone();
+            } catch (CloneNotSupportedException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
@@ -1,10 +1,92 @@
 import java.awt.Color;
-import java.awt.Point;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
- * This class is responsible for generating the fractal elements and instantiating them in an ArrayList
+ * This class is responsible for generating the fractal elements and storing them in a {@link FractalElementBuffer}
  * It is a subject of the FractalDrawing class.
+ * <p>
+ * What is generated is decided by a {@link FractalType}, the Sierpinski triangle by default. The generator hands the
+ * type a {@link FractalRequest} with the parameters, a fork/join pool and the seed, and caches, stores and publishes
+ * the elements the same way for every type. The level of detail and the geometry layer below belong to the
+ * Sierpinski triangle, whose unzoomed geometry the generator keeps itself.
+ * </p>
+ * <p>
+ * The elements are built in two layers. The geometry of each recursion depth is generated once and cached, and the
+ * colors and circle opacity are applied on top of it. Changing only the colors or the opacity recolors the cached
+ * geometry in a single pass instead of regenerating it.
+ * </p>
+ * <p>
+ * Theme colors are chosen from a hash of the seed and the path to each triangle, so the same parameters always
+ * produce the same elements, whether they are generated serially, in parallel, streamed or zoomed, and a triangle
+ * keeps its colors when the recursion depth changes. Colored elements are kept in a {@link FractalCache}, so
+ * returning to earlier parameters needs no work at all.
+ * </p>
+ * <p>
+ * With a detail threshold set, the recursion stops at the first level whose triangles are smaller than the threshold
+ * on screen, and the triangles of that level are filled in to stand for the detail below them. The cost of a very deep
+ * fractal is then bounded by the size it is drawn at.
+ * </p>
+ * <p>
+ * The canvas can be zoomed and panned with a {@link FractalView}. A zoomed view is generated in double precision and
+ * screen coordinates, subdividing only the triangles on screen, one level deeper for every doubling of the zoom. Its
+ * cost therefore follows what is visible, not the depth of the whole fractal. Zoomed views are not cached, as they
+ * are rarely shown twice.
+ * </p>
+ * <p>
+ * With a cache directory set, colored elements are also written to {@link FractalCacheFile}s, and elements missing
+ * from the in-memory cache are read from there before being generated, so they survive a restart.
+ * </p>
+ * <p>
+ * Finished elements are published as an immutable {@link FractalSnapshot} through a volatile reference, so readers
+ * get them without locking or copying.
+ * </p>
+ * <p>
+ * By default, elements are generated when {@link #getData()} is called. In asynchronous mode, every parameter change
+ * schedules a generation on a background thread instead, which stops early if the parameters change again, and the
+ * observers are only notified once new elements are ready. {@link #getData()} then never generates and returns the
+ * latest finished elements.
+ * </p>
+ * <p>
+ * In progressive mode, a background generation also publishes the shallower recursion depths on its way to the
+ * requested one, so a deep fractal shows its first levels within milliseconds and its detail fills in as it is
+ * generated. A depth is published when at least one frame time has passed since the last one, so quick levels do not
+ * flood the observers, and the requested depth is always published last.
+ * </p>
+ * <p>
+ * Several changes can be made as one with {@link #applySettings(Runnable)}, or between {@link #beginUpdate()} and
+ * {@link #endUpdate()}, so they cause a single generation and a single notification.
+ * </p>
+ * <p>
+ * Observers can be registered and removed from any thread, even during a notification. An observer registered with
+ * an executor is updated on that executor, and updates for it are dropped while one is still waiting to run, so a slow
+ * observer neither blocks the others nor builds up a backlog.
+ * </p>
+ * <p>
+ * Generation times, element counts, getData() times and notifications are recorded in {@link #getMetrics()} while
+ * recording is switched on.
+ * </p>
  * @author Abraham Aslanides
  * @version CSC 143, June 4, 2023
  */
@@ -17,20 +99,82 @@ import java.util.ArrayList;
 // 4. Boolean Flag
 // 5. Get Methods
 // 6. Fractal Generation
-// 7. Observer Methods
+// 7. Geometry Layer
+// 8. Color Layer
+// 9. Parallel Generation
+// 10. Asynchronous Generation
+// 11. Batched Updates
+// 12. Observer Methods
 //--------------------------------------------------------------------------------------------------------------------//
 
 public class FractalGenerator implements FractalSubject{
 
+    /** The width and height of the canvas the default bounding triangle is sized for */
+    public static final int DEFAULT_CANVAS_SIZE = 600;
+
+    /** The default recursion index at or above which generation is split into parallel tasks */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 6;
+
+    /** The default detail threshold, in device pixels, for drawing on screen with level of detail */
+    public static final double DEFAULT_DETAIL_THRESHOLD = 2;
+
+    /** The logger cache file errors are reported to */
+    private static final Logger LOGGER = Logger.getLogger(FractalGenerator.class.getName());
+
+    /** The number of elements colored between checks for a cancelled background generation */
+    private static final int CANCEL_CHECK_INTERVAL = 4096;
+
+    /** The least time between two depths published by a progressive generation, one frame at 60 Hz */
+    private static final long FRAME_BUDGET_NANOS = 16_000_000;
+
     //----------------------------------------------------------------------------------------------------------------//
     // Instance Variables
     //----------------------------------------------------------------------------------------------------------------//
 
-    /** The elements to draw */
-    private ArrayList<FractalElement> elements;
+    /** The latest finished elements and their version, which is increased every time they are regenerated */
+    private volatile FractalSnapshot snapshot = FractalSnapshot.EMPTY;
+
+    /** Held while generating, so only one generation runs at a time; guards the caches */
+    private final Object generationLock = new Object();
+
+    /** The geometry of each recursion depth generated so far, with placeholder colors */
+    private final TreeMap<Integer, FractalElementBuffer> geometryCache = new TreeMap<>();
+
+    /** The bounding triangle the cached geometry was generated for */
+    private int[] geometryTriangle;
+
+    /** The colored elements generated so far, keyed by their parameters */
+    private final FractalCache cache = new FractalCache(FractalCache.DEFAULT_MAX_BYTES);
+
+    /** The directory elements are written to and read from between runs, or null to keep them in memory only */
+    private volatile Path cacheDirectory;
+
+    /** The metrics of generating, reading and notifying, recorded while switched on */
+    private final FractalMetrics metrics = new FractalMetrics(cache);
+
+    /** The bounding triangle of the fractal, as six coordinates */
+    private int[] triangle = new int[]{300, 0, 0, 520, 600, 520};
 
-    /** The observers */
-    private ArrayList<FractalObserver> observers;
+    /** The width of the canvas */
+    private int canvasWidth = DEFAULT_CANVAS_SIZE;
+
+    /** The height of the canvas */
+    private int canvasHeight = DEFAULT_CANVAS_SIZE;
+
+    /** The zoom and pan of the canvas */
+    private FractalView view = FractalView.IDENTITY;
+
+    /** The kind of fractal generated */
+    private FractalType fractalType = FractalTypes.SIERPINSKI;
+
+    /** The escape-time fractal drawn behind the elements, or null for none */
+    private EscapeTimeFractal background;
+
+    /** The registered observers, copied on every change so notifications never see a change in progress */
+    private final CopyOnWriteArrayList<Registration> observers = new CopyOnWriteArrayList<>();
+
+    /** The number of updates dropped for asynchronous observers that had one waiting to run */
+    private final AtomicLong droppedUpdates = new AtomicLong();
 
     /** The recursion depth */
     private int recursionDepth;
@@ -44,12 +188,69 @@ public class FractalGenerator implements FractalSubject{
     /** The theme */
     private ArrayList<Color> themeColors;
 
-    /** Whether the elements need to be updated */
-    private boolean elementsNeedUpdate = true;
+    /** The seed for choosing theme colors */
+    private long seed;
+
+    /** The smallest size of a triangle drawn in detail, in device pixels, or 0 to draw every level in detail */
+    private double detailThreshold;
+
+    /** The number of device pixels per unit of the canvas */
+    private double pixelScale = 1;
+
+    /** Whether the geometry of the elements needs to be updated */
+    private boolean geometryNeedsUpdate = true;
+
+    /** Whether the colors of the elements need to be chosen again */
+    private boolean colorsNeedUpdate = true;
+
+    /** Whether the circle opacity of the elements needs to be updated */
+    private boolean opacityNeedsUpdate = false;
+
+    /** The version of the parameters, increased by every change that affects the elements */
+    private volatile long parameterVersion;
 
     /** Whether the fractal should be drawn */
     private boolean drawFractal = true;
 
+    /** The number of worker threads used for parallel generation */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /** The recursion index at or above which generation is split into parallel tasks */
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+    /** The fork/join pool used for parallel generation, created on first use */
+    private ForkJoinPool pool;
+
+    /** The generation engine of each thread */
+    private final ThreadLocal<SierpinskiEngine> engines = ThreadLocal.withInitial(SierpinskiEngine::new);
+
+    /** The executor observers are notified through after a background generation, or null to generate on demand */
+    private volatile Executor notifier;
+
+    /** Whether background generations publish the shallower depths before the requested one */
+    private boolean progressive;
+
+    /** The thread background generations run on, created on first use */
+    private ExecutorService generationExecutor;
+
+    /** The background generation scheduled last */
+    private Future<?> pendingGeneration;
+
+    /** The parameter version the last background generation was scheduled for */
+    private long scheduledVersion = -1;
+
+    /** Whether a notification has been handed to the notifier and has not run yet */
+    private boolean notificationPending;
+
+    /** The number of nested batches in progress */
+    private int batchDepth;
+
+    /** The number of updates requested in the current batch */
+    private int batchUpdates;
+
+    /** The number of updates merged into another update since the generator was created */
+    private long coalescedUpdates;
+
     //----------------------------------------------------------------------------------------------------------------//
     // Constructor
     //----------------------------------------------------------------------------------------------------------------//
@@ -59,14 +260,13 @@ public class FractalGenerator implements FractalSubject{
      * @param defaultTheme an ArrayList of the default theme colors
      */
     public FractalGenerator(ArrayList<Color> defaultTheme) {
-        observers = new ArrayList<>();
-        elements = new ArrayList<>();
 
         // Default values
         recursionDepth = 5;
         circleOpacity = 255;
         color = null;
         themeColors = defaultTheme;
+        seed = new Random().nextLong();
 
         notifyObservers();
     }
@@ -80,9 +280,14 @@ public class FractalGenerator implements FractalSubject{
      * @param recursionDepth The recursion depth
      */
     public void setRecursionDepth(int recursionDepth) {
-        this.recursionDepth = recursionDepth;
-        elementsNeedUpdate = true;
-        notifyObservers();
+        synchronized (this) {
+            if (this.recursionDepth != recursionDepth) {
+                this.recursionDepth = recursionDepth;
+                geometryNeedsUpdate = true;
+                parameterVersion++;
+            }
+        }
+        parametersChanged();
     }
 
     /**
@@ -90,9 +295,14 @@ public class FractalGenerator implements FractalSubject{
      * @param circleOpacity The circle opacity
      */
     public void setCircleOpacity(int circleOpacity) {
-        this.circleOpacity = circleOpacity;
-        elementsNeedUpdate = true;
-        notifyObservers();
+        synchronized (this) {
+            if (this.circleOpacity != circleOpacity) {
+                this.circleOpacity = circleOpacity;
+                opacityNeedsUpdate = true;
+                parameterVersion++;
+            }
+        }
+        parametersChanged();
     }
 
     /**
@@ -100,9 +310,14 @@ public class FractalGenerator implements FractalSubject{
      * @param color The color
      */
     public void setColor(Color color) {
-        this.color = color;
-        elementsNeedUpdate = true;
-        notifyObservers();
+        synchronized (this) {
+            if (!Objects.equals(this.color, color)) {
+                this.color = color;
+                colorsNeedUpdate = true;
+                parameterVersion++;
+            }
+        }
+        parametersChanged();
     }
 
     /**
@@ -110,11 +325,225 @@ public class FractalGenerator implements FractalSubject{
      * @param themeColors The theme colors
      */
     public void setThemeColors(ArrayList<Color> themeColors) {
-        this.themeColors = themeColors;
-        elementsNeedUpdate = true;
+        synchronized (this) {
+            this.themeColors = themeColors;
+            // The theme is only visible when no color is selected
+            if (color == null) {
+                colorsNeedUpdate = true;
+                parameterVersion++;
+            }
+        }
+        parametersChanged();
+    }
+
+    /**
+     * Sets the size of the canvas the fractal is drawn on. The bounding triangle, 600 wide and 520 high on the default
+     * 600 by 600 canvas, is scaled by the smaller of the two size ratios and centered horizontally.
+     * @param width The width of the canvas
+     * @param height The height of the canvas
+     */
+    public void setCanvasSize(int width, int height) {
+        double scale = Math.min(width, height) / (double) DEFAULT_CANVAS_SIZE;
+        int triangleWidth = (int) Math.round(600 * scale);
+        int triangleHeight = (int) Math.round(520 * scale);
+        int left = (width - triangleWidth) / 2;
+        int[] newTriangle = new int[]{left + triangleWidth / 2, 0, left, triangleHeight,
+                left + triangleWidth, triangleHeight};
+        synchronized (this) {
+            if (!Arrays.equals(triangle, newTriangle) || canvasWidth != width || canvasHeight != height) {
+                // The cached geometry is dropped by the next generation, as it belongs to the old triangle
+                triangle = newTriangle;
+                canvasWidth = width;
+                canvasHeight = height;
+                geometryNeedsUpdate = true;
+                parameterVersion++;
+            }
+        }
+        parametersChanged();
+    }
+
+    /**
+     * Sets the kind of fractal to generate. The other parameters are kept, so the recursion depth may need lowering for
+     * types that branch more than the Sierpinski triangle.
+     * @param fractalType The fractal type, such as one of {@link FractalTypes#getAll()}
+     */
+    public void setFractalType(FractalType fractalType) {
+        Objects.requireNonNull(fractalType);
+        synchronized (this) {
+            if (this.fractalType != fractalType) {
+                this.fractalType = fractalType;
+                geometryNeedsUpdate = true;
+                parameterVersion++;
+            }
+        }
+        parametersChanged();
+    }
+
+    /**
+     * Sets the escape-time fractal drawn behind the elements. The background is rendered by the drawing from
+     * {@link #getBackgroundLayer()}, so changing it notifies the observers without generating the elements again.
+     * @param background The escape-time fractal, or null for no background
+     */
+    public void setBackground(EscapeTimeFractal background) {
+        synchronized (this) {
+            this.background = background;
+            if (deferUpdate()) {
+                return;
+            }
+        }
         notifyObservers();
     }
 
+    /**
+     * Sets the zoom and pan of the canvas. Only the triangles on screen are generated in a zoomed view, in screen
+     * coordinates, down to one level below the recursion depth for every doubling of the zoom.
+     * @param view The view, or {@link FractalView#IDENTITY} for the whole canvas
+     */
+    public void setView(FractalView view) {
+        Objects.requireNonNull(view);
+        synchronized (this) {
+            if (!this.view.equals(view)) {
+                this.view = view;
+                geometryNeedsUpdate = true;
+                parameterVersion++;
+            }
+        }
+        parametersChanged();
+    }
+
+    /**
+     * Sets the level of detail. Triangles smaller than the threshold on screen are not recursed into: they are drawn
+     * as filled triangles standing in for everything below them. The size of a triangle is the larger of its width and
+     * height, in device pixels.
+     * @param detailThreshold The smallest size of a triangle drawn in detail, in device pixels, or 0 to draw every
+     *                        level of the recursion depth in detail
+     */
+    public void setDetailThreshold(double detailThreshold) {
+        if (!(detailThreshold >= 0)) {
+            throw new IllegalArgumentException("Detail threshold must be at least 0: " + detailThreshold);
+        }
+        synchronized (this) {
+            if (this.detailThreshold != detailThreshold) {
+                this.detailThreshold = detailThreshold;
+                geometryNeedsUpdate = true;
+                parameterVersion++;
+            }
+        }
+        parametersChanged();
+    }
+
+    /**
+     * Sets the number of device pixels per unit of the canvas, such as 2 on a high-DPI screen, which the detail
+     * threshold is measured in. Unlike the other set methods, this does nothing if the scale is unchanged, so it can
+     * be called on every repaint.
+     * @param pixelScale The number of device pixels per unit of the canvas, greater than 0
+     */
+    public void setPixelScale(double pixelScale) {
+        if (!(pixelScale > 0)) {
+            throw new IllegalArgumentException("Pixel scale must be greater than 0: " + pixelScale);
+        }
+        synchronized (this) {
+            if (this.pixelScale == pixelScale) {
+                return;
+            }
+            this.pixelScale = pixelScale;
+            if (detailThreshold > 0) {
+                geometryNeedsUpdate = true;
+                parameterVersion++;
+            }
+        }
+        parametersChanged();
+    }
+
+    /**
+     * Sets the seed for choosing theme colors
+     * @param seed The seed
+     */
+    public void setSeed(long seed) {
+        synchronized (this) {
+            if (this.seed != seed) {
+                this.seed = seed;
+                colorsNeedUpdate = true;
+                parameterVersion++;
+            }
+        }
+        parametersChanged();
+    }
+
+    /**
+     * Sets the number of worker threads used for parallel generation.
+     * The current pool is shut down and a new one is created on the next parallel generation.
+     * @param parallelism The number of worker threads, at least 1
+     */
+    public synchronized void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        }
+        if (this.parallelism != parallelism) {
+            this.parallelism = parallelism;
+            if (pool != null) {
+                pool.shutdown();
+                pool = null;
+            }
+        }
+    }
+
+    /**
+     * Sets the recursion index at or above which generation is split into parallel tasks.
+     * Sub-triangles below this index, and whole fractals shallower than it, are generated serially.
+     * @param parallelThreshold The parallel threshold, at least 1
+     */
+    public synchronized void setParallelThreshold(int parallelThreshold) {
+        if (parallelThreshold < 1) {
+            throw new IllegalArgumentException("Parallel threshold must be at least 1: " + parallelThreshold);
+        }
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Sets the directory to keep generated elements in between runs. Elements missing from the in-memory cache are
+     * read from a file there if one was written for the same parameters, and newly generated elements are written
+     * there. Zoomed views are neither read nor written. Files that cannot be read or written are reported to the log
+     * and otherwise ignored, as the elements can always be generated instead.
+     * @param cacheDirectory The directory, which is created if needed, or null to keep elements in memory only
+     * @throws IOException If the directory cannot be created
+     */
+    public void setCacheDirectory(Path cacheDirectory) throws IOException {
+        if (cacheDirectory != null) {
+            Files.createDirectories(cacheDirectory);
+        }
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * Switches between generating on demand and generating in the background. With a notifier, every parameter change
+     * schedules a generation on a background thread, superseding any generation still running, and the observers are
+     * notified through the notifier once new elements are ready. A GUI passes {@code SwingUtilities::invokeLater}, so
+     * observers are notified on the Event Dispatch Thread. Without a notifier, elements are generated when
+     * {@link #getData()} is called and observers are notified on every parameter change.
+     * @param notifier The executor to notify observers through, or null to generate on demand
+     */
+    public void setAsynchronous(Executor notifier) {
+        synchronized (this) {
+            this.notifier = notifier;
+        }
+        if (notifier != null) {
+            scheduleGeneration();
+        }
+    }
+
+    /**
+     * Sets whether background generations refine progressively, publishing the shallower recursion depths before the
+     * requested one. Each published depth notifies the observers. Generating the shallower depths costs about half
+     * the requested depth again for the other fractal types; the Sierpinski triangle deepens its cached geometry
+     * level by level, so it costs little more than generating the requested depth directly. This has no effect when
+     * generating on demand.
+     * @param progressive Whether to refine progressively
+     */
+    public synchronized void setProgressive(boolean progressive) {
+        this.progressive = progressive;
+    }
+
     //----------------------------------------------------------------------------------------------------------------//
     // Boolean Flag
     //----------------------------------------------------------------------------------------------------------------//
@@ -124,7 +553,12 @@ public class FractalGenerator implements FractalSubject{
      * @param draw Whether the fractal should be drawn
      */
     public void setDrawFractal(boolean draw) {
-        this.drawFractal = draw;
+        synchronized (this) {
+            this.drawFractal = draw;
+            if (deferUpdate()) {
+                return;
+            }
+        }
         notifyObservers();
     }
 
@@ -136,29 +570,161 @@ public class FractalGenerator implements FractalSubject{
      * Gets the boolean flag for whether the fractal should be drawn
      * @return Whether the fractal should be drawn
      */
-    public boolean isDrawFractal() {
+    public synchronized boolean isDrawFractal() {
         return drawFractal;
     }
 
+    /**
+     * {@inheritDoc}
+     * @return The version of the fractal elements
+     */
+    @Override
+    public long getDataVersion() {
+        return snapshot.getVersion();
+    }
+
+    /**
+     * Gets the seed for choosing theme colors
+     * @return The seed
+     */
+    public synchronized long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the zoom and pan of the canvas
+     * @return The view
+     */
+    public synchronized FractalView getView() {
+        return view;
+    }
+
+    /**
+     * Gets the kind of fractal generated
+     * @return The fractal type
+     */
+    public synchronized FractalType getFractalType() {
+        return fractalType;
+    }
+
+    /**
+     * Gets whether background generations refine progressively
+     * @return Whether the shallower depths are published before the requested one
+     */
+    public synchronized boolean isProgressive() {
+        return progressive;
+    }
+
+    /**
+     * Gets the escape-time fractal drawn behind the elements
+     * @return The escape-time fractal, or null for no background
+     */
+    public synchronized EscapeTimeFractal getBackground() {
+        return background;
+    }
+
+    /**
+     * Gets the background layer for the current view, palette and seed, which lines up with the elements the same
+     * escape-time fractal would generate. A new layer is made on every call; equal layers render the same image.
+     * @return The layer, or null for no background
+     */
+    public synchronized EscapeTimeLayer getBackgroundLayer() {
+        if (background == null) {
+            return null;
+        }
+        int[] palette = getPalette();
+        return background.newLayer(new FractalRequest(recursionDepth, triangle, view, canvasWidth, canvasHeight,
+                detailThreshold / pixelScale, palette, circleOpacity, palette.length == 1 ? 0 : seed, null,
+                parallelThreshold, () -> false));
+    }
+
+    /**
+     * Gets the recursion depth drawn with the current level of detail, which is the recursion depth unless triangles
+     * above it are already smaller than the detail threshold. This is the depth of the unzoomed view. The level of
+     * detail only applies to the Sierpinski triangle, so this is the recursion depth for other fractal types.
+     * @return The recursion depth drawn, whose deepest triangles are collapsed if it is less than the recursion depth
+     */
+    public synchronized int getDetailDepth() {
+        if (fractalType != FractalTypes.SIERPINSKI) {
+            return recursionDepth;
+        }
+        return Math.min(recursionDepth, SierpinskiEngine.detailDepth(triangle, detailThreshold / pixelScale));
+    }
+
+    /**
+     * Gets whether elements are generated in the background
+     * @return Whether a notifier is set
+     */
+    public boolean isAsynchronous() {
+        return notifier != null;
+    }
+
+    /**
+     * Gets the cache of colored elements, for its statistics and limit
+     * @return The cache
+     */
+    public FractalCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Gets the directory generated elements are kept in between runs
+     * @return The directory, or null if elements are kept in memory only
+     */
+    public Path getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    /**
+     * Gets the metrics of this generator, which observers also record their paint times in. Recording is off until
+     * switched on with {@link FractalMetrics#setEnabled(boolean)}.
+     * @return The metrics
+     */
+    public FractalMetrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * {@inheritDoc}
      * <br><br>
      * <p>In this implementation, elements are generated when they are first requested or if they need to be updated.
      * This generation approach ensures that fractal elements are only created when necessary, optimizing resource
-     * usage.</p>
-     * @return An ArrayList of {@link FractalElement} representing the fractal elements.
-     * The list is freshly generated if the elements need an update, otherwise, it returns the existing list.
+     * usage. Elements for previously used parameters come from the cache, and if only the circle opacity changed, the
+     * existing elements are recolored instead.</p>
+     * <p>In asynchronous mode, nothing is generated here: the elements are those of the latest finished background
+     * generation.</p>
+     * @return A frozen {@link FractalElementBuffer} holding the fractal elements, shared with every other reader.
+     * Use {@link FractalElementBuffer#copy()} for elements that can be changed.
      */
     @Override
-    public ArrayList<FractalElement> getData() {
-        synchronized (this) {
-            if (elementsNeedUpdate) {
-                generateElements();
-                elementsNeedUpdate = false;
-            }
-            // Return a copy to avoid concurrency issues
-            return new ArrayList<>(elements);
+    public FractalElementBuffer getData() {
+        return getSnapshot().getElements();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br><br>
+     * <p>When generating on demand, the elements are generated first if they need an update, as in
+     * {@link #getData()}. In asynchronous mode, this only reads the volatile reference to the latest snapshot.</p>
+     * @return The latest snapshot of the fractal elements
+     */
+    @Override
+    public FractalSnapshot getSnapshot() {
+        long start = metrics.start();
+        if (notifier == null && needsUpdate()) {
+            generateElements();
         }
+        FractalSnapshot current = snapshot;
+        metrics.recordGetData(start);
+        return current;
+    }
+
+    /**
+     * Checks whether a parameter changed since the elements were last generated
+     * @return Whether the elements need an update
+     */
+    private synchronized boolean needsUpdate() {
+        return geometryNeedsUpdate || colorsNeedUpdate || opacityNeedsUpdate;
     }
 
     //----------------------------------------------------------------------------------------------------------------//
@@ -166,81 +732,722 @@ public class FractalGenerator implements FractalSubject{
     //----------------------------------------------------------------------------------------------------------------//
 
     /**
-     * Generates the fractal elements using recursive helper method
+     * Generates the fractal elements with the fractal type. For the unzoomed Sierpinski triangle, the colors and
+     * circle opacity are applied to the cached geometry of the recursion depth, with its deepest triangles collapsed
+     * if the level of detail stops the recursion early. Elements generated before from the same parameters are taken
+     * from the cache.
      */
     public void generateElements() {
-        System.out.println("generateElements called."); // Debugging
-        ArrayList<FractalElement> newElements = new ArrayList<>();
+        buildElements(false);
+    }
 
-        Point[] triangle = new Point[3];
-        triangle[0] = new Point(300, 0);
-        triangle[1] = new Point(0, 520);
-        triangle[2] = new Point(600, 520);
-        generateElements(newElements,triangle, recursionDepth);
+    /**
+     * Generates the fractal elements for the current parameters and makes them the elements returned by
+     * {@link #getData()}. The parameters are read once at the start, and the work runs without holding the lock that
+     * guards them, so setting parameters never waits for a generation. A cancellable generation in progressive mode
+     * publishes shallower depths first, with {@link #publishLevels(IntFunction, int, boolean, long, BooleanSupplier)}.
+     * @param cancellable Whether to stop as soon as the parameters change, instead of finishing
+     * @throws CancellationException If the generation is cancellable and the parameters changed before it finished
+     */
+    private void buildElements(boolean cancellable) {
+        synchronized (generationLock) {
+            long start = metrics.start();
+            FractalType type;
+            int depth;
+            int requestedDepth;
+            boolean collapsed;
+            int[] bounds;
+            FractalView currentView;
+            int width;
+            int height;
+            double minSize;
+            int[] palette;
+            int opacity;
+            long colorSeed;
+            boolean opacityOnly;
+            boolean refine;
+            FractalElementBuffer current;
+            int threshold;
+            long version;
+            synchronized (this) {
+                type = fractalType;
+                depth = getDetailDepth();
+                requestedDepth = recursionDepth;
+                collapsed = depth < recursionDepth;
+                bounds = triangle;
+                currentView = view;
+                width = canvasWidth;
+                height = canvasHeight;
+                minSize = detailThreshold / pixelScale;
+                palette = getPalette();
+                opacity = circleOpacity;
+                // The seed only matters when there are colors to choose from
+                colorSeed = palette.length == 1 ? 0 : seed;
+                opacityOnly = !geometryNeedsUpdate && !colorsNeedUpdate;
+                refine = cancellable && progressive;
+                current = snapshot.getElements();
+                threshold = parallelThreshold;
+                version = parameterVersion;
+            }
+            BooleanSupplier cancelled = cancellable ? () -> parameterVersion != version : () -> false;
+
+            boolean zoomed = !currentView.isIdentity();
+            boolean layered = type == FractalTypes.SIERPINSKI && !zoomed;
+            FractalCache.Key key = zoomed ? null
+                    : new FractalCache.Key(type.getId(), depth, collapsed, bounds, palette, opacity, colorSeed);
+            FractalElementBuffer result = key == null ? null : cache.get(key);
+            if (result == null && key != null) {
+                result = readCacheFile(key);
+                if (result != null) {
+                    cache.put(key, result);
+                }
+            }
+            if (result == null) {
+                if (opacityOnly) {
+                    result = applyCircleOpacity(current, opacity);
+                } else {
+                    // Only the full depth is collapsed, as the level of detail stops the recursion there
+                    IntFunction<FractalElementBuffer> generateDepth = layered ? level -> {
+                        FractalElementBuffer geometry = getGeometry(level, bounds, threshold, cancelled);
+                        if (collapsed && level == depth) {
+                            geometry = SierpinskiEngine.collapse(geometry, depth);
+                        }
+                        return applyColors(geometry, level, palette, colorSeed, opacity, cancelled);
+                    } : level -> {
+                        FractalElementBuffer elements = new FractalElementBuffer();
+                        type.generate(new FractalRequest(level, bounds, currentView, width, height, minSize, palette,
+                                opacity, colorSeed, getPool(), threshold, cancelled), elements);
+                        return elements;
+                    };
+                    int fullDepth = layered ? depth : requestedDepth;
+                    if (refine) {
+                        publishLevels(generateDepth, fullDepth, layered, version, cancelled);
+                    }
+                    result = generateDepth.apply(fullDepth);
+                }
+                result.freeze();
+                if (key != null) {
+                    cache.put(key, result);
+                    writeCacheFile(key, result);
+                }
+            }
+
+            FractalSpatialIndex index = treeIndex(result, layered, depth, collapsed);
+            synchronized (this) {
+                if (cancellable && parameterVersion != version) {
+                    // The result is cached, but a newer generation will replace it
+                    throw new CancellationException();
+                }
+                snapshot = new FractalSnapshot(result, snapshot.getVersion() + 1, index);
+                // Parameters set during the generation still need their own
+                if (parameterVersion == version) {
+                    geometryNeedsUpdate = false;
+                    colorsNeedUpdate = false;
+                    opacityNeedsUpdate = false;
+                }
+            }
+            boolean deepened = zoomed && type == FractalTypes.SIERPINSKI;
+            metrics.recordGeneration(start, deepened ? requestedDepth + currentView.getExtraDepth() : depth,
+                    result.size());
+        }
+    }
+
+    /**
+     * Generates the depths below the full depth one by one and publishes them as snapshots, each notifying the
+     * observers, as long as a frame time has passed since the last one. The first depth is always published. The
+     * parameter flags are left as they are, so the full depth still counts as needed.
+     * @param generateDepth Generates the elements of a recursion depth
+     * @param fullDepth The recursion depth the generation is for, which is not generated here
+     * @param layered Whether the depths are those of an unzoomed Sierpinski triangle, indexed by their recursion tree
+     * @param version The parameter version the generation is for
+     * @param cancelled Checked before each depth
+     * @throws CancellationException If the parameters changed before the last depth was published
+     */
+    private void publishLevels(IntFunction<FractalElementBuffer> generateDepth, int fullDepth, boolean layered,
+                               long version, BooleanSupplier cancelled) {
+        long lastFrame = 0;
+        boolean published = false;
+        for (int level = 1; level < fullDepth; level++) {
+            if (cancelled.getAsBoolean()) {
+                throw new CancellationException();
+            }
+            FractalElementBuffer partial = generateDepth.apply(level);
+            long now = System.nanoTime();
+            if (published && now - lastFrame < FRAME_BUDGET_NANOS) {
+                continue;
+            }
+            partial.freeze();
+            FractalSpatialIndex index = treeIndex(partial, layered, level, false);
+            synchronized (this) {
+                if (parameterVersion != version) {
+                    throw new CancellationException();
+                }
+                snapshot = new FractalSnapshot(partial, snapshot.getVersion() + 1, index);
+            }
+            notifyFromBackground();
+            lastFrame = now;
+            published = true;
+        }
+    }
 
+    /**
+     * Creates the spatial index of elements from their recursion tree, if they are those of an unzoomed Sierpinski
+     * triangle, so the snapshot holding them needs no index built
+     * @param elements The elements
+     * @param layered Whether the elements are those of an unzoomed Sierpinski triangle
+     * @param depth The recursion depth they were generated at
+     * @param collapsed Whether their deepest triangles are collapsed
+     * @return The index, or null for the snapshot to build a grid index when one is needed
+     */
+    private static FractalSpatialIndex treeIndex(FractalElementBuffer elements, boolean layered, int depth,
+                                                 boolean collapsed) {
+        if (!layered || elements.size() != SierpinskiTreeIndex.elementCount(depth, collapsed)) {
+            return null;
+        }
+        return new SierpinskiTreeIndex(elements, depth, collapsed);
+    }
+
+    /**
+     * Empties the geometry cache and the cache of colored elements, so the next request generates from scratch.
+     * The current elements are kept until then.
+     */
+    public void clearCaches() {
+        synchronized (generationLock) {
+            geometryCache.clear();
+            cache.clear();
+        }
         synchronized (this) {
-            this.elements = newElements;
+            geometryNeedsUpdate = true;
+        }
+    }
+
+    /**
+     * Streams the fractal elements for the current settings and view to a sink without storing them. The elements and
+     * colors are the same as those returned by {@link #getData()}, but memory use only grows with the recursion depth,
+     * so this suits exports too deep to hold in memory. The generation runs on the calling thread. If the cache
+     * directory has a file for the current settings, the elements are streamed from it instead of being generated.
+     * @param sink The sink to send the elements to
+     */
+    public void generate(FractalSink sink) {
+        FractalType type;
+        int[] palette;
+        int[] bounds;
+        long colorSeed;
+        int depth;
+        int requestedDepth;
+        boolean collapsed;
+        int opacity;
+        FractalView currentView;
+        int width;
+        int height;
+        double minSize;
+        int threshold;
+        synchronized (this) {
+            type = fractalType;
+            palette = getPalette();
+            bounds = triangle;
+            colorSeed = seed;
+            depth = getDetailDepth();
+            requestedDepth = recursionDepth;
+            collapsed = depth < recursionDepth;
+            opacity = circleOpacity;
+            currentView = view;
+            width = canvasWidth;
+            height = canvasHeight;
+            minSize = detailThreshold / pixelScale;
+            threshold = parallelThreshold;
+        }
+        if (currentView.isIdentity()) {
+            FractalCacheFile cached = mapCacheFile(new FractalCache.Key(type.getId(), depth, collapsed, bounds,
+                    palette, opacity, palette.length == 1 ? 0 : colorSeed));
+            if (cached != null) {
+                cached.writeTo(sink);
+                return;
+            }
+        }
+        // Without a pool, parts are generated one after another straight into the sink instead of into buffers
+        type.generate(new FractalRequest(requestedDepth, bounds, currentView, width, height, minSize, palette, opacity,
+                colorSeed, null, threshold, () -> false), sink);
+    }
+
+    /**
+     * Reads the elements for a set of parameters from the cache directory, if a file was written for them
+     * @param key The parameters
+     * @return The elements, or null if there is no cache directory, no file or the file cannot be read
+     */
+    private FractalElementBuffer readCacheFile(FractalCache.Key key) {
+        FractalCacheFile cached = mapCacheFile(key);
+        return cached == null ? null : cached.toBuffer();
+    }
+
+    /**
+     * Maps the file written to the cache directory for a set of parameters
+     * @param key The parameters
+     * @return The mapped file, or null if there is no cache directory, no file or the file cannot be read
+     */
+    private FractalCacheFile mapCacheFile(FractalCache.Key key) {
+        Path directory = cacheDirectory;
+        if (directory == null) {
+            return null;
+        }
+        Path file = directory.resolve(FractalCacheFile.fileName(key));
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            FractalCacheFile cached = FractalCacheFile.map(file);
+            // The file name is a hash, so the parameters are checked in full
+            return cached.getKey().equals(key) ? cached : null;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not read cache file " + file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the elements for a set of parameters to the cache directory, if there is one
+     * @param key The parameters
+     * @param elements The elements
+     */
+    private void writeCacheFile(FractalCache.Key key, FractalElementBuffer elements) {
+        Path directory = cacheDirectory;
+        if (directory == null) {
+            return;
+        }
+        Path file = directory.resolve(FractalCacheFile.fileName(key));
+        try {
+            FractalCacheFile.write(file, key, elements);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not write cache file " + file, e);
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Geometry Layer
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Gets the geometry of a recursion depth from the cache. A missing depth is built from the deepest cached shallower
+     * depth if there is one, by pruning a cached deeper depth otherwise, and is only generated from scratch when
+     * nothing is cached. The cache is emptied first if it belongs to a different bounding triangle.
+     * @param depth The recursion depth
+     * @param bounds The bounding triangle, as six coordinates
+     * @param threshold The parallel threshold, read once for the whole generation
+     * @param cancelled Checked while generating, to stop early
+     * @return The elements of the fractal, with placeholder colors
+     * @throws CancellationException If the check reports the generation as cancelled
+     */
+    private FractalElementBuffer getGeometry(int depth, int[] bounds, int threshold, BooleanSupplier cancelled) {
+        if (depth <= 0) {
+            // Not cached, as an empty geometry cannot be deepened into the depths above it
+            return new FractalElementBuffer(0);
+        }
+        if (!Arrays.equals(bounds, geometryTriangle)) {
+            geometryCache.clear();
+            geometryTriangle = bounds;
         }
+        FractalElementBuffer geometry = geometryCache.get(depth);
+        if (geometry == null) {
+            Map.Entry<Integer, FractalElementBuffer> shallower = geometryCache.lowerEntry(depth);
+            Map.Entry<Integer, FractalElementBuffer> deeper = geometryCache.higherEntry(depth);
+            if (shallower != null) {
+                geometry = engines.get().deepen(shallower.getValue(), shallower.getKey(), depth, cancelled);
+            } else if (deeper != null) {
+                geometry = SierpinskiEngine.prune(deeper.getValue(), deeper.getKey(), depth);
+            } else {
+                geometry = generateGeometry(depth, bounds, threshold, cancelled);
+            }
+            geometryCache.put(depth, geometry);
+        }
+        return geometry;
     }
 
     /**
-     * Recursive helper method. Generates the fractal elements using recursive calls.
-     * @param newElements The ArrayList of FractalElements to add to
-     * @param triangle The triangle to generate elements from
-     * @param recursionIndex The recursion index
+     * Generates the geometry of a recursion depth with the {@link SierpinskiEngine}.
+     * Fractals at least as deep as the parallel threshold are generated on the fork/join pool, and can be cancelled
+     * between tasks.
+     * @param depth The recursion depth
+     * @param bounds The bounding triangle, as six coordinates
+     * @param threshold The parallel threshold, read once for the whole generation
+     * @param cancelled Checked before each task, to stop early
+     * @return The elements of the fractal, with placeholder colors
+     * @throws CancellationException If the check reports the generation as cancelled
      */
-    private void generateElements(ArrayList<FractalElement> newElements, Point[] triangle, int recursionIndex) {
-        if (recursionIndex > 0) {
-            // Calculate the center of the triangle
-            int centerX = (triangle[0].x + triangle[1].x + triangle[2].x) / 3;
-            int centerY = (triangle[0].y + triangle[1].y + triangle[2].y) / 3;
-            Point center = new Point(centerX, centerY);
+    private FractalElementBuffer generateGeometry(int depth, int[] bounds, int threshold, BooleanSupplier cancelled) {
+        if (depth >= threshold) {
+            return getPool().invoke(new GenerateTask(bounds, depth, threshold, cancelled));
+        }
+        FractalElementBuffer geometry = new FractalElementBuffer(SierpinskiEngine.elementCount(depth));
+        engines.get().generate(geometry, bounds, depth, SierpinskiEngine.GEOMETRY_PALETTE, 0, 0);
+        return geometry;
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Color Layer
+    //----------------------------------------------------------------------------------------------------------------//
 
-            // Calculate the radius of the circle as one sixth the height of the triangle
-            int radius = 0;
-            if (triangle[0].y <= triangle[1].y) {
-                radius = Math.abs((triangle[2].y - triangle[0].y)) / 6;
-            } else if (triangle[0].y <= triangle[2].y) {
-                radius = Math.abs((triangle[1].y - triangle[0].y)) / 6;
+    /**
+     * Colors the elements of a geometry. Each circle and triangle gets the selected color, or a theme color chosen
+     * from the key of its triangle if no color is selected, and circles get the circle opacity as their alpha. The
+     * keys are followed down the tree in drawing order, so the colors match those chosen while generating.
+     * @param geometry The elements to color, a whole fractal in drawing order, possibly collapsed
+     * @param depth The recursion depth of the fractal
+     * @param palette The packed colors to choose from
+     * @param colorSeed The seed for choosing colors
+     * @param opacity The circle opacity
+     * @param cancelled Checked every {@link #CANCEL_CHECK_INTERVAL} elements, to stop early
+     * @return Elements sharing the geometry, with the new colors
+     * @throws CancellationException If the check reports the generation as cancelled
+     */
+    private static FractalElementBuffer applyColors(FractalElementBuffer geometry, int depth, int[] palette,
+                                                    long colorSeed, int opacity, BooleanSupplier cancelled) {
+        int[] colors = new int[geometry.size()];
+        // The key of the triangle at each level of the current path, and which corner of its parent it is
+        long[] keys = new long[depth + 1];
+        int[] corners = new int[depth + 1];
+        keys[0] = SierpinskiEngine.rootKey(colorSeed);
+        int level = 0;
+        int index = 0;
+        int nextCheck = 0;
+        while (index < colors.length) {
+            if (index >= nextCheck) {
+                if (cancelled.getAsBoolean()) {
+                    throw new CancellationException();
+                }
+                nextCheck += CANCEL_CHECK_INTERVAL;
+            }
+            long key = keys[level];
+            if (geometry.getType(index) == FractalElementBuffer.FILLED_TRIANGLE) {
+                colors[index++] = SierpinskiEngine.chooseColor(palette, key, SierpinskiEngine.CIRCLE_SLOT);
+            } else {
+                int circleColor = SierpinskiEngine.chooseColor(palette, key, SierpinskiEngine.CIRCLE_SLOT);
+                colors[index++] = (opacity << 24) | (circleColor & 0xFFFFFF);
+                colors[index++] = SierpinskiEngine.chooseColor(palette, key, SierpinskiEngine.TRIANGLE_SLOT);
             }
 
-            // Random color generation for themes
-            Color realCircleColor;
-            Color realTriangleColor;
-            if (color == null) {
-                realCircleColor = themeColors.get((int)(Math.random() * themeColors.size()));
-                realTriangleColor = themeColors.get((int)(Math.random() * themeColors.size()));
+            // Move on to the first corner, or to the next corner of the nearest triangle that has one left
+            if (level < depth - 1) {
+                level++;
+                corners[level] = 0;
+                keys[level] = SierpinskiEngine.cornerKey(keys[level - 1], 0);
             } else {
-                realCircleColor = color;
-                realTriangleColor = color;
+                while (level > 0 && corners[level] == 2) {
+                    level--;
+                }
+                if (level == 0) {
+                    break;
+                }
+                corners[level]++;
+                keys[level] = SierpinskiEngine.cornerKey(keys[level - 1], corners[level]);
+            }
+        }
+        return geometry.withColors(colors);
+    }
+
+    /**
+     * Sets the alpha of every circle to the circle opacity, keeping all other colors
+     * @param colored The colored elements
+     * @param opacity The circle opacity
+     * @return Elements sharing the geometry, with the new circle opacity
+     */
+    private static FractalElementBuffer applyCircleOpacity(FractalElementBuffer colored, int opacity) {
+        int[] colors = new int[colored.size()];
+        for (int index = 0; index < colors.length; index++) {
+            int argb = colored.getColor(index);
+            if (colored.getType(index) == FractalElementBuffer.CIRCLE) {
+                argb = (opacity << 24) | (argb & 0xFFFFFF);
+            }
+            colors[index] = argb;
+        }
+        return colored.withColors(colors);
+    }
+
+    /**
+     * Gets the packed colors to choose from: the selected color, or the theme colors if no color is selected
+     * @return The packed colors
+     */
+    private int[] getPalette() {
+        if (color != null) {
+            return new int[]{color.getRGB()};
+        }
+        int[] palette = new int[themeColors.size()];
+        for (int index = 0; index < palette.length; index++) {
+            palette[index] = themeColors.get(index).getRGB();
+        }
+        return palette;
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Parallel Generation
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Gets the fork/join pool, creating it with the configured parallelism if needed
+     * @return The fork/join pool
+     */
+    private synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(parallelism);
+        }
+        return pool;
+    }
+
+    /**
+     * Fork/join task that generates the geometry of one triangle. Triangles at or above the parallel threshold fork a
+     * task per corner triangle and join the results in corner order, so the elements come out in the same order as
+     * the serial recursion. Smaller triangles are generated serially.
+     */
+    private class GenerateTask extends RecursiveTask<FractalElementBuffer> {
+
+        /** The serialization version, declared as the superclass is serializable; instances are never serialized */
+        private static final long serialVersionUID = 1L;
+
+        /** The triangle to generate elements from, as six coordinates */
+        private final int[] triangle;
+
+        /** The recursion index */
+        private final int recursionIndex;
+
+        /** The parallel threshold, the same for every task of a generation so the split is consistent */
+        private final int threshold;
+
+        /** Checked before generating, to stop early */
+        private final BooleanSupplier cancelled;
+
+        /**
+         * Constructor for the GenerateTask class
+         * @param triangle The triangle to generate elements from, as six coordinates
+         * @param recursionIndex The recursion index
+         * @param threshold The recursion index at or above which the task forks a task per corner triangle
+         * @param cancelled Checked before generating, to stop early
+         */
+        GenerateTask(int[] triangle, int recursionIndex, int threshold, BooleanSupplier cancelled) {
+            this.triangle = triangle;
+            this.recursionIndex = recursionIndex;
+            this.threshold = threshold;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        protected FractalElementBuffer compute() {
+            if (cancelled.getAsBoolean()) {
+                throw new CancellationException();
+            }
+            FractalElementBuffer result = new FractalElementBuffer(SierpinskiEngine.elementCount(recursionIndex));
+            if (recursionIndex < threshold) {
+                engines.get().generate(result, triangle, recursionIndex, SierpinskiEngine.GEOMETRY_PALETTE, 0, 0);
+                return result;
+            }
+            SierpinskiEngine.addElements(result, triangle[0], triangle[1], triangle[2], triangle[3],
+                    triangle[4], triangle[5], SierpinskiEngine.GEOMETRY_PALETTE, 0, 0);
+
+            GenerateTask[] tasks = new GenerateTask[3];
+            for (int corner = 0; corner < tasks.length; corner++) {
+                tasks[corner] = new GenerateTask(SierpinskiEngine.subdivide(triangle, corner), recursionIndex - 1,
+                        threshold, cancelled);
+            }
+            invokeAll(tasks);
+            for (GenerateTask task : tasks) {
+                result.addAll(task.join());
+            }
+            return result;
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Asynchronous Generation
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Reacts to a parameter change: schedules a background generation in asynchronous mode, and notifies the
+     * observers straight away otherwise
+     */
+    private void parametersChanged() {
+        synchronized (this) {
+            if (deferUpdate()) {
+                return;
             }
+        }
+        if (isAsynchronous()) {
+            scheduleGeneration();
+        } else {
+            notifyObservers();
+        }
+    }
+
+    /**
+     * Schedules a background generation for the current parameters, unless one is already scheduled for them or the
+     * elements are up to date. A generation still waiting to start is dropped, and one already running stops at its
+     * next check, as its parameters have changed.
+     * @return Whether a generation is scheduled, which notifies the observers when it finishes
+     */
+    private synchronized boolean scheduleGeneration() {
+        if (!needsUpdate()) {
+            return false;
+        }
+        if (scheduledVersion != parameterVersion) {
+            long version = parameterVersion;
+            scheduledVersion = version;
+            if (pendingGeneration != null) {
+                pendingGeneration.cancel(false);
+            }
+            pendingGeneration = getGenerationExecutor().submit(() -> generateInBackground(version));
+        }
+        return true;
+    }
+
+    /**
+     * Generates the elements on the background thread and notifies the observers through the notifier. A generation
+     * that fails is logged and recorded in the metrics, and the observers keep the elements they have. Its parameters
+     * are no longer marked as scheduled, so the next update, such as the end of a batch, retries them.
+     * @param version The parameter version the generation was scheduled for
+     */
+    private void generateInBackground(long version) {
+        long start = metrics.start();
+        try {
+            buildElements(true);
+        } catch (CancellationException e) {
+            // Superseded by a newer generation, which notifies the observers instead
+            metrics.recordCancelledGeneration(start);
+            return;
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Background generation failed", e);
+            metrics.recordFailedGeneration(start);
+            synchronized (this) {
+                if (scheduledVersion == version) {
+                    scheduledVersion = -1;
+                }
+            }
+            return;
+        }
+        notifyFromBackground();
+    }
+
+    /**
+     * Notifies the observers of new elements from the background thread: through the notifier, unless a notification
+     * is still waiting to run there and will show them too, or straight away without a notifier
+     */
+    private void notifyFromBackground() {
+        Executor target;
+        synchronized (this) {
+            target = notifier;
+            if (target != null) {
+                if (notificationPending) {
+                    // The notification still waiting to run will show these elements too
+                    coalescedUpdates++;
+                    return;
+                }
+                notificationPending = true;
+            }
+        }
+        if (target != null) {
+            target.execute(this::deliverNotification);
+        } else {
+            notifyObservers();
+        }
+    }
+
+    /**
+     * Notifies the observers for a notification handed to the notifier, letting the next generation hand over another
+     */
+    private void deliverNotification() {
+        synchronized (this) {
+            notificationPending = false;
+        }
+        notifyObservers();
+    }
+
+    /**
+     * Gets the background generation thread, creating it if needed. The thread is a daemon, so it does not keep the
+     * application running.
+     * @return The executor of the background generation thread
+     */
+    private synchronized ExecutorService getGenerationExecutor() {
+        if (generationExecutor == null) {
+            generationExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "FractalGenerator");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return generationExecutor;
+    }
 
-            // Create the circle and triangle elements
-            Circle circleElement = new Circle(center, radius, realCircleColor, circleOpacity);
-            Triangle triangleElement = new Triangle(triangle[0], triangle[1], triangle[2], realTriangleColor);
-            System.out.println("Recursive generateElements called. Recursion index: " + recursionIndex); // Debugging
-            newElements.add(circleElement);
-            newElements.add(triangleElement);
+    //----------------------------------------------------------------------------------------------------------------//
+    // Batched Updates
+    //----------------------------------------------------------------------------------------------------------------//
 
-            // Generate new triangles at the corners of the current triangle
-            Point[] newTriangle1 = new Point[]{triangle[0], midpoint(triangle[0], triangle[1]), midpoint(triangle[0], triangle[2])};
-            Point[] newTriangle2 = new Point[]{triangle[1], midpoint(triangle[1], triangle[0]), midpoint(triangle[1], triangle[2])};
-            Point[] newTriangle3 = new Point[]{triangle[2], midpoint(triangle[2], triangle[0]), midpoint(triangle[2], triangle[1])};
+    /**
+     * Makes several changes as one. The set methods called by the changes update the parameters straight away, but
+     * the elements are generated and the observers notified only once, after all changes are made.
+     * @param changes The changes, calling the set methods of this generator
+     * @return The number of updates merged into the single one, which is one less than the number of set method calls
+     */
+    public int applySettings(Runnable changes) {
+        int merged;
+        beginUpdate();
+        try {
+            changes.run();
+        } finally {
+            merged = endUpdate();
+        }
+        return merged;
+    }
+
+    /**
+     * Starts a batch of changes. Until the matching {@link #endUpdate()}, the set methods only update the parameters.
+     * Batches can be nested, and are meant to be made from one thread, such as the Event Dispatch Thread.
+     */
+    public synchronized void beginUpdate() {
+        if (batchDepth++ == 0) {
+            batchUpdates = 0;
+        }
+    }
 
-            generateElements(newElements, newTriangle1, recursionIndex - 1);
-            generateElements(newElements, newTriangle2, recursionIndex - 1);
-            generateElements(newElements, newTriangle3, recursionIndex - 1);
+    /**
+     * Ends a batch of changes. When the outermost batch ends, the changes cause one update: a background generation
+     * in asynchronous mode, or a notification of the observers otherwise.
+     * @return The number of updates merged into the single one, or 0 if a batch is still in progress
+     * @throws IllegalStateException If no batch is in progress
+     */
+    public int endUpdate() {
+        int merged;
+        synchronized (this) {
+            if (batchDepth == 0) {
+                throw new IllegalStateException("No batch of changes in progress");
+            }
+            if (--batchDepth > 0 || batchUpdates == 0) {
+                return 0;
+            }
+            merged = batchUpdates - 1;
+            coalescedUpdates += merged;
+        }
+        // A scheduled generation notifies the observers when it finishes, which also shows the drawing flag
+        if (!isAsynchronous() || !scheduleGeneration()) {
+            notifyObservers();
         }
+        return merged;
     }
 
     /**
-     * Calculates the midpoint of two points
-     * @param p1 The first point
-     * @param p2 The second point
-     * @return The midpoint
+     * Gets the number of updates merged into another update, either by a batch of changes or because a notification
+     * was still waiting to run when newer elements were ready
+     * @return The number of merged updates since the generator was created
      */
-    private Point midpoint(Point p1, Point p2) {
-        return new Point((p1.x + p2.x) / 2, (p1.y + p2.y) / 2);
+    public synchronized long getCoalescedUpdates() {
+        return coalescedUpdates;
+    }
+
+    /**
+     * Counts an update towards the current batch, if there is one. Must be called while holding the lock.
+     * @return Whether the update is deferred to the end of the batch
+     */
+    private boolean deferUpdate() {
+        if (batchDepth == 0) {
+            return false;
+        }
+        batchUpdates++;
+        return true;
     }
 
     //----------------------------------------------------------------------------------------------------------------//
@@ -253,7 +1460,20 @@ public class FractalGenerator implements FractalSubject{
      */
     @Override
     public void registerObserver(FractalObserver observer) {
-        observers.add(observer);
+        observers.add(new Registration(observer, null));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br><br>
+     * <p>While an update for the observer is waiting to run on the executor, further updates for it are dropped, as
+     * the waiting update already reads the latest state.</p>
+     * @param observer The observer
+     * @param executor The executor to update the observer on
+     */
+    @Override
+    public void registerObserver(FractalObserver observer, Executor executor) {
+        observers.add(new Registration(observer, Objects.requireNonNull(executor)));
     }
 
     /**
@@ -262,7 +1482,7 @@ public class FractalGenerator implements FractalSubject{
      */
     @Override
     public void removeObserver(FractalObserver observer) {
-        observers.remove(observer);
+        observers.removeIf(registration -> registration.observer == observer);
     }
 
     /**
@@ -270,7 +1490,69 @@ public class FractalGenerator implements FractalSubject{
      */
     @Override
     public void notifyObservers() {
-        for (FractalObserver observer : observers) {
+        metrics.recordNotification();
+        for (Registration registration : observers) {
+            registration.deliver();
+        }
+    }
+
+    /**
+     * Gets the number of updates dropped for asynchronous observers because an earlier update was still waiting
+     * @return The number of dropped updates since the generator was created
+     */
+    public long getDroppedUpdates() {
+        return droppedUpdates.get();
+    }
+
+    /**
+     * A registered observer, with the executor it is updated on
+     */
+    private class Registration {
+
+        /** The observer */
+        private final FractalObserver observer;
+
+        /** The executor to update the observer on, or null to update it on the notifying thread */
+        private final Executor executor;
+
+        /** Whether an update has been handed to the executor and has not started yet */
+        private final AtomicBoolean pending = new AtomicBoolean();
+
+        /**
+         * Constructor for the Registration class
+         * @param observer The observer
+         * @param executor The executor to update the observer on, or null to update it on the notifying thread
+         */
+        Registration(FractalObserver observer, Executor executor) {
+            this.observer = observer;
+            this.executor = executor;
+        }
+
+        /**
+         * Updates the observer, directly or through its executor. An asynchronous update is dropped if one is already
+         * waiting, as that one will read the latest state when it runs.
+         */
+        void deliver() {
+            if (executor == null) {
+                observer.update();
+            } else if (pending.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this::run);
+                } catch (RuntimeException e) {
+                    pending.set(false);
+                    throw e;
+                }
+            } else {
+                droppedUpdates.incrementAndGet();
+            }
+        }
+
+        /**
+         * Runs an update on the executor. The update is marked as started first, so a notification during the update
+         * schedules another one.
+         */
+        private void run() {
+            pending.set(false);
             observer.update();
         }
     }
@@ -0,0 +1,239 @@
+import java.util.Arrays;
+
+/**
+ * Spatial index over the elements of any {@link FractalElementBuffer}: a uniform grid of square cells, each listing the
+ * elements whose bounds overlap it. A rectangle query only looks at the elements of the cells it overlaps, so drawing
+ * a small region of a large fractal costs what is in the region instead of a scan of every element.
+ * <p>
+ * The cells are stored in two flat arrays, the start of each cell's list and the lists one after another, as the
+ * rasterizer does for its tiles. The index does not copy the elements, and is only valid for the frozen buffer it was
+ * built from.
+ * </p>
+ * <p>
+ * The grid knows nothing about how the elements were generated, so it serves every fractal type and zoomed views,
+ * where the {@link SierpinskiTreeIndex} does not apply.
+ * </p>
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+
+//--------------------------------------------------------------------------------------------------------------------//
+// Contents
+// 1. Static Variables
+// 2. Instance Variables
+// 3. Constructor
+// 4. Queries
+// 5. Cells
+//--------------------------------------------------------------------------------------------------------------------//
+
+public class FractalGridIndex implements FractalSpatialIndex {
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Static Variables
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /** The default width and height of a cell, in element coordinates */
+    public static final int DEFAULT_CELL_SIZE = 32;
+
+    /** The most cells along either side of the grid, so far-flung elements cannot make the grid huge */
+    private static final int MAX_CELLS_PER_SIDE = 256;
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Instance Variables
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /** The indexed elements */
+    private final FractalElementBuffer elements;
+
+    /** The width and height of a cell, in element coordinates */
+    private final int cellSize;
+
+    /** The x coordinate of the left edge of the grid */
+    private final int left;
+
+    /** The y coordinate of the top edge of the grid */
+    private final int top;
+
+    /** The number of columns of cells */
+    private final int columns;
+
+    /** The number of rows of cells */
+    private final int rows;
+
+    /** The position in {@link #cellElements} where each cell's list starts, with the end of the last list at the end */
+    private final int[] cellStarts;
+
+    /** The indices of the elements overlapping each cell, in drawing order, one cell after another */
+    private final int[] cellElements;
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Constructor
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Constructor for a FractalGridIndex with the default cell size
+     * @param elements The elements to index, which must not change while the index is used
+     */
+    public FractalGridIndex(FractalElementBuffer elements) {
+        this(elements, DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Constructor for the FractalGridIndex class. The grid covers the bounds of all elements, with larger cells if
+     * the bounds are too wide for the cell size.
+     * @param elements The elements to index, which must not change while the index is used
+     * @param cellSize The width and height of a cell, in element coordinates
+     */
+    public FractalGridIndex(FractalElementBuffer elements, int cellSize) {
+        if (cellSize < 1) {
+            throw new IllegalArgumentException("Cell size must be at least 1");
+        }
+        this.elements = elements;
+        int[] bounds = new int[4];
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (int index = 0; index < elements.size(); index++) {
+            elements.getBounds(index, bounds);
+            minX = Math.min(minX, bounds[0]);
+            minY = Math.min(minY, bounds[1]);
+            maxX = Math.max(maxX, bounds[2]);
+            maxY = Math.max(maxY, bounds[3]);
+        }
+        if (elements.size() == 0) {
+            minX = 0;
+            minY = 0;
+            maxX = 1;
+            maxY = 1;
+        }
+        long span = Math.max((long) maxX - minX, (long) maxY - minY);
+        this.cellSize = (int) Math.max(cellSize, (span + MAX_CELLS_PER_SIDE - 1) / MAX_CELLS_PER_SIDE);
+        this.left = minX;
+        this.top = minY;
+        this.columns = (int) (((long) maxX - minX + this.cellSize - 1) / this.cellSize);
+        this.rows = (int) (((long) maxY - minY + this.cellSize - 1) / this.cellSize);
+
+        // Count the elements of each cell, then place them, as the rasterizer buckets its tiles
+        int[] range = new int[4];
+        cellStarts = new int[columns * rows + 1];
+        for (int index = 0; index < elements.size(); index++) {
+            cellRange(elements.getBounds(index, bounds), range);
+            for (int row = range[1]; row <= range[3]; row++) {
+                for (int column = range[0]; column <= range[2]; column++) {
+                    cellStarts[row * columns + column + 1]++;
+                }
+            }
+        }
+        for (int cell = 0; cell < columns * rows; cell++) {
+            cellStarts[cell + 1] += cellStarts[cell];
+        }
+        cellElements = new int[cellStarts[columns * rows]];
+        int[] filled = Arrays.copyOf(cellStarts, columns * rows);
+        for (int index = 0; index < elements.size(); index++) {
+            cellRange(elements.getBounds(index, bounds), range);
+            for (int row = range[1]; row <= range[3]; row++) {
+                for (int column = range[0]; column <= range[2]; column++) {
+                    cellElements[filled[row * columns + column]++] = index;
+                }
+            }
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Queries
+    //----------------------------------------------------------------------------------------------------------------//
+
+    @Override
+    public FractalElementBuffer getElements() {
+        return elements;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br><br>
+     * <p>Only the elements listed in the cells the rectangle overlaps are checked.</p>
+     */
+    @Override
+    public int[] query(int minX, int minY, int maxX, int maxY) {
+        int[] range = new int[4];
+        if (minX >= maxX || minY >= maxY || !cellRange(new int[]{minX, minY, maxX, maxY}, range)) {
+            return new int[0];
+        }
+        int[] bounds = new int[4];
+        int[] found = new int[16];
+        int count = 0;
+        for (int row = range[1]; row <= range[3]; row++) {
+            for (int column = range[0]; column <= range[2]; column++) {
+                int cell = row * columns + column;
+                for (int position = cellStarts[cell]; position < cellStarts[cell + 1]; position++) {
+                    int index = cellElements[position];
+                    elements.getBounds(index, bounds);
+                    if (bounds[0] < maxX && bounds[2] > minX && bounds[1] < maxY && bounds[3] > minY) {
+                        if (count == found.length) {
+                            found = Arrays.copyOf(found, count * 2);
+                        }
+                        found[count++] = index;
+                    }
+                }
+            }
+        }
+
+        // Elements spanning several cells were found once per cell
+        Arrays.sort(found, 0, count);
+        int unique = 0;
+        for (int position = 0; position < count; position++) {
+            if (unique == 0 || found[position] != found[unique - 1]) {
+                found[unique++] = found[position];
+            }
+        }
+        return Arrays.copyOf(found, unique);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br><br>
+     * <p>The elements found in the pixel of the point are checked against their shapes.</p>
+     */
+    @Override
+    public int[] queryPoint(float x, float y) {
+        int pixelX = (int) Math.floor(x);
+        int pixelY = (int) Math.floor(y);
+        int[] found = query(pixelX, pixelY, pixelX + 1, pixelY + 1);
+        int count = 0;
+        for (int index : found) {
+            if (elements.contains(index, x, y)) {
+                found[count++] = index;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br><br>
+     * <p>A grid does not know the recursion of the fractal, so this always returns null.</p>
+     */
+    @Override
+    public int[] getPath(int index) {
+        return null;
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Cells
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Calculates the range of cells that bounds overlap, with a unit of margin for the rounding of the bounds
+     * @param bounds The bounds, as min x, min y, max x and max y, with the maximums exclusive
+     * @param range The array to store the first column, first row, last column and last row in
+     * @return Whether the bounds overlap any cell
+     */
+    private boolean cellRange(int[] bounds, int[] range) {
+        range[0] = (int) Math.max(0, Math.floorDiv((long) bounds[0] - 1 - left, cellSize));
+        range[1] = (int) Math.max(0, Math.floorDiv((long) bounds[1] - 1 - top, cellSize));
+        range[2] = (int) Math.min(columns - 1, Math.floorDiv((long) bounds[2] - left, cellSize));
+        range[3] = (int) Math.min(rows - 1, Math.floorDiv((long) bounds[3] - top, cellSize));
+        return range[0] <= range[2] && range[1] <= range[3];
+    }
+}
@@ -14,12 +14,11 @@ import java.awt.event.ActionListener;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
-import java.util.Scanner;
 
 /**
  * GUI for the fractal generator. This class handles user interactions for setting fractal parameters such as
- * recursive depth, opacity, color, and themes. It also provides buttons to draw and clear the fractal,
- * along with a display showing the selected color or theme.
+ * the fractal type, recursive depth, opacity, color, themes and the escape-time background. It also provides buttons
+ * to draw and clear the fractal, along with a display showing the selected color or theme.
  * <p>
  * This class interacts with {@link FractalGenerator} to reflect the user's choices in fractal generation.
  * </p>
@@ -36,10 +35,12 @@ import java.util.Scanner;
 // 3.1 Draw Button
 // 3.2 Clear Button
 // 3.3 Recursion Depth Slider
-// 3.4 Circle Opacity Slider
-// 3.5 Color Selection Display
-// 3.6 Color Selection
-// 3.7 Theme Selection
+// 3.4 Fractal Type Selection
+// 3.5 Circle Opacity Slider
+// 3.6 Color Selection Display
+// 3.7 Color Selection
+// 3.8 Theme Selection
+// 3.9 Background Selection
 // 4. Default Theme
 //--------------------------------------------------------------------------------------------------------------------//
 public class FractalGui {
@@ -69,29 +70,9 @@ public class FractalGui {
         themeColors = new ArrayList<>();
 
         try {
-            File themeFile = new File("Fractal_Themes.csv");
-            Scanner input = new Scanner(themeFile);
-
-            input.useDelimiter(",");
-            input.nextLine();
-
-            while (input.hasNextLine()) {
-                String line = input.nextLine();
-                if (!line.isEmpty()) {
-                    String[] parts = line.split(",");
-                    // If the line has only one part, it is a theme name
-                    if (parts.length == 1) {
-                        themeNames.add(parts[0]);
-                        // If the line has three parts, it is a color
-                    } else if (parts.length == 3) {
-                        int r = Integer.parseInt(parts[0]);
-                        int g = Integer.parseInt(parts[1]);
-                        int b = Integer.parseInt(parts[2]);
-                        Color color = new Color(r, g, b);
-                        themeColors.add(color);
-                    }
-                }
-            }
+            FractalThemes themes = FractalThemes.load(new File(FractalThemes.DEFAULT_FILE));
+            themeNames.addAll(themes.getNames());
+            themeColors.addAll(themes.getColors());
         } catch (FileNotFoundException e) {
             System.err.println("Error: Theme file not found. Defaulting to basic themes.");
             // Add some basic themes/colors as fallback
@@ -174,7 +155,7 @@ public class FractalGui {
         recursionDepthLabel.setBounds(50, 50, 200, 30);
         mainPanel.add(recursionDepthLabel);
 
-        JSlider recursionDepthSlider = new JSlider(1, 8, 5);
+        JSlider recursionDepthSlider = new JSlider(1, 12, 5);
         recursionDepthSlider.setBounds(50, 80, 200, 50);
         recursionDepthSlider.setMajorTickSpacing(1);
         recursionDepthSlider.setPaintTicks(true);
@@ -184,8 +165,35 @@ public class FractalGui {
         recursionDepthSlider.addChangeListener(new ChangeListener() {
             @Override
             public void stateChanged(ChangeEvent e) {
-                generator.setRecursionDepth(recursionDepthSlider.getValue());
-                generator.setDrawFractal(true);
+                generator.applySettings(() -> {
+                    generator.setRecursionDepth(recursionDepthSlider.getValue());
+                    generator.setDrawFractal(true);
+                });
+            }
+        });
+
+        //-----------------------------------------------------------------------------------------------------------//
+        // Fractal Type Selection
+        //-----------------------------------------------------------------------------------------------------------//
+
+        ArrayList<String> typeNames = new ArrayList<>();
+        for (FractalType type : FractalTypes.getAll()) {
+            typeNames.add(type.getName());
+        }
+        JComboBox<String> typeSelection = new JComboBox<>(typeNames.toArray(new String[typeNames.size()]));
+        typeSelection.setBounds(50, 15, 200, 30);
+        mainPanel.add(typeSelection);
+
+        typeSelection.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                FractalType type = FractalTypes.getAll().get(typeSelection.getSelectedIndex());
+                // Lowering the maximum also lowers a deeper depth, which joins the same single update
+                generator.applySettings(() -> {
+                    generator.setFractalType(type);
+                    recursionDepthSlider.setMaximum(type.getMaxDepth());
+                    generator.setDrawFractal(true);
+                });
             }
         });
 
@@ -207,8 +215,10 @@ public class FractalGui {
         circleOpacitySlider.addChangeListener(new ChangeListener() {
             @Override
             public void stateChanged(ChangeEvent e) {
-                generator.setCircleOpacity(circleOpacitySlider.getValue());
-                generator.setDrawFractal(true);
+                generator.applySettings(() -> {
+                    generator.setCircleOpacity(circleOpacitySlider.getValue());
+                    generator.setDrawFractal(true);
+                });
             }
         });
 
@@ -243,11 +253,13 @@ public class FractalGui {
             public void actionPerformed(ActionEvent e) {
                 Color color = JColorChooser.showDialog(null, "Select a color", null);
                 if (color != null) {
-                    generator.setColor(color);
+                    generator.applySettings(() -> {
+                        generator.setColor(color);
+                        generator.setDrawFractal(true);
+                    });
                     for (int index = 0; index < 5; index++) {
                         themeDisplay[index].setBackground(color);
                     }
-                    generator.setDrawFractal(true);
                 }
             }
         });
@@ -273,12 +285,45 @@ public class FractalGui {
                 for (int index = 0; index < 5; index++) {
                     colors.add(themeColors.get(selection * 5 + index));
                 }
-                generator.setThemeColors(colors);
+                // One generation and one redraw for the new theme, the cleared color and the drawing flag
+                generator.applySettings(() -> {
+                    generator.setThemeColors(colors);
+                    generator.setColor(null);
+                    generator.setDrawFractal(true);
+                });
                 for (int index = 0; index < 5; index++) {
                     themeDisplay[index].setBackground(colors.get(index));
                 }
-                generator.setColor(null);
-                generator.setDrawFractal(true);
+            }
+        });
+
+        //-----------------------------------------------------------------------------------------------------------//
+        // Background Selection
+        //-----------------------------------------------------------------------------------------------------------//
+
+        ArrayList<EscapeTimeFractal> backgrounds = new ArrayList<>();
+        ArrayList<String> backgroundNames = new ArrayList<>();
+        backgrounds.add(null);
+        backgroundNames.add("No Background");
+        for (FractalType type : FractalTypes.getAll()) {
+            if (type instanceof EscapeTimeFractal) {
+                backgrounds.add((EscapeTimeFractal) type);
+                backgroundNames.add(type.getName() + " Background");
+            }
+        }
+        JComboBox<String> backgroundSelection =
+                new JComboBox<>(backgroundNames.toArray(new String[backgroundNames.size()]));
+        backgroundSelection.setBounds(50, 458, 200, 30);
+        mainPanel.add(backgroundSelection);
+
+        backgroundSelection.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                EscapeTimeFractal background = backgrounds.get(backgroundSelection.getSelectedIndex());
+                generator.applySettings(() -> {
+                    generator.setBackground(background);
+                    generator.setDrawFractal(true);
+                });
             }
         });
         generator.setDrawFractal(true);
@@ -0,0 +1,524 @@
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Records how long generation, reading the elements, painting and rendering the escape-time background take, and how
+ * often they happen, along with the iterations each background frame needs. The metrics can be
+ * read through JMX once {@link #register(String)} is called, and logged periodically with
+ * {@link #startReporter(long, TimeUnit)}.
+ * <p>
+ * Recording is off by default. Timed code calls {@link #start()}, which only reads a volatile flag while recording is
+ * off, and passes what it returns to the matching record method, which then returns at once. While recording is on,
+ * counters are {@link LongAdder}s and times go into lock-free histograms with a bucket per power of two nanoseconds,
+ * so recording never blocks the generation or painting threads.
+ * </p>
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+
+//--------------------------------------------------------------------------------------------------------------------//
+// Contents
+// 1. Static Variables
+// 2. Instance Variables
+// 3. Constructor
+// 4. Recording
+// 5. Management Methods
+// 6. Reporting
+// 7. Histogram
+//--------------------------------------------------------------------------------------------------------------------//
+
+public class FractalMetrics implements FractalMetricsMBean {
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Static Variables
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /** The start time returned while recording is off, which the record methods ignore */
+    public static final long NOT_RECORDING = Long.MIN_VALUE;
+
+    /** The number of recursion depths element counts are kept for; deeper generations count as the deepest */
+    public static final int MAX_DEPTH = 64;
+
+    /** The domain of the names the metrics are registered under */
+    public static final String DOMAIN = "FractalDesign";
+
+    /** The logger reports are written to */
+    private static final Logger LOGGER = Logger.getLogger(FractalMetrics.class.getName());
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Instance Variables
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /** Whether metrics are recorded */
+    private volatile boolean enabled;
+
+    /** The cache whose hit rate is reported, or null */
+    private final FractalCache cache;
+
+    /** The times of finished generations */
+    private final Histogram generationTimes = new Histogram();
+
+    /** The number of cancelled generations */
+    private final LongAdder cancelledGenerations = new LongAdder();
+
+    /** The number of background generations that failed with an exception */
+    private final LongAdder failedGenerations = new LongAdder();
+
+    /** The number of elements generated last at each recursion depth */
+    private final AtomicLongArray elementCounts = new AtomicLongArray(MAX_DEPTH + 1);
+
+    /** The times of getData() calls */
+    private final Histogram dataTimes = new Histogram();
+
+    /** The times of painted frames */
+    private final Histogram paintTimes = new Histogram();
+
+    /** The times of rendered background frames */
+    private final Histogram backgroundTimes = new Histogram();
+
+    /** The number of pixels of the rendered background frames */
+    private final LongAdder backgroundPixels = new LongAdder();
+
+    /** The number of iterations of the rendered background frames */
+    private final LongAdder backgroundIterations = new LongAdder();
+
+    /** The number of iterations of the last rendered background frame */
+    private final AtomicLong lastBackgroundIterations = new AtomicLong();
+
+    /** The number of notifications */
+    private final LongAdder notifications = new LongAdder();
+
+    /** The thread reports are logged on, or null when not reporting */
+    private ScheduledExecutorService reporter;
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Constructor
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Constructor for the FractalMetrics class. Recording is off until {@link #setEnabled(boolean)} is called.
+     * @param cache The cache whose hit rate is reported, or null
+     */
+    public FractalMetrics(FractalCache cache) {
+        this.cache = cache;
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Recording
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Starts timing an operation
+     * @return The start time to pass to a record method, or {@link #NOT_RECORDING} while recording is off
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : NOT_RECORDING;
+    }
+
+    /**
+     * Records a finished generation
+     * @param start The start time returned by {@link #start()}
+     * @param depth The recursion depth generated
+     * @param elements The number of elements generated
+     */
+    public void recordGeneration(long start, int depth, int elements) {
+        if (start != NOT_RECORDING) {
+            generationTimes.record(System.nanoTime() - start);
+            elementCounts.set(Math.max(0, Math.min(depth, MAX_DEPTH)), elements);
+        }
+    }
+
+    /**
+     * Records a generation cancelled by a newer parameter change
+     * @param start The start time returned by {@link #start()}
+     */
+    public void recordCancelledGeneration(long start) {
+        if (start != NOT_RECORDING) {
+            cancelledGenerations.increment();
+        }
+    }
+
+    /**
+     * Records a background generation that failed with an exception
+     * @param start The start time returned by {@link #start()}
+     */
+    public void recordFailedGeneration(long start) {
+        if (start != NOT_RECORDING) {
+            failedGenerations.increment();
+        }
+    }
+
+    /**
+     * Records a call to getData() or getSnapshot()
+     * @param start The start time returned by {@link #start()}
+     */
+    public void recordGetData(long start) {
+        if (start != NOT_RECORDING) {
+            dataTimes.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records a painted frame
+     * @param start The start time returned by {@link #start()}
+     */
+    public void recordPaint(long start) {
+        if (start != NOT_RECORDING) {
+            paintTimes.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records a rendered frame of the escape-time background
+     * @param start The start time returned by {@link #start()}
+     * @param pixels The number of pixels rendered
+     * @param iterations The sum of the iterations of every pixel
+     */
+    public void recordBackground(long start, long pixels, long iterations) {
+        if (start != NOT_RECORDING) {
+            backgroundTimes.record(System.nanoTime() - start);
+            backgroundPixels.add(pixels);
+            backgroundIterations.add(iterations);
+            lastBackgroundIterations.set(iterations);
+        }
+    }
+
+    /**
+     * Records a notification of the observers
+     */
+    public void recordNotification() {
+        if (enabled) {
+            notifications.increment();
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Management Methods
+    //----------------------------------------------------------------------------------------------------------------//
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void reset() {
+        generationTimes.reset();
+        cancelledGenerations.reset();
+        failedGenerations.reset();
+        for (int depth = 0; depth <= MAX_DEPTH; depth++) {
+            elementCounts.set(depth, 0);
+        }
+        dataTimes.reset();
+        paintTimes.reset();
+        backgroundTimes.reset();
+        backgroundPixels.reset();
+        backgroundIterations.reset();
+        lastBackgroundIterations.set(0);
+        notifications.reset();
+    }
+
+    @Override
+    public long getGenerationCount() {
+        return generationTimes.getCount();
+    }
+
+    @Override
+    public long getCancelledGenerationCount() {
+        return cancelledGenerations.sum();
+    }
+
+    @Override
+    public long getFailedGenerationCount() {
+        return failedGenerations.sum();
+    }
+
+    @Override
+    public double getGenerationMeanMicros() {
+        return generationTimes.getMeanMicros();
+    }
+
+    @Override
+    public double getGenerationP99Micros() {
+        return generationTimes.getPercentileMicros(0.99);
+    }
+
+    @Override
+    public double getGenerationMaxMicros() {
+        return generationTimes.getMaxMicros();
+    }
+
+    @Override
+    public long[] getElementCounts() {
+        // Trailing depths that were never generated are left out
+        int length = MAX_DEPTH + 1;
+        while (length > 0 && elementCounts.get(length - 1) == 0) {
+            length--;
+        }
+        long[] counts = new long[length];
+        for (int depth = 0; depth < length; depth++) {
+            counts[depth] = elementCounts.get(depth);
+        }
+        return counts;
+    }
+
+    @Override
+    public long getDataCount() {
+        return dataTimes.getCount();
+    }
+
+    @Override
+    public double getDataMeanMicros() {
+        return dataTimes.getMeanMicros();
+    }
+
+    @Override
+    public double getDataP99Micros() {
+        return dataTimes.getPercentileMicros(0.99);
+    }
+
+    @Override
+    public double getDataMaxMicros() {
+        return dataTimes.getMaxMicros();
+    }
+
+    @Override
+    public long getPaintCount() {
+        return paintTimes.getCount();
+    }
+
+    @Override
+    public double getPaintMeanMicros() {
+        return paintTimes.getMeanMicros();
+    }
+
+    @Override
+    public double getPaintP99Micros() {
+        return paintTimes.getPercentileMicros(0.99);
+    }
+
+    @Override
+    public double getPaintMaxMicros() {
+        return paintTimes.getMaxMicros();
+    }
+
+    @Override
+    public long getBackgroundCount() {
+        return backgroundTimes.getCount();
+    }
+
+    @Override
+    public double getBackgroundMeanMicros() {
+        return backgroundTimes.getMeanMicros();
+    }
+
+    @Override
+    public double getBackgroundP99Micros() {
+        return backgroundTimes.getPercentileMicros(0.99);
+    }
+
+    @Override
+    public double getBackgroundMaxMicros() {
+        return backgroundTimes.getMaxMicros();
+    }
+
+    @Override
+    public long getLastBackgroundIterations() {
+        return lastBackgroundIterations.get();
+    }
+
+    @Override
+    public double getBackgroundIterationsPerPixel() {
+        long pixels = backgroundPixels.sum();
+        return pixels == 0 ? 0 : backgroundIterations.sum() / (double) pixels;
+    }
+
+    @Override
+    public long getNotificationCount() {
+        return notifications.sum();
+    }
+
+    @Override
+    public double getCacheHitRate() {
+        if (cache == null) {
+            return 0;
+        }
+        long hits = cache.getHits();
+        long lookups = hits + cache.getMisses();
+        return lookups == 0 ? 0 : hits / (double) lookups;
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server, so JMX clients such as JConsole can read them and switch
+     * recording on and off
+     * @param name The name to register under, unique among the registered metrics
+     * @return The name the metrics are registered under
+     * @throws JMException If the name is invalid or already registered
+     */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName(DOMAIN, "name", ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Reporting
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Starts logging a summary of the metrics at a fixed rate on a daemon thread, replacing any earlier reporter.
+     * Recording must be switched on separately.
+     * @param period The time between reports
+     * @param unit The unit of the period
+     */
+    public synchronized void startReporter(long period, TimeUnit unit) {
+        stopReporter();
+        reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "FractalMetrics reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> LOGGER.info(toString()), period, period, unit);
+    }
+
+    /**
+     * Stops logging reports, if a reporter is running
+     */
+    public synchronized void stopReporter() {
+        if (reporter != null) {
+            reporter.shutdown();
+            reporter = null;
+        }
+    }
+
+    /**
+     * Summarizes the metrics on one line
+     * @return The summary
+     */
+    @Override
+    public String toString() {
+        return String.format("FractalMetrics[generations=%d (%d cancelled, %d failed) %s, getData=%d %s, paints=%d %s, "
+                        + "backgrounds=%d %s iterations/pixel=%.1f, notifications=%d, cacheHitRate=%.3f]",
+                getGenerationCount(), getCancelledGenerationCount(), getFailedGenerationCount(), generationTimes,
+                getDataCount(), dataTimes, getPaintCount(), paintTimes, getBackgroundCount(), backgroundTimes,
+                getBackgroundIterationsPerPixel(), getNotificationCount(), getCacheHitRate());
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Histogram
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * A lock-free histogram of durations, with a bucket for each power of two nanoseconds
+     */
+    private static class Histogram {
+
+        /** The number of durations in each bucket; bucket i holds durations below 2^i nanoseconds */
+        private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE + 1);
+
+        /** The number of durations recorded */
+        private final LongAdder count = new LongAdder();
+
+        /** The sum of the durations recorded, in nanoseconds */
+        private final LongAdder total = new LongAdder();
+
+        /** The longest duration recorded, in nanoseconds */
+        private final AtomicLong max = new AtomicLong();
+
+        /**
+         * Records a duration
+         * @param nanos The duration, in nanoseconds
+         */
+        void record(long nanos) {
+            nanos = Math.max(nanos, 0);
+            buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(nanos));
+            count.increment();
+            total.add(nanos);
+            max.accumulateAndGet(nanos, Math::max);
+        }
+
+        /**
+         * Clears the histogram. Durations recorded at the same time may be partly kept.
+         */
+        void reset() {
+            for (int bucket = 0; bucket < buckets.length(); bucket++) {
+                buckets.set(bucket, 0);
+            }
+            count.reset();
+            total.reset();
+            max.set(0);
+        }
+
+        /**
+         * Gets the number of durations recorded
+         * @return The count
+         */
+        long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * Gets the mean duration
+         * @return The mean, in microseconds, or 0 if nothing was recorded
+         */
+        double getMeanMicros() {
+            long recorded = count.sum();
+            return recorded == 0 ? 0 : total.sum() / 1000.0 / recorded;
+        }
+
+        /**
+         * Gets the longest duration
+         * @return The maximum, in microseconds
+         */
+        double getMaxMicros() {
+            return max.get() / 1000.0;
+        }
+
+        /**
+         * Gets an upper bound of a percentile: the top of the bucket the percentile falls in, capped at the maximum
+         * @param fraction The percentile, as a fraction from 0 to 1
+         * @return The upper bound, in microseconds, or 0 if nothing was recorded
+         */
+        double getPercentileMicros(double fraction) {
+            long[] counts = new long[buckets.length()];
+            long recorded = 0;
+            for (int bucket = 0; bucket < counts.length; bucket++) {
+                counts[bucket] = buckets.get(bucket);
+                recorded += counts[bucket];
+            }
+            long rank = (long) Math.ceil(fraction * recorded);
+            long seen = 0;
+            for (int bucket = 0; bucket < counts.length; bucket++) {
+                seen += counts[bucket];
+                if (seen >= rank && seen > 0) {
+                    double upper = bucket == Long.SIZE ? Double.MAX_VALUE : Math.scalb(1.0, bucket);
+                    return Math.min(upper, max.get()) / 1000.0;
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Summarizes the histogram
+         * @return The mean, 99th percentile and maximum, in microseconds
+         */
+        @Override
+        public String toString() {
+            return String.format("mean=%.1fus p99<=%.1fus max=%.1fus", getMeanMicros(), getPercentileMicros(0.99),
+                    getMaxMicros());
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/**
+ * Management interface for the FractalMetrics class, shown in JConsole and other JMX clients.
+ * Times are in microseconds. Percentiles are the upper bound of the power-of-two range they fall in, so they are
+ * within a factor of two of the exact value.
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+public interface FractalMetricsMBean {
+
+    /**
+     * This method is used to check whether metrics are recorded.
+     * @return whether metrics are recorded
+     */
+    boolean isEnabled();
+
+    /**
+     * This method is used to switch recording on or off. The recorded metrics are kept while it is off.
+     * @param enabled whether metrics are recorded
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * This method is used to clear the recorded metrics.
+     */
+    void reset();
+
+    /**
+     * This method is used to retrieve the number of finished generations, including those served from the cache.
+     * @return the number of generations
+     */
+    long getGenerationCount();
+
+    /**
+     * This method is used to retrieve the number of background generations stopped by a newer parameter change.
+     * @return the number of cancelled generations
+     */
+    long getCancelledGenerationCount();
+
+    /**
+     * This method is used to retrieve the number of background generations that failed with an exception.
+     * @return the number of failed generations
+     */
+    long getFailedGenerationCount();
+
+    /**
+     * This method is used to retrieve the mean time of a generation.
+     * @return the mean generation time, in microseconds
+     */
+    double getGenerationMeanMicros();
+
+    /**
+     * This method is used to retrieve the 99th percentile time of a generation.
+     * @return the 99th percentile generation time, in microseconds
+     */
+    double getGenerationP99Micros();
+
+    /**
+     * This method is used to retrieve the longest time of a generation.
+     * @return the longest generation time, in microseconds
+     */
+    double getGenerationMaxMicros();
+
+    /**
+     * This method is used to retrieve the number of elements generated last at each recursion depth.
+     * @return the element counts, indexed by recursion depth, with 0 for depths not generated yet
+     */
+    long[] getElementCounts();
+
+    /**
+     * This method is used to retrieve the number of calls to getData() and getSnapshot().
+     * @return the number of calls
+     */
+    long getDataCount();
+
+    /**
+     * This method is used to retrieve the mean time of getData(), including any generation on demand.
+     * @return the mean time, in microseconds
+     */
+    double getDataMeanMicros();
+
+    /**
+     * This method is used to retrieve the 99th percentile time of getData(), including any generation on demand.
+     * @return the 99th percentile time, in microseconds
+     */
+    double getDataP99Micros();
+
+    /**
+     * This method is used to retrieve the longest time of getData(), including any generation on demand.
+     * @return the longest time, in microseconds
+     */
+    double getDataMaxMicros();
+
+    /**
+     * This method is used to retrieve the number of frames painted.
+     * @return the number of frames
+     */
+    long getPaintCount();
+
+    /**
+     * This method is used to retrieve the mean time of painting a frame.
+     * @return the mean paint time, in microseconds
+     */
+    double getPaintMeanMicros();
+
+    /**
+     * This method is used to retrieve the 99th percentile time of painting a frame.
+     * @return the 99th percentile paint time, in microseconds
+     */
+    double getPaintP99Micros();
+
+    /**
+     * This method is used to retrieve the longest time of painting a frame.
+     * @return the longest paint time, in microseconds
+     */
+    double getPaintMaxMicros();
+
+    /**
+     * This method is used to retrieve the number of escape-time background frames rendered.
+     * @return the number of background frames
+     */
+    long getBackgroundCount();
+
+    /**
+     * This method is used to retrieve the mean time of rendering a background frame.
+     * @return the mean background time, in microseconds
+     */
+    double getBackgroundMeanMicros();
+
+    /**
+     * This method is used to retrieve the 99th percentile time of rendering a background frame.
+     * @return the 99th percentile background time, in microseconds
+     */
+    double getBackgroundP99Micros();
+
+    /**
+     * This method is used to retrieve the longest time of rendering a background frame.
+     * @return the longest background time, in microseconds
+     */
+    double getBackgroundMaxMicros();
+
+    /**
+     * This method is used to retrieve the sum of the iterations of every pixel of the last background frame.
+     * @return the iterations of the last frame
+     */
+    long getLastBackgroundIterations();
+
+    /**
+     * This method is used to retrieve the mean number of iterations per pixel over all background frames.
+     * @return the iterations per pixel, or 0 before the first frame
+     */
+    double getBackgroundIterationsPerPixel();
+
+    /**
+     * This method is used to retrieve the number of times the observers were notified.
+     * @return the number of notifications
+     */
+    long getNotificationCount();
+
+    /**
+     * This method is used to retrieve the fraction of element cache lookups that found an entry.
+     * The cache counts its lookups even while recording is off.
+     * @return the hit rate, from 0 to 1, or 0 before the first lookup
+     */
+    double getCacheHitRate();
+}
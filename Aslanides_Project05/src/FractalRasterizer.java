@@ -0,0 +1,423 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Renders fractal elements into an image. Small element sets are drawn directly. Large ones are split into square
+ * tiles: each element is put in the bucket of every tile it overlaps, worker threads draw each tile's bucket into a
+ * tile image, and the tiles are copied into the final image.
+ * <p>
+ * Each tile draws its elements in their original order with the same transform, offset by whole pixels, so the tiled
+ * result is pixel-identical to drawing all elements directly. That holds for the predefined image types with direct
+ * colors. Indexed images are dithered relative to the image origin, and images of a custom type are drawn differently
+ * depending on the clip, so they are always drawn directly.
+ * </p>
+ * <p>
+ * In batched mode, elements are drawn with {@link FractalElementBuffer#drawBatched(Graphics2D, int[], int)}, one path
+ * per shape and color, which is much faster for deep fractals but does not keep the drawing order between colors.
+ * Batches are drawn in the same order in every tile, so tiling still matches drawing directly.
+ * </p>
+ * <p>
+ * Without a background color, the elements are drawn over the pixels already in the image, such as an
+ * {@link EscapeTimeLayer} rendered into it first.
+ * </p>
+ * <p>
+ * A region of an image can also be rendered again on its own, from the elements a spatial index found in it, when
+ * only that region changed.
+ * </p>
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+
+//--------------------------------------------------------------------------------------------------------------------//
+// Contents
+// 1. Static Variables
+// 2. Instance Variables
+// 3. Constructor
+// 4. Rendering
+// 5. Tiling
+//--------------------------------------------------------------------------------------------------------------------//
+
+public class FractalRasterizer {
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Static Variables
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /** The default width and height of a tile, in pixels */
+    public static final int DEFAULT_TILE_SIZE = 128;
+
+    /** The default number of elements from which rendering is tiled */
+    public static final int DEFAULT_TILED_THRESHOLD = 10000;
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Instance Variables
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /** The width and height of a tile, in pixels */
+    private final int tileSize;
+
+    /** The number of elements from which rendering is tiled */
+    private final int tiledThreshold;
+
+    /** The worker threads that render tiles */
+    private final ExecutorService executor;
+
+    /** Whether elements are drawn in batches of one shape and color */
+    private volatile boolean batched;
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Constructor
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Constructor for a FractalRasterizer with the default tile size and threshold, and one thread per processor
+     */
+    public FractalRasterizer() {
+        this(DEFAULT_TILE_SIZE, DEFAULT_TILED_THRESHOLD, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor for the FractalRasterizer class
+     * @param tileSize The width and height of a tile, in pixels
+     * @param tiledThreshold The number of elements from which rendering is tiled
+     * @param threads The number of worker threads
+     */
+    public FractalRasterizer(int tileSize, int tiledThreshold, int threads) {
+        if (tileSize < 1 || threads < 1) {
+            throw new IllegalArgumentException("Tile size and threads must be at least 1");
+        }
+        this.tileSize = tileSize;
+        this.tiledThreshold = tiledThreshold;
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "FractalRasterizer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Rendering
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Sets whether elements are drawn in batches of one shape and color instead of one by one in drawing order
+     * @param batched Whether to draw in batches
+     */
+    public void setBatched(boolean batched) {
+        this.batched = batched;
+    }
+
+    /**
+     * Gets whether elements are drawn in batches of one shape and color
+     * @return Whether elements are drawn in batches
+     */
+    public boolean isBatched() {
+        return batched;
+    }
+
+    /**
+     * Fills an image with a background color and draws the elements on it, tiled if there are enough elements
+     * @param elements The elements to draw
+     * @param image The image to draw into
+     * @param background The background color, or null to draw over the pixels already in the image
+     * @param scale The scale from element coordinates to image pixels
+     * @throws CancellationException If the calling thread is interrupted while the tiles are rendered
+     */
+    public void render(FractalElementBuffer elements, BufferedImage image, Color background, double scale) {
+        if (elements.size() < tiledThreshold) {
+            renderSerial(elements, image, background, scale, batched);
+        } else {
+            renderTiled(elements, image, background, scale);
+        }
+    }
+
+    /**
+     * Fills an image with a background color and draws all elements on it through one graphics object
+     * @param elements The elements to draw
+     * @param image The image to draw into
+     * @param background The background color, or null to draw over the pixels already in the image
+     * @param scale The scale from element coordinates to image pixels
+     */
+    public static void renderSerial(FractalElementBuffer elements, BufferedImage image, Color background,
+                                    double scale) {
+        renderSerial(elements, image, background, scale, false);
+    }
+
+    /**
+     * Fills an image with a background color and draws all elements on it through one graphics object, one by one
+     * or in batches
+     * @param elements The elements to draw
+     * @param image The image to draw into
+     * @param background The background color, or null to draw over the pixels already in the image
+     * @param scale The scale from element coordinates to image pixels
+     * @param batched Whether to draw in batches of one shape and color
+     */
+    public static void renderSerial(FractalElementBuffer elements, BufferedImage image, Color background,
+                                    double scale, boolean batched) {
+        Graphics2D g = image.createGraphics();
+        if (background != null) {
+            g.setColor(background);
+            g.fillRect(0, 0, image.getWidth(), image.getHeight());
+        }
+        g.scale(scale, scale);
+        if (batched) {
+            elements.drawBatched(g);
+        } else {
+            elements.draw(g);
+        }
+        g.dispose();
+    }
+
+    /**
+     * Renders one region of an image again: fills it with a background color and draws the given elements clipped to
+     * it, one by one or in batches as set. As with tiles, the region matches rendering the whole image, as long as the
+     * given elements include every element overlapping it.
+     * @param elements The elements
+     * @param indices The indices of the elements overlapping the region, in drawing order
+     * @param image The image to draw into
+     * @param background The background color, or null to draw over the pixels already in the region
+     * @param scale The scale from element coordinates to image pixels
+     * @param region The region, in image pixels
+     */
+    public void renderRegion(FractalElementBuffer elements, int[] indices, BufferedImage image, Color background,
+                             double scale, Rectangle region) {
+        Graphics2D g = image.createGraphics();
+        g.clip(region);
+        if (background != null) {
+            g.setColor(background);
+            g.fill(region);
+        }
+        g.scale(scale, scale);
+        if (batched) {
+            elements.drawBatched(g, indices, indices.length);
+        } else {
+            elements.draw(g, indices, indices.length);
+        }
+        g.dispose();
+    }
+
+    /**
+     * Fills an image with a background color and draws the elements on it tile by tile on the worker threads, or
+     * directly if the image is of a type that tiles would not match
+     * @param elements The elements to draw
+     * @param image The image to draw into
+     * @param background The background color, or null to draw over the pixels already in the image
+     * @param scale The scale from element coordinates to image pixels
+     * @throws CancellationException If the calling thread is interrupted, which leaves the image only partly rendered
+     */
+    public void renderTiled(FractalElementBuffer elements, BufferedImage image, Color background, double scale) {
+        if (image.getType() == BufferedImage.TYPE_CUSTOM || image.getColorModel() instanceof IndexColorModel) {
+            // Tiles would not match drawing directly, see the class comment
+            renderSerial(elements, image, background, scale, batched);
+            return;
+        }
+        int columns = (image.getWidth() + tileSize - 1) / tileSize;
+        int rows = (image.getHeight() + tileSize - 1) / tileSize;
+        int[][] buckets = bucketElements(elements, columns, rows, scale);
+
+        ArrayList<Future<BufferedImage>> tiles = new ArrayList<>(columns * rows);
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                int[] bucket = buckets[row * columns + column];
+                int x = column * tileSize;
+                int y = row * tileSize;
+                int width = Math.min(tileSize, image.getWidth() - x);
+                int height = Math.min(tileSize, image.getHeight() - y);
+                tiles.add(executor.submit(new TileTask(elements, bucket, image, x, y, width, height, background,
+                        scale, batched)));
+            }
+        }
+
+        try {
+            for (int tile = 0; tile < tiles.size(); tile++) {
+                int x = (tile % columns) * tileSize;
+                int y = (tile / columns) * tileSize;
+                image.getRaster().setRect(x, y, tiles.get(tile).get().getRaster());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel(tiles);
+            throw new CancellationException("Tile rendering interrupted");
+        } catch (ExecutionException e) {
+            cancel(tiles);
+            throw new IllegalStateException("Tile rendering failed", e.getCause());
+        }
+    }
+
+    /**
+     * Stops the worker threads. The rasterizer must not be used afterwards.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Cancels the tiles that have not been rendered yet
+     * @param tiles The tiles
+     */
+    private static void cancel(ArrayList<Future<BufferedImage>> tiles) {
+        for (Future<BufferedImage> tile : tiles) {
+            tile.cancel(true);
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Tiling
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Puts the index of each element in the bucket of every tile its bounds overlap, keeping the original order
+     * @param elements The elements
+     * @param columns The number of tile columns
+     * @param rows The number of tile rows
+     * @param scale The scale from element coordinates to image pixels
+     * @return The bucket of each tile, row by row, each sized to its number of elements
+     */
+    private int[][] bucketElements(FractalElementBuffer elements, int columns, int rows, double scale) {
+        int[] counts = new int[columns * rows];
+        int[] bounds = new int[4];
+        int[] tileRange = new int[4];
+        for (int index = 0; index < elements.size(); index++) {
+            if (tileRange(elements.getBounds(index, bounds), columns, rows, scale, tileRange)) {
+                for (int row = tileRange[1]; row <= tileRange[3]; row++) {
+                    for (int column = tileRange[0]; column <= tileRange[2]; column++) {
+                        counts[row * columns + column]++;
+                    }
+                }
+            }
+        }
+
+        int[][] buckets = new int[counts.length][];
+        for (int tile = 0; tile < counts.length; tile++) {
+            buckets[tile] = new int[counts[tile]];
+            counts[tile] = 0;
+        }
+        for (int index = 0; index < elements.size(); index++) {
+            if (tileRange(elements.getBounds(index, bounds), columns, rows, scale, tileRange)) {
+                for (int row = tileRange[1]; row <= tileRange[3]; row++) {
+                    for (int column = tileRange[0]; column <= tileRange[2]; column++) {
+                        int tile = row * columns + column;
+                        buckets[tile][counts[tile]++] = index;
+                    }
+                }
+            }
+        }
+        return buckets;
+    }
+
+    /**
+     * Calculates the range of tiles that element bounds overlap, with a pixel of margin for rounding
+     * @param bounds The element bounds, as min x, min y, max x and max y
+     * @param columns The number of tile columns
+     * @param rows The number of tile rows
+     * @param scale The scale from element coordinates to image pixels
+     * @param range The array to store the first column, first row, last column and last row in
+     * @return Whether the element overlaps any tile
+     */
+    private boolean tileRange(int[] bounds, int columns, int rows, double scale, int[] range) {
+        range[0] = Math.max(0, (int) Math.floor((bounds[0] * scale - 1) / tileSize));
+        range[1] = Math.max(0, (int) Math.floor((bounds[1] * scale - 1) / tileSize));
+        range[2] = Math.min(columns - 1, (int) Math.floor((bounds[2] * scale + 1) / tileSize));
+        range[3] = Math.min(rows - 1, (int) Math.floor((bounds[3] * scale + 1) / tileSize));
+        return range[0] <= range[2] && range[1] <= range[3];
+    }
+
+    /**
+     * Task that renders the elements of one tile into its own image
+     */
+    private static class TileTask implements Callable<BufferedImage> {
+
+        /** The elements */
+        private final FractalElementBuffer elements;
+
+        /** The indices of the elements overlapping the tile, in drawing order */
+        private final int[] bucket;
+
+        /** The image the tile is copied into, whose pixels are drawn over when there is no background color */
+        private final BufferedImage image;
+
+        /** The x coordinate of the tile in the image */
+        private final int x;
+
+        /** The y coordinate of the tile in the image */
+        private final int y;
+
+        /** The width of the tile */
+        private final int width;
+
+        /** The height of the tile */
+        private final int height;
+
+        /** The background color, or null to draw over the pixels of the image */
+        private final Color background;
+
+        /** The scale from element coordinates to image pixels */
+        private final double scale;
+
+        /** Whether to draw in batches of one shape and color */
+        private final boolean batched;
+
+        /**
+         * Constructor for the TileTask class
+         * @param elements The elements
+         * @param bucket The indices of the elements overlapping the tile, in drawing order
+         * @param image The image the tile is copied into
+         * @param x The x coordinate of the tile in the image
+         * @param y The y coordinate of the tile in the image
+         * @param width The width of the tile
+         * @param height The height of the tile
+         * @param background The background color, or null to draw over the pixels of the image
+         * @param scale The scale from element coordinates to image pixels
+         * @param batched Whether to draw in batches of one shape and color
+         */
+        TileTask(FractalElementBuffer elements, int[] bucket, BufferedImage image, int x, int y, int width,
+                 int height, Color background, double scale, boolean batched) {
+            this.elements = elements;
+            this.bucket = bucket;
+            this.image = image;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+            this.background = background;
+            this.scale = scale;
+            this.batched = batched;
+        }
+
+        @Override
+        public BufferedImage call() {
+            // Same pixel layout as the image, so the tile is copied into it sample by sample
+            BufferedImage tile = new BufferedImage(image.getColorModel(),
+                    image.getRaster().createCompatibleWritableRaster(width, height),
+                    image.isAlphaPremultiplied(), null);
+            if (background == null) {
+                // Only this tile's part of the image is read, and it is only written once the tile is done
+                tile.setData(image.getRaster().createChild(x, y, width, height, 0, 0, null));
+            }
+            Graphics2D g = tile.createGraphics();
+            if (background != null) {
+                g.setColor(background);
+                g.fillRect(0, 0, width, height);
+            }
+            g.translate(-x, -y);
+            g.scale(scale, scale);
+            if (batched) {
+                elements.drawBatched(g, bucket, bucket.length);
+            } else {
+                elements.draw(g, bucket, bucket.length);
+            }
+            g.dispose();
+            return tile;
+        }
+    }
+}
@@ -0,0 +1,458 @@
+import java.util.ArrayList;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The parameters a {@link FractalType} generates a fractal from, read from the {@link FractalGenerator} in one go,
+ * together with the services every type shares: seeded colors, cancellation, running parts of the fractal in parallel
+ * and mapping the canvas to a zoomed view. A request is immutable, so parts of a fractal can read it from any thread.
+ * <p>
+ * Colors are chosen from keys, as in the {@link SierpinskiEngine}: the root of the fractal gets a key from the seed,
+ * every child gets a key from its parent's key and its position, and each shape of a node gets a color from its key
+ * and a slot. A node therefore gets the same colors however the fractal is traversed or split into parts.
+ * </p>
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+
+//--------------------------------------------------------------------------------------------------------------------//
+// Contents
+// 1. Instance Variables
+// 2. Constructor
+// 3. Get Methods
+// 4. Colors
+// 5. Cancellation
+// 6. Parallel Parts
+// 7. Zoomed View
+//--------------------------------------------------------------------------------------------------------------------//
+
+public final class FractalRequest {
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Instance Variables
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /** The recursion depth */
+    private final int depth;
+
+    /** The bounding triangle on the canvas, as six coordinates */
+    private final int[] triangle;
+
+    /** The zoom and pan of the canvas */
+    private final FractalView view;
+
+    /** The width of the canvas on screen */
+    private final int canvasWidth;
+
+    /** The height of the canvas on screen */
+    private final int canvasHeight;
+
+    /** The smallest size of a shape drawn in detail, in screen units, or 0 to draw every level in detail */
+    private final double minSize;
+
+    /** The packed colors to choose from */
+    private final int[] palette;
+
+    /** The circle opacity */
+    private final int circleOpacity;
+
+    /** The seed for choosing colors */
+    private final long seed;
+
+    /** The fork/join pool parts are generated on, or null to generate them on the calling thread */
+    private final ForkJoinPool pool;
+
+    /** The recursion depth at or above which parts are generated in parallel */
+    private final int parallelThreshold;
+
+    /** Checked while generating, to stop early */
+    private final BooleanSupplier cancelled;
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Constructor
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Constructor for the FractalRequest class
+     * @param depth The recursion depth
+     * @param triangle The bounding triangle on the canvas, as six coordinates
+     * @param view The zoom and pan of the canvas
+     * @param canvasWidth The width of the canvas on screen
+     * @param canvasHeight The height of the canvas on screen
+     * @param minSize The smallest size of a shape drawn in detail, in screen units, or 0 to draw every level in detail
+     * @param palette The packed colors to choose from
+     * @param circleOpacity The circle opacity
+     * @param seed The seed for choosing colors
+     * @param pool The fork/join pool parts are generated on, or null to generate them on the calling thread
+     * @param parallelThreshold The recursion depth at or above which parts are generated in parallel
+     * @param cancelled Checked while generating, to stop early
+     */
+    public FractalRequest(int depth, int[] triangle, FractalView view, int canvasWidth, int canvasHeight,
+                          double minSize, int[] palette, int circleOpacity, long seed, ForkJoinPool pool,
+                          int parallelThreshold, BooleanSupplier cancelled) {
+        this.depth = depth;
+        this.triangle = triangle.clone();
+        this.view = view;
+        this.canvasWidth = canvasWidth;
+        this.canvasHeight = canvasHeight;
+        this.minSize = minSize;
+        this.palette = palette.clone();
+        this.circleOpacity = circleOpacity;
+        this.seed = seed;
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+        this.cancelled = cancelled;
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Get Methods
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Gets the recursion depth
+     * @return The recursion depth
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Gets the bounding triangle on the canvas, 600 wide and 520 high on the default canvas
+     * @return A copy of the six coordinates
+     */
+    public int[] getTriangle() {
+        return triangle.clone();
+    }
+
+    /**
+     * Gets the left edge of the box around the bounding triangle, which fractals of other shapes are fitted into
+     * @return The smallest x coordinate of the bounding triangle
+     */
+    public int getLeft() {
+        return Math.min(triangle[0], Math.min(triangle[2], triangle[4]));
+    }
+
+    /**
+     * Gets the top edge of the box around the bounding triangle
+     * @return The smallest y coordinate of the bounding triangle
+     */
+    public int getTop() {
+        return Math.min(triangle[1], Math.min(triangle[3], triangle[5]));
+    }
+
+    /**
+     * Gets the width of the box around the bounding triangle
+     * @return The width
+     */
+    public int getWidth() {
+        return Math.max(triangle[0], Math.max(triangle[2], triangle[4])) - getLeft();
+    }
+
+    /**
+     * Gets the height of the box around the bounding triangle
+     * @return The height
+     */
+    public int getHeight() {
+        return Math.max(triangle[1], Math.max(triangle[3], triangle[5])) - getTop();
+    }
+
+    /**
+     * Gets the zoom and pan of the canvas
+     * @return The view
+     */
+    public FractalView getView() {
+        return view;
+    }
+
+    /**
+     * Gets the width of the canvas on screen
+     * @return The width
+     */
+    public int getCanvasWidth() {
+        return canvasWidth;
+    }
+
+    /**
+     * Gets the height of the canvas on screen
+     * @return The height
+     */
+    public int getCanvasHeight() {
+        return canvasHeight;
+    }
+
+    /**
+     * Gets the level of detail: shapes smaller than this on screen may be drawn in less detail
+     * @return The smallest size of a shape drawn in detail, in screen units, or 0 to draw every level in detail
+     */
+    public double getMinSize() {
+        return minSize;
+    }
+
+    /**
+     * Gets the packed colors to choose from
+     * @return A copy of the packed colors
+     */
+    public int[] getPalette() {
+        return palette.clone();
+    }
+
+    /**
+     * Gets the circle opacity
+     * @return The circle opacity
+     */
+    public int getCircleOpacity() {
+        return circleOpacity;
+    }
+
+    /**
+     * Gets the seed for choosing colors
+     * @return The seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Colors
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Gets the key of the root of the fractal
+     * @return The root key
+     */
+    public long getRootKey() {
+        return SierpinskiEngine.rootKey(seed);
+    }
+
+    /**
+     * Calculates the key of a child from the key of its parent
+     * @param key The key of the parent
+     * @param child The position of the child among its siblings, from 0
+     * @return The key of the child
+     */
+    public static long childKey(long key, int child) {
+        return SierpinskiEngine.childKey(key, child);
+    }
+
+    /**
+     * Chooses the color of a filled shape, which is the color a circle of the same node gets before its opacity
+     * @param key The key of the node
+     * @return The packed color
+     */
+    public int fillColor(long key) {
+        return SierpinskiEngine.chooseColor(palette, key, SierpinskiEngine.CIRCLE_SLOT);
+    }
+
+    /**
+     * Chooses the second color of a node, which the outlined triangles of the Sierpinski triangle get
+     * @param key The key of the node
+     * @return The packed color
+     */
+    public int accentColor(long key) {
+        return SierpinskiEngine.chooseColor(palette, key, SierpinskiEngine.TRIANGLE_SLOT);
+    }
+
+    /**
+     * Chooses the color of a circle, with the circle opacity as its alpha
+     * @param key The key of the node
+     * @return The packed ARGB color
+     */
+    public int circleColor(long key) {
+        return (circleOpacity << 24) | (fillColor(key) & 0xFFFFFF);
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Cancellation
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Checks whether the parameters changed since the request was made, so its elements are no longer needed
+     * @return Whether the request is cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled.getAsBoolean();
+    }
+
+    /**
+     * Stops the generation if the request is cancelled
+     * @throws CancellationException If the request is cancelled
+     */
+    public void checkCancelled() {
+        if (cancelled.getAsBoolean()) {
+            throw new CancellationException();
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Parallel Parts
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Generates independent parts of a fractal, such as the subtrees of its root, and sends their elements to the sink
+     * in part order. Fractals at least as deep as the parallel threshold generate each part into its own buffer on the
+     * fork/join pool; otherwise, and when streaming, the parts are generated one after another straight into the
+     * sink. A part may split itself further with this method.
+     * @param count The number of parts
+     * @param part Generates one part
+     * @param sink The sink to send the elements to
+     * @throws CancellationException If a part finds the request cancelled
+     */
+    public void generateParts(int count, Part part, FractalSink sink) {
+        if (pool == null || depth < parallelThreshold || count < 2) {
+            for (int index = 0; index < count; index++) {
+                part.generate(index, sink);
+            }
+            return;
+        }
+        ArrayList<ForkJoinTask<FractalElementBuffer>> tasks = new ArrayList<>(count);
+        for (int index = 0; index < count; index++) {
+            int partIndex = index;
+            tasks.add(ForkJoinTask.adapt(() -> {
+                FractalElementBuffer elements = new FractalElementBuffer();
+                part.generate(partIndex, elements);
+                return elements;
+            }));
+        }
+        if (ForkJoinTask.getPool() == pool) {
+            ForkJoinTask.invokeAll(tasks);
+        } else {
+            for (ForkJoinTask<FractalElementBuffer> task : tasks) {
+                pool.execute(task);
+            }
+        }
+        for (ForkJoinTask<FractalElementBuffer> task : tasks) {
+            FractalElementBuffer elements = task.join();
+            if (sink instanceof FractalElementBuffer) {
+                ((FractalElementBuffer) sink).addAll(elements);
+            } else {
+                elements.writeTo(sink);
+            }
+        }
+    }
+
+    /**
+     * Generates one part of a fractal for {@link #generateParts(int, Part, FractalSink)}
+     */
+    @FunctionalInterface
+    public interface Part {
+
+        /**
+         * This method is used to generate the elements of one part.
+         * @param part the index of the part, from 0
+         * @param sink the sink to send the elements to
+         */
+        void generate(int part, FractalSink sink);
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Zoomed View
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Wraps a sink so elements generated on the canvas are sent to it in screen coordinates of the view. Elements that
+     * fall entirely outside the screen are dropped. Without a zoom or pan, the sink itself is returned.
+     * @param sink The sink that receives elements in screen coordinates
+     * @return The sink to send elements on the canvas to
+     */
+    public FractalSink toScreen(FractalSink sink) {
+        return view.isIdentity() ? sink : new ScreenSink(sink, view, canvasWidth, canvasHeight);
+    }
+
+    /**
+     * Sink that maps elements from the canvas to the screen and drops those outside it
+     */
+    private static final class ScreenSink implements FractalSink {
+
+        /** The sink that receives the elements in screen coordinates */
+        private final FractalSink out;
+
+        /** The zoom and pan of the canvas */
+        private final FractalView view;
+
+        /** The width of the screen */
+        private final double width;
+
+        /** The height of the screen */
+        private final double height;
+
+        /**
+         * Constructor for the ScreenSink class
+         * @param out The sink that receives the elements in screen coordinates
+         * @param view The zoom and pan of the canvas
+         * @param width The width of the screen
+         * @param height The height of the screen
+         */
+        ScreenSink(FractalSink out, FractalView view, double width, double height) {
+            this.out = out;
+            this.view = view;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public void addCircle(float centerX, float centerY, float radius, int argb) {
+            double x = view.toScreenX(centerX);
+            double y = view.toScreenY(centerY);
+            double r = radius * view.getZoom();
+            if (isVisible(x - r, y - r, x + r, y + r)) {
+                out.addCircle((float) x, (float) y, (float) r, argb);
+            }
+        }
+
+        @Override
+        public void addTriangle(float x1, float y1, float x2, float y2, float x3, float y3, int argb) {
+            double sx1 = view.toScreenX(x1);
+            double sy1 = view.toScreenY(y1);
+            double sx2 = view.toScreenX(x2);
+            double sy2 = view.toScreenY(y2);
+            double sx3 = view.toScreenX(x3);
+            double sy3 = view.toScreenY(y3);
+            if (isVisible(sx1, sy1, sx2, sy2, sx3, sy3)) {
+                out.addTriangle((float) sx1, (float) sy1, (float) sx2, (float) sy2, (float) sx3, (float) sy3, argb);
+            }
+        }
+
+        @Override
+        public void addFilledTriangle(float x1, float y1, float x2, float y2, float x3, float y3, int argb) {
+            double sx1 = view.toScreenX(x1);
+            double sy1 = view.toScreenY(y1);
+            double sx2 = view.toScreenX(x2);
+            double sy2 = view.toScreenY(y2);
+            double sx3 = view.toScreenX(x3);
+            double sy3 = view.toScreenY(y3);
+            if (isVisible(sx1, sy1, sx2, sy2, sx3, sy3)) {
+                out.addFilledTriangle((float) sx1, (float) sy1, (float) sx2, (float) sy2, (float) sx3, (float) sy3,
+                        argb);
+            }
+        }
+
+        /**
+         * Checks whether the box around three points overlaps the screen
+         * @param x1 The x coordinate of the first point
+         * @param y1 The y coordinate of the first point
+         * @param x2 The x coordinate of the second point
+         * @param y2 The y coordinate of the second point
+         * @param x3 The x coordinate of the third point
+         * @param y3 The y coordinate of the third point
+         * @return Whether the box overlaps the screen
+         */
+        private boolean isVisible(double x1, double y1, double x2, double y2, double x3, double y3) {
+            return isVisible(Math.min(x1, Math.min(x2, x3)), Math.min(y1, Math.min(y2, y3)),
+                    Math.max(x1, Math.max(x2, x3)), Math.max(y1, Math.max(y2, y3)));
+        }
+
+        /**
+         * Checks whether a box overlaps the screen
+         * @param minX The left edge of the box
+         * @param minY The top edge of the box
+         * @param maxX The right edge of the box
+         * @param maxY The bottom edge of the box
+         * @return Whether the box overlaps the screen
+         */
+        private boolean isVisible(double minX, double minY, double maxX, double maxY) {
+            return maxX >= 0 && maxY >= 0 && minX <= width && minY <= height;
+        }
+    }
+}
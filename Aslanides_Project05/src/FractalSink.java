@@ -0,0 +1,43 @@
+/**
+ * Interface for anything that receives fractal elements as they are generated, one primitive record at a time.
+ * Generating into a sink that does not keep the elements, such as an SVG writer, never holds the whole fractal in
+ * memory.
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+public interface FractalSink {
+
+    /**
+     * This method is used to receive a circle.
+     * @param centerX The x coordinate of the center
+     * @param centerY The y coordinate of the center
+     * @param radius The radius
+     * @param argb The packed ARGB color, where the alpha is the opacity of the circle
+     */
+    void addCircle(float centerX, float centerY, float radius, int argb);
+
+    /**
+     * This method is used to receive a triangle.
+     * @param x1 The x coordinate of the first point
+     * @param y1 The y coordinate of the first point
+     * @param x2 The x coordinate of the second point
+     * @param y2 The y coordinate of the second point
+     * @param x3 The x coordinate of the third point
+     * @param y3 The y coordinate of the third point
+     * @param argb The packed ARGB color
+     */
+    void addTriangle(float x1, float y1, float x2, float y2, float x3, float y3, int argb);
+
+    /**
+     * This method is used to receive a filled triangle, which stands in for a triangle and everything generated
+     * below it when they are too small to draw in detail.
+     * @param x1 The x coordinate of the first point
+     * @param y1 The y coordinate of the first point
+     * @param x2 The x coordinate of the second point
+     * @param y2 The y coordinate of the second point
+     * @param x3 The x coordinate of the third point
+     * @param y3 The y coordinate of the third point
+     * @param argb The packed ARGB color
+     */
+    void addFilledTriangle(float x1, float y1, float x2, float y2, float x3, float y3, int argb);
+}
@@ -0,0 +1,107 @@
+/**
+ * An immutable view of the fractal elements at one point in time, together with their version. The generator
+ * publishes a new snapshot every time the elements change, and readers take the latest one without locking or
+ * copying. Versions only ever increase, so an observer that remembers the version it last drew can skip the work when
+ * nothing changed.
+ * <p>
+ * A snapshot also holds a {@link FractalSpatialIndex} of its elements. The generator supplies a
+ * {@link SierpinskiTreeIndex} when the elements follow the Sierpinski recursion, which costs nothing to create; any
+ * other elements get a {@link FractalGridIndex}, built the first time the index is asked for.
+ * </p>
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+
+//--------------------------------------------------------------------------------------------------------------------//
+// Contents
+// 1. Static Variables
+// 2. Instance Variables
+// 3. Constructor
+// 4. Get Methods
+//--------------------------------------------------------------------------------------------------------------------//
+
+public final class FractalSnapshot {
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Static Variables
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /** The snapshot before any elements are generated: no elements, at version 0 */
+    public static final FractalSnapshot EMPTY = new FractalSnapshot(new FractalElementBuffer(0), 0);
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Instance Variables
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /** The elements, frozen */
+    private final FractalElementBuffer elements;
+
+    /** The version of the elements */
+    private final long version;
+
+    /** The spatial index of the elements, or null until the grid index is built */
+    private volatile FractalSpatialIndex index;
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Constructor
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Constructor for the FractalSnapshot class. The elements are frozen, so they can no longer be changed.
+     * @param elements The elements
+     * @param version The version of the elements
+     */
+    public FractalSnapshot(FractalElementBuffer elements, long version) {
+        this(elements, version, null);
+    }
+
+    /**
+     * Constructor for a FractalSnapshot with a spatial index of its elements. The elements are frozen, so they can no
+     * longer be changed.
+     * @param elements The elements
+     * @param version The version of the elements
+     * @param index The spatial index of the elements, or null to build a grid index when it is first needed
+     */
+    public FractalSnapshot(FractalElementBuffer elements, long version, FractalSpatialIndex index) {
+        if (index != null && index.getElements() != elements) {
+            throw new IllegalArgumentException("The index is for other elements");
+        }
+        this.elements = elements.freeze();
+        this.version = version;
+        this.index = index;
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Get Methods
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Gets the elements. The buffer is frozen and shared by every reader of this snapshot.
+     * @return The elements
+     */
+    public FractalElementBuffer getElements() {
+        return elements;
+    }
+
+    /**
+     * Gets the version of the elements
+     * @return The version, greater than that of every earlier snapshot of the same generator
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the spatial index of the elements, building a grid index first if the snapshot has none. Threads asking at
+     * the same time may each build one, which gives the same answers.
+     * @return The index
+     */
+    public FractalSpatialIndex getIndex() {
+        FractalSpatialIndex current = index;
+        if (current == null) {
+            current = new FractalGridIndex(elements);
+            index = current;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * Interface for spatial indexes over the elements of a frozen {@link FractalElementBuffer}, which find the elements
+ * in a region or under a point without scanning every element. Hit-testing, painting only a clipped region and
+ * viewport queries all go through an index.
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+public interface FractalSpatialIndex {
+
+    /**
+     * This method is used to get the indexed elements, which the indices returned by the queries refer to.
+     * @return The elements
+     */
+    FractalElementBuffer getElements();
+
+    /**
+     * This method is used to find the elements whose bounds overlap a rectangle.
+     * @param minX The left edge of the rectangle, in element coordinates
+     * @param minY The top edge of the rectangle
+     * @param maxX The right edge of the rectangle, exclusive
+     * @param maxY The bottom edge of the rectangle, exclusive
+     * @return The indices of the elements, in drawing order
+     */
+    int[] query(int minX, int minY, int maxX, int maxY);
+
+    /**
+     * This method is used to find the elements whose shapes contain a point.
+     * @param x The x coordinate of the point, in element coordinates
+     * @param y The y coordinate of the point
+     * @return The indices of the elements, in drawing order
+     */
+    int[] queryPoint(float x, float y);
+
+    /**
+     * This method is used to get the path from the root of the fractal to the triangle an element belongs to.
+     * @param index The index of the element
+     * @return The corner, from 0 to 2, taken at each level below the root, or null if the index does not know how the
+     *         elements were generated
+     */
+    int[] getPath(int index);
+}
@@ -1,4 +1,4 @@
-import java.util.ArrayList;
+import java.util.concurrent.Executor;
 
 /**
  * Interface for the FractalGenerator class
@@ -14,6 +14,14 @@ public interface FractalSubject {
      */
     void registerObserver(FractalObserver observer);
 
+    /**
+     * This method is used to register an observer that is updated on an executor instead of the notifying thread.
+     * Updates for the observer may be dropped while an earlier one is still waiting to run.
+     * @param observer The observer
+     * @param executor The executor to update the observer on
+     */
+    void registerObserver(FractalObserver observer, Executor executor);
+
     /**
      * This method is used to remove an observer.
      * @param observer The observer
@@ -27,7 +35,24 @@ public interface FractalSubject {
 
     /**
      * This method is used to retrieve the data on the fractal elements.
-     * @return an ArrayList of FractalElements
+     * Use {@link FractalElementBuffer#toElements()} for the elements as FractalElement objects.
+     * @return a frozen FractalElementBuffer holding the fractal elements
+     */
+    FractalElementBuffer getData();
+
+    /**
+     * This method is used to retrieve the fractal elements together with their version.
+     * The snapshot is immutable and shared, so taking it costs no copy, and its version tells observers
+     * whether anything changed since the snapshot they used last.
+     * @return the latest snapshot of the fractal elements
+     */
+    FractalSnapshot getSnapshot();
+
+    /**
+     * This method is used to retrieve the version of the data on the fractal elements.
+     * The version increases every time the elements are regenerated, so observers can tell whether
+     * the data has changed since they last retrieved it.
+     * @return the version of the fractal elements
      */
-    ArrayList<FractalElement> getData();
+    long getDataVersion();
 }
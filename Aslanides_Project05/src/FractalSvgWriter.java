@@ -0,0 +1,277 @@
+import java.awt.Color;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Sink that writes fractal elements to an SVG document as they arrive, so the document is never held in memory.
+ * Circles become filled circles and triangles become outlined or filled polygons, with the same integer coordinates
+ * used when the elements are drawn on screen.
+ * <p>
+ * The markup is encoded straight into a direct byte buffer, which is written to the channel whenever it fills up.
+ * As {@link FractalSink} methods cannot throw checked exceptions, write failures are reported as
+ * {@link UncheckedIOException}.
+ * </p>
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+
+//--------------------------------------------------------------------------------------------------------------------//
+// Contents
+// 1. Static Variables
+// 2. Instance Variables
+// 3. Constructor
+// 4. Sink Methods
+// 5. Encoding
+//--------------------------------------------------------------------------------------------------------------------//
+
+public class FractalSvgWriter implements FractalSink, Closeable {
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Static Variables
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /** The size of the output buffer, in bytes */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** The hex digits */
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes();
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Instance Variables
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /** The channel the document is written to */
+    private final WritableByteChannel channel;
+
+    /** The output buffer */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Constructor
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Constructor for the FractalSvgWriter class. Writes the start of the document and the background.
+     * @param channel The channel to write the document to
+     * @param width The width of the document
+     * @param height The height of the document
+     * @param background The background color
+     */
+    public FractalSvgWriter(WritableByteChannel channel, int width, int height, Color background) {
+        this.channel = channel;
+        put("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"");
+        put(width);
+        put("\" height=\"");
+        put(height);
+        put("\" viewBox=\"0 0 ");
+        put(width);
+        put(' ');
+        put(height);
+        put("\">\n<rect width=\"100%\" height=\"100%\" fill=\"");
+        putHex(background.getRGB());
+        put("\"/>\n");
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Sink Methods
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Writes a filled circle
+     * <br><br>
+     * {@inheritDoc}
+     * @param centerX The x coordinate of the center
+     * @param centerY The y coordinate of the center
+     * @param radius The radius
+     * @param argb The packed ARGB color
+     */
+    @Override
+    public void addCircle(float centerX, float centerY, float radius, int argb) {
+        put("<circle cx=\"");
+        put((int) centerX);
+        put("\" cy=\"");
+        put((int) centerY);
+        put("\" r=\"");
+        put((int) radius);
+        put("\" fill=\"");
+        putHex(argb);
+        put('"');
+        putOpacity(" fill-opacity=\"", argb);
+        put("/>\n");
+    }
+
+    /**
+     * Writes an outlined triangle
+     * <br><br>
+     * {@inheritDoc}
+     * @param x1 The x coordinate of the first point
+     * @param y1 The y coordinate of the first point
+     * @param x2 The x coordinate of the second point
+     * @param y2 The y coordinate of the second point
+     * @param x3 The x coordinate of the third point
+     * @param y3 The y coordinate of the third point
+     * @param argb The packed ARGB color
+     */
+    @Override
+    public void addTriangle(float x1, float y1, float x2, float y2, float x3, float y3, int argb) {
+        putPolygon(x1, y1, x2, y2, x3, y3);
+        put("\" fill=\"none\" stroke=\"");
+        putHex(argb);
+        put('"');
+        putOpacity(" stroke-opacity=\"", argb);
+        put("/>\n");
+    }
+
+    /**
+     * Writes a filled triangle
+     * <br><br>
+     * {@inheritDoc}
+     * @param x1 The x coordinate of the first point
+     * @param y1 The y coordinate of the first point
+     * @param x2 The x coordinate of the second point
+     * @param y2 The y coordinate of the second point
+     * @param x3 The x coordinate of the third point
+     * @param y3 The y coordinate of the third point
+     * @param argb The packed ARGB color
+     */
+    @Override
+    public void addFilledTriangle(float x1, float y1, float x2, float y2, float x3, float y3, int argb) {
+        putPolygon(x1, y1, x2, y2, x3, y3);
+        put("\" fill=\"");
+        putHex(argb);
+        put('"');
+        putOpacity(" fill-opacity=\"", argb);
+        put("/>\n");
+    }
+
+    /**
+     * Writes the end of the document and closes the channel
+     * @throws IOException If writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            put("</svg>\n");
+            flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            channel.close();
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Encoding
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Writes the start of a polygon element, up to the last of its points
+     * @param x1 The x coordinate of the first point
+     * @param y1 The y coordinate of the first point
+     * @param x2 The x coordinate of the second point
+     * @param y2 The y coordinate of the second point
+     * @param x3 The x coordinate of the third point
+     * @param y3 The y coordinate of the third point
+     */
+    private void putPolygon(float x1, float y1, float x2, float y2, float x3, float y3) {
+        put("<polygon points=\"");
+        put((int) x1);
+        put(',');
+        put((int) y1);
+        put(' ');
+        put((int) x2);
+        put(',');
+        put((int) y2);
+        put(' ');
+        put((int) x3);
+        put(',');
+        put((int) y3);
+    }
+
+    /**
+     * Writes an ASCII string
+     * @param text The string
+     */
+    private void put(String text) {
+        for (int index = 0; index < text.length(); index++) {
+            put(text.charAt(index));
+        }
+    }
+
+    /**
+     * Writes an ASCII character
+     * @param character The character
+     */
+    private void put(char character) {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put((byte) character);
+    }
+
+    /**
+     * Writes an integer in decimal
+     * @param value The integer
+     */
+    private void put(int value) {
+        if (value < 0) {
+            put('-');
+            value = -value;
+        }
+        int divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        while (divisor > 0) {
+            put((char) ('0' + value / divisor % 10));
+            divisor /= 10;
+        }
+    }
+
+    /**
+     * Writes the RGB part of a packed color as a hex color, such as #2f2059
+     * @param argb The packed ARGB color
+     */
+    private void putHex(int argb) {
+        put('#');
+        for (int shift = 20; shift >= 0; shift -= 4) {
+            put((char) HEX_DIGITS[(argb >>> shift) & 0xF]);
+        }
+    }
+
+    /**
+     * Writes the alpha of a packed color as an opacity attribute with three decimals, or nothing if it is opaque
+     * @param attribute The attribute name with its leading space, equals sign and opening quote
+     * @param argb The packed ARGB color
+     */
+    private void putOpacity(String attribute, int argb) {
+        int alpha = argb >>> 24;
+        if (alpha != 255) {
+            int thousandths = Math.round(alpha * 1000 / 255f);
+            put(attribute);
+            put("0.");
+            put((char) ('0' + thousandths / 100));
+            put((char) ('0' + thousandths / 10 % 10));
+            put((char) ('0' + thousandths % 10));
+            put('"');
+        }
+    }
+
+    /**
+     * Writes the buffered bytes to the channel
+     */
+    private void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,145 @@
+import java.awt.Color;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Scanner;
+
+/**
+ * The color themes read from a theme file such as Fractal_Themes.csv. The file starts with a header line, followed by
+ * each theme's name on a line of its own and then its colors as red,green,blue lines.
+ * This class has no Swing dependencies, so it can be used by both the GUI and headless exports.
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+
+//--------------------------------------------------------------------------------------------------------------------//
+// Contents
+// 1. Static Variables
+// 2. Instance Variables
+// 3. Constructor
+// 4. Loading
+// 5. Get Methods
+//--------------------------------------------------------------------------------------------------------------------//
+
+public class FractalThemes {
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Static Variables
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /** The number of colors in each theme */
+    public static final int THEME_SIZE = 5;
+
+    /** The default theme file */
+    public static final String DEFAULT_FILE = "Fractal_Themes.csv";
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Instance Variables
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /** The names of the themes */
+    private final ArrayList<String> names;
+
+    /** The colors of all themes, in theme order */
+    private final ArrayList<Color> colors;
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Constructor
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Constructor for the FractalThemes class
+     * @param names The names of the themes
+     * @param colors The colors of all themes, in theme order
+     */
+    public FractalThemes(ArrayList<String> names, ArrayList<Color> colors) {
+        this.names = names;
+        this.colors = colors;
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Loading
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Reads the themes from a theme file
+     * @param themeFile The theme file
+     * @return The themes
+     * @throws FileNotFoundException If the theme file does not exist
+     */
+    public static FractalThemes load(File themeFile) throws FileNotFoundException {
+        ArrayList<String> names = new ArrayList<>();
+        ArrayList<Color> colors = new ArrayList<>();
+
+        try (Scanner input = new Scanner(themeFile)) {
+            input.useDelimiter(",");
+            input.nextLine();
+
+            while (input.hasNextLine()) {
+                String line = input.nextLine();
+                if (!line.isEmpty()) {
+                    String[] parts = line.split(",");
+                    // If the line has only one part, it is a theme name
+                    if (parts.length == 1) {
+                        names.add(parts[0]);
+                        // If the line has three parts, it is a color
+                    } else if (parts.length == 3) {
+                        int r = Integer.parseInt(parts[0]);
+                        int g = Integer.parseInt(parts[1]);
+                        int b = Integer.parseInt(parts[2]);
+                        colors.add(new Color(r, g, b));
+                    }
+                }
+            }
+        }
+        return new FractalThemes(names, colors);
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Get Methods
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Gets the names of the themes
+     * @return The names, in file order
+     */
+    public ArrayList<String> getNames() {
+        return names;
+    }
+
+    /**
+     * Gets the colors of all themes
+     * @return The colors, {@link #THEME_SIZE} per theme in theme order
+     */
+    public ArrayList<Color> getColors() {
+        return colors;
+    }
+
+    /**
+     * Gets the colors of one theme
+     * @param index The index of the theme
+     * @return The theme's colors
+     */
+    public ArrayList<Color> getTheme(int index) {
+        ArrayList<Color> theme = new ArrayList<>();
+        for (int color = 0; color < THEME_SIZE; color++) {
+            theme.add(colors.get(index * THEME_SIZE + color));
+        }
+        return theme;
+    }
+
+    /**
+     * Gets the colors of a theme by name, ignoring case
+     * @param name The name of the theme
+     * @return The theme's colors
+     * @throws IllegalArgumentException If there is no theme with the name
+     */
+    public ArrayList<Color> getTheme(String name) {
+        for (int index = 0; index < names.size(); index++) {
+            if (names.get(index).equalsIgnoreCase(name)) {
+                return getTheme(index);
+            }
+        }
+        throw new IllegalArgumentException("Unknown theme: " + name);
+    }
+}
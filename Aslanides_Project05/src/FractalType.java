@@ -0,0 +1,43 @@
+/**
+ * Interface for a kind of fractal the {@link FractalGenerator} can generate, such as the Sierpinski triangle or the
+ * Koch snowflake. A fractal type only describes its recursion: the generator hands it a {@link FractalRequest} with
+ * the parameters and the shared services for seeding colors, running parts in parallel and mapping to a zoomed view,
+ * and stores, caches and publishes whatever the type sends to the sink.
+ * <p>
+ * Implementations must be stateless, or at least safe to call from several threads at once, as a type is shared by
+ * every generator. The types the program offers are listed in {@link FractalTypes}.
+ * </p>
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+public interface FractalType {
+
+    /**
+     * This method is used to retrieve the short name of the type, used in cache keys and on the command line.
+     * @return the identifier, in lower case without spaces
+     */
+    String getId();
+
+    /**
+     * This method is used to retrieve the name of the type shown to the user.
+     * @return the display name
+     */
+    String getName();
+
+    /**
+     * This method is used to retrieve the deepest recursion depth worth drawing on a canvas of the default size. The
+     * GUI offers depths up to this one.
+     * @return the greatest recursion depth
+     */
+    int getMaxDepth();
+
+    /**
+     * This method is used to generate the elements of the fractal, in drawing order. The elements are in screen
+     * coordinates of the request's view, which {@link FractalRequest#toScreen(FractalSink)} maps to for types that
+     * generate on the canvas.
+     * @param request the parameters of the fractal and the shared services
+     * @param sink the sink to send the elements to
+     * @throws java.util.concurrent.CancellationException if the request is cancelled before the elements are done
+     */
+    void generate(FractalRequest request, FractalSink sink);
+}
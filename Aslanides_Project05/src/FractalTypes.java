@@ -0,0 +1,84 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The fractal types the program can generate. A new type is added to the list in {@link #getAll()}, with an identifier
+ * no other type has.
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+public final class FractalTypes {
+
+    /** The Sierpinski triangle, generated by default */
+    public static final FractalType SIERPINSKI = new SierpinskiTriangle();
+
+    /** Every type, created on first use */
+    private static List<FractalType> types;
+
+    /** Unused constructor for the FractalTypes class */
+    private FractalTypes() {}
+
+    /**
+     * Gets every fractal type, in the order the GUI lists them
+     * @return An unmodifiable list of the types
+     */
+    public static synchronized List<FractalType> getAll() {
+        if (types == null) {
+            ArrayList<FractalType> all = new ArrayList<>();
+            all.add(SIERPINSKI);
+            all.add(new KochSnowflake());
+            all.add(new SierpinskiCarpet());
+            all.add(new HTree());
+            all.add(new PythagorasTree());
+            all.add(EscapeTimeFractal.mandelbrot());
+            all.add(EscapeTimeFractal.julia("julia", "Julia Set", -0.8, 0.156));
+            types = Collections.unmodifiableList(all);
+        }
+        return types;
+    }
+
+    /**
+     * Gets a fractal type by its identifier
+     * @param id The identifier, such as sierpinski or koch
+     * @return The type
+     * @throws IllegalArgumentException If there is no type with the identifier
+     */
+    public static FractalType forId(String id) {
+        FractalType type = find(getAll(), id);
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown fractal type: " + id);
+        }
+        return type;
+    }
+
+    /**
+     * Gets the identifiers of every fractal type
+     * @return The identifiers, separated by |
+     */
+    public static String getIds() {
+        StringBuilder ids = new StringBuilder();
+        for (FractalType type : getAll()) {
+            if (ids.length() > 0) {
+                ids.append('|');
+            }
+            ids.append(type.getId());
+        }
+        return ids.toString();
+    }
+
+    /**
+     * Finds a type by its identifier in a list
+     * @param types The types
+     * @param id The identifier
+     * @return The type, or null if none has the identifier
+     */
+    private static FractalType find(List<FractalType> types, String id) {
+        for (FractalType type : types) {
+            if (type.getId().equals(id)) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * An immutable zoom and pan of the canvas. The view maps canvas coordinates, in which the fractal is laid out, to
+ * screen coordinates: the canvas point at the origin is shown at the top left of the screen, magnified by the zoom.
+ * Zooming and panning return a new view, so a view can be shared between threads like a snapshot.
+ * <p>
+ * The mapping is kept in double precision, which resolves the deepest zoom as finely as the screen.
+ * </p>
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+
+//--------------------------------------------------------------------------------------------------------------------//
+// Contents
+// 1. Static Variables
+// 2. Instance Variables
+// 3. Constructor
+// 4. Get Methods
+// 5. Zoom and Pan
+//--------------------------------------------------------------------------------------------------------------------//
+
+public final class FractalView {
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Static Variables
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /** The view of the whole canvas, unzoomed */
+    public static final FractalView IDENTITY = new FractalView(0, 0, 1);
+
+    /** The greatest zoom, at which double precision still places points to a thousandth of a pixel */
+    public static final double MAX_ZOOM = 0x1p32;
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Instance Variables
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /** The x coordinate of the canvas point at the left of the screen */
+    private final double originX;
+
+    /** The y coordinate of the canvas point at the top of the screen */
+    private final double originY;
+
+    /** The number of screen pixels per unit of the canvas */
+    private final double zoom;
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Constructor
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Constructor for the FractalView class
+     * @param originX The x coordinate of the canvas point at the left of the screen
+     * @param originY The y coordinate of the canvas point at the top of the screen
+     * @param zoom The number of screen pixels per unit of the canvas, from 1 to {@link #MAX_ZOOM}
+     */
+    public FractalView(double originX, double originY, double zoom) {
+        if (!Double.isFinite(originX) || !Double.isFinite(originY) || !(zoom >= 1 && zoom <= MAX_ZOOM)) {
+            throw new IllegalArgumentException("Invalid view: origin (" + originX + ", " + originY + "), zoom "
+                    + zoom);
+        }
+        this.originX = originX;
+        this.originY = originY;
+        this.zoom = zoom;
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Get Methods
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Gets the x coordinate of the canvas point at the left of the screen
+     * @return The x coordinate of the origin
+     */
+    public double getOriginX() {
+        return originX;
+    }
+
+    /**
+     * Gets the y coordinate of the canvas point at the top of the screen
+     * @return The y coordinate of the origin
+     */
+    public double getOriginY() {
+        return originY;
+    }
+
+    /**
+     * Gets the number of screen pixels per unit of the canvas
+     * @return The zoom
+     */
+    public double getZoom() {
+        return zoom;
+    }
+
+    /**
+     * Gets whether this view shows the canvas as it is, unzoomed and unpanned
+     * @return Whether this view is the identity
+     */
+    public boolean isIdentity() {
+        return equals(IDENTITY);
+    }
+
+    /**
+     * Gets the number of recursion levels the zoom adds: one for every doubling, as each level halves the triangles
+     * @return The base 2 logarithm of the zoom, rounded down
+     */
+    public int getExtraDepth() {
+        return Math.getExponent(zoom);
+    }
+
+    /**
+     * Maps an x coordinate of the canvas to the screen
+     * @param x The x coordinate on the canvas
+     * @return The x coordinate on the screen
+     */
+    public double toScreenX(double x) {
+        return (x - originX) * zoom;
+    }
+
+    /**
+     * Maps a y coordinate of the canvas to the screen
+     * @param y The y coordinate on the canvas
+     * @return The y coordinate on the screen
+     */
+    public double toScreenY(double y) {
+        return (y - originY) * zoom;
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Zoom and Pan
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Zooms around a point of the screen, which stays where it is. The zoom is kept between 1 and {@link #MAX_ZOOM}.
+     * @param screenX The x coordinate of the point on the screen
+     * @param screenY The y coordinate of the point on the screen
+     * @param factor The factor to multiply the zoom by; greater than 1 zooms in
+     * @return The zoomed view
+     */
+    public FractalView zoomAt(double screenX, double screenY, double factor) {
+        double newZoom = Math.max(1, Math.min(MAX_ZOOM, zoom * factor));
+        return new FractalView(originX + screenX / zoom - screenX / newZoom,
+                originY + screenY / zoom - screenY / newZoom, newZoom);
+    }
+
+    /**
+     * Moves the canvas across the screen
+     * @param screenDx The distance to move right, in screen pixels
+     * @param screenDy The distance to move down, in screen pixels
+     * @return The panned view
+     */
+    public FractalView pan(double screenDx, double screenDy) {
+        return new FractalView(originX - screenDx / zoom, originY - screenDy / zoom, zoom);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof FractalView)) {
+            return false;
+        }
+        FractalView view = (FractalView) other;
+        return Double.compare(originX, view.originX) == 0 && Double.compare(originY, view.originY) == 0
+                && Double.compare(zoom, view.zoom) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = Double.hashCode(originX);
+        hash = 31 * hash + Double.hashCode(originY);
+        hash = 31 * hash + Double.hashCode(zoom);
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "FractalView[origin=(" + originX + ", " + originY + "), zoom=" + zoom + "]";
+    }
+}
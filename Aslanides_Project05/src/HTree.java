@@ -0,0 +1,125 @@
+/**
+ * The H-tree: an H whose four tips each hold an H of half the size, and so on, with a circle on every tip of the
+ * smallest H's. The lines of every H are sent as outlined triangles whose last two points are the same, which every
+ * sink draws as a line. A tree of depth n has (4<sup>n</sup> - 1) / 3 H's and 4<sup>n</sup> circles.
+ * <p>
+ * The four H's on the tips of the first one are generated as separate parts, in parallel for deep trees.
+ * </p>
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+public class HTree implements FractalType {
+
+    /** Unused constructor for the HTree class */
+    public HTree() {}
+
+    @Override
+    public String getId() {
+        return "h-tree";
+    }
+
+    @Override
+    public String getName() {
+        return "H-Tree";
+    }
+
+    @Override
+    public int getMaxDepth() {
+        return 8;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br><br>
+     * <p>The tree is the largest one that fits in the box around the bounding triangle, centered in it.</p>
+     * @param request The parameters of the fractal and the shared services
+     * @param sink The sink to send the elements to
+     */
+    @Override
+    public void generate(FractalRequest request, FractalSink sink) {
+        if (request.getDepth() <= 0) {
+            return;
+        }
+        // The arms halve at every level, so the whole tree reaches twice the first arm from the center
+        double arm = Math.min(request.getWidth(), request.getHeight()) / 4.0;
+        double centerX = request.getLeft() + request.getWidth() / 2.0;
+        double centerY = request.getTop() + request.getHeight() / 2.0;
+
+        FractalSink out = request.toScreen(sink);
+        long rootKey = request.getRootKey();
+        addH(request, out, centerX, centerY, arm, request.getDepth(), rootKey);
+        request.generateParts(4, (tip, part) -> generateH(request, part, centerX + tipX(tip) * arm,
+                centerY + tipY(tip) * arm, arm / 2, request.getDepth() - 1, FractalRequest.childKey(rootKey, tip)),
+                out);
+    }
+
+    /**
+     * Generates an H and the H's on its tips
+     * @param request The request, for colors and cancellation
+     * @param out The sink to send the elements to
+     * @param centerX The x coordinate of the center of the H
+     * @param centerY The y coordinate of the center of the H
+     * @param arm Half the width and height of the H
+     * @param level The number of levels of H's still to generate, including this one
+     * @param key The key of the H
+     */
+    private static void generateH(FractalRequest request, FractalSink out, double centerX, double centerY, double arm,
+                                  int level, long key) {
+        if (level <= 0) {
+            return;
+        }
+        request.checkCancelled();
+        addH(request, out, centerX, centerY, arm, level, key);
+        for (int tip = 0; tip < 4; tip++) {
+            generateH(request, out, centerX + tipX(tip) * arm, centerY + tipY(tip) * arm, arm / 2, level - 1,
+                    FractalRequest.childKey(key, tip));
+        }
+    }
+
+    /**
+     * Draws the three lines of an H, and circles on its tips if it is one of the smallest
+     * @param request The request, for colors
+     * @param out The sink to send the elements to
+     * @param centerX The x coordinate of the center of the H
+     * @param centerY The y coordinate of the center of the H
+     * @param arm Half the width and height of the H
+     * @param level The number of levels of H's still to generate, including this one
+     * @param key The key of the H
+     */
+    private static void addH(FractalRequest request, FractalSink out, double centerX, double centerY, double arm,
+                             int level, long key) {
+        int color = request.accentColor(key);
+        float left = (float) (centerX - arm);
+        float right = (float) (centerX + arm);
+        float top = (float) (centerY - arm);
+        float bottom = (float) (centerY + arm);
+        float middle = (float) centerY;
+        out.addTriangle(left, middle, right, middle, right, middle, color);
+        out.addTriangle(left, top, left, bottom, left, bottom, color);
+        out.addTriangle(right, top, right, bottom, right, bottom, color);
+        if (level == 1) {
+            for (int tip = 0; tip < 4; tip++) {
+                out.addCircle((float) (centerX + tipX(tip) * arm), (float) (centerY + tipY(tip) * arm),
+                        (float) (arm / 2), request.circleColor(FractalRequest.childKey(key, tip)));
+            }
+        }
+    }
+
+    /**
+     * Gets the side of the center a tip of an H is on, horizontally
+     * @param tip The tip, from 0 to 3: top left, top right, bottom left, bottom right
+     * @return -1 for the left tips, 1 for the right tips
+     */
+    private static int tipX(int tip) {
+        return (tip & 1) == 0 ? -1 : 1;
+    }
+
+    /**
+     * Gets the side of the center a tip of an H is on, vertically
+     * @param tip The tip, from 0 to 3: top left, top right, bottom left, bottom right
+     * @return -1 for the top tips, 1 for the bottom tips
+     */
+    private static int tipY(int tip) {
+        return tip < 2 ? -1 : 1;
+    }
+}
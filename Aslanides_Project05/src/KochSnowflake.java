@@ -0,0 +1,101 @@
+/**
+ * The Koch snowflake, built from filled triangles. Depth 1 is an equilateral triangle; every further level raises a
+ * triangle a third the size on the middle third of every edge, and the new edges are bumped in turn. A snowflake of
+ * depth n has 4<sup>n-1</sup> triangles, and the bumps shrink by a third per level, so the snowflake gains little
+ * visible detail beyond depth 7.
+ * <p>
+ * The three sides of the first triangle are generated as separate parts, in parallel for deep snowflakes.
+ * </p>
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+public class KochSnowflake implements FractalType {
+
+    /** The sine of 60 degrees, the angle a bump is raised at */
+    private static final double SIN_60 = Math.sqrt(3) / 2;
+
+    /** Unused constructor for the KochSnowflake class */
+    public KochSnowflake() {}
+
+    @Override
+    public String getId() {
+        return "koch";
+    }
+
+    @Override
+    public String getName() {
+        return "Koch Snowflake";
+    }
+
+    @Override
+    public int getMaxDepth() {
+        return 7;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br><br>
+     * <p>The snowflake is the largest one that fits in the box around the bounding triangle, centered in it.</p>
+     * @param request The parameters of the fractal and the shared services
+     * @param sink The sink to send the elements to
+     */
+    @Override
+    public void generate(FractalRequest request, FractalSink sink) {
+        if (request.getDepth() <= 0) {
+            return;
+        }
+        // The bumps on the lower sides reach a third of the triangle's height below its base
+        double side = Math.min(request.getWidth(), request.getHeight() * SIN_60);
+        double height = side * SIN_60;
+        double centerX = request.getLeft() + request.getWidth() / 2.0;
+        double top = request.getTop() + (request.getHeight() - height * 4 / 3) / 2;
+        // Clockwise on screen, so turning the middle third of every edge the same way raises it outside
+        double[] corners = new double[]{centerX, top, centerX + side / 2, top + height, centerX - side / 2,
+                top + height};
+
+        FractalSink out = request.toScreen(sink);
+        long rootKey = request.getRootKey();
+        out.addFilledTriangle((float) corners[0], (float) corners[1], (float) corners[2], (float) corners[3],
+                (float) corners[4], (float) corners[5], request.fillColor(rootKey));
+        request.generateParts(3, (edge, part) -> {
+            int next = (edge + 1) % 3;
+            generateEdge(request, part, corners[2 * edge], corners[2 * edge + 1], corners[2 * next],
+                    corners[2 * next + 1], request.getDepth() - 1, FractalRequest.childKey(rootKey, edge));
+        }, out);
+    }
+
+    /**
+     * Raises a bump on the middle third of an edge, then generates the four edges of the bumped line
+     * @param request The request, for colors and cancellation
+     * @param out The sink to send the elements to
+     * @param startX The x coordinate of the start of the edge
+     * @param startY The y coordinate of the start of the edge
+     * @param endX The x coordinate of the end of the edge
+     * @param endY The y coordinate of the end of the edge
+     * @param level The number of levels of bumps still to raise
+     * @param key The key of the edge
+     */
+    private static void generateEdge(FractalRequest request, FractalSink out, double startX, double startY,
+                                     double endX, double endY, int level, long key) {
+        if (level <= 0) {
+            return;
+        }
+        request.checkCancelled();
+        double dx = (endX - startX) / 3;
+        double dy = (endY - startY) / 3;
+        double ax = startX + dx;
+        double ay = startY + dy;
+        double bx = startX + 2 * dx;
+        double by = startY + 2 * dy;
+        // The middle third turned by 60 degrees, away from the inside of the snowflake
+        double peakX = ax + dx / 2 + dy * SIN_60;
+        double peakY = ay + dy / 2 - dx * SIN_60;
+        out.addFilledTriangle((float) ax, (float) ay, (float) peakX, (float) peakY, (float) bx, (float) by,
+                request.fillColor(key));
+
+        generateEdge(request, out, startX, startY, ax, ay, level - 1, FractalRequest.childKey(key, 0));
+        generateEdge(request, out, ax, ay, peakX, peakY, level - 1, FractalRequest.childKey(key, 1));
+        generateEdge(request, out, peakX, peakY, bx, by, level - 1, FractalRequest.childKey(key, 2));
+        generateEdge(request, out, bx, by, endX, endY, level - 1, FractalRequest.childKey(key, 3));
+    }
+}
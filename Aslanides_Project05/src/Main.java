@@ -1,5 +1,8 @@
+import javax.management.JMException;
+import javax.swing.SwingUtilities;
 import java.awt.*;
 import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Main class for the Fractal Generator
@@ -13,6 +16,11 @@ public class Main {
 
     /**
      * Main method for the Fractal Generator. Instantiates the GUI to start the program.
+     * <p>
+     * The metrics of the generator are registered with JMX, where they can be read and switched on in JConsole.
+     * They are switched on from the start with {@code -Dfractal.metrics=true}, and
+     * {@code -Dfractal.metrics.report=SECONDS} also logs a summary every given number of seconds.
+     * </p>
      * @param args The arguments
      */
     public static void main(String[] args) {
@@ -23,10 +31,31 @@ public class Main {
         // Instantiates the FractalGenerator with the default theme
         FractalGenerator generator = new FractalGenerator(defaultTheme);
 
+        // Metrics are off unless asked for, so they cost nothing otherwise
+        FractalMetrics metrics = generator.getMetrics();
+        try {
+            metrics.register("generator");
+        } catch (JMException e) {
+            System.err.println("Error: Metrics not registered with JMX: " + e.getMessage());
+        }
+        long reportSeconds = Long.getLong("fractal.metrics.report", 0);
+        metrics.setEnabled(Boolean.getBoolean("fractal.metrics") || reportSeconds > 0);
+        if (reportSeconds > 0) {
+            metrics.startReporter(reportSeconds, TimeUnit.SECONDS);
+        }
+
         // Instantiates the GUI, passing in the FractalGenerator
         FractalGui gui = new FractalGui(generator);
 
         // Instantiates the FractalDrawing, passing in the FractalGenerator
         new FractalDrawing(generator);
+
+        // Triangles smaller than the threshold are filled in, so deep fractals only cost what the screen can show
+        generator.setDetailThreshold(FractalGenerator.DEFAULT_DETAIL_THRESHOLD);
+
+        // From now on, generate in the background and update the drawing on the Event Dispatch Thread, showing the
+        // shallower depths while a deep fractal is generated
+        generator.setProgressive(true);
+        generator.setAsynchronous(SwingUtilities::invokeLater);
     }
 }
@@ -0,0 +1,131 @@
+/**
+ * The Pythagoras tree: a square with a right isosceles triangle on its top, whose two shorter sides each carry a
+ * square of the next level. Squares are sent as two filled triangles, and the squares of the last level hold a circle
+ * instead of a triangle and further branches. A tree of depth n has 2<sup>n</sup> - 1 squares, so it stays cheap even
+ * at depths where the other types run into millions of elements.
+ * <p>
+ * The two branches on the first square are generated as separate parts, in parallel for deep trees.
+ * </p>
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+public class PythagorasTree implements FractalType {
+
+    /** Unused constructor for the PythagorasTree class */
+    public PythagorasTree() {}
+
+    @Override
+    public String getId() {
+        return "pythagoras";
+    }
+
+    @Override
+    public String getName() {
+        return "Pythagoras Tree";
+    }
+
+    @Override
+    public int getMaxDepth() {
+        return 12;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br><br>
+     * <p>The tree stands on the bottom of the box around the bounding triangle, and is the largest one that fits in
+     * it: a tree spreads over six times the side of its first square and rises four times that side.</p>
+     * @param request The parameters of the fractal and the shared services
+     * @param sink The sink to send the elements to
+     */
+    @Override
+    public void generate(FractalRequest request, FractalSink sink) {
+        if (request.getDepth() <= 0) {
+            return;
+        }
+        double side = Math.min(request.getWidth() / 6.0, request.getHeight() / 4.0);
+        double centerX = request.getLeft() + request.getWidth() / 2.0;
+        double bottom = request.getTop() + request.getHeight();
+
+        FractalSink out = request.toScreen(sink);
+        long rootKey = request.getRootKey();
+        double[] roof = addSquare(request, out, centerX - side / 2, bottom, centerX + side / 2, bottom,
+                request.getDepth(), rootKey);
+        if (roof == null) {
+            return;
+        }
+        request.generateParts(2, (branch, part) -> {
+            long key = FractalRequest.childKey(rootKey, branch);
+            if (branch == 0) {
+                generateBranch(request, part, roof[0], roof[1], roof[2], roof[3], request.getDepth() - 1, key);
+            } else {
+                generateBranch(request, part, roof[2], roof[3], roof[4], roof[5], request.getDepth() - 1, key);
+            }
+        }, out);
+    }
+
+    /**
+     * Generates a square on a base line and the branches on top of it
+     * @param request The request, for colors and cancellation
+     * @param out The sink to send the elements to
+     * @param startX The x coordinate of the left end of the base, seen from inside the square
+     * @param startY The y coordinate of the left end of the base
+     * @param endX The x coordinate of the right end of the base
+     * @param endY The y coordinate of the right end of the base
+     * @param level The number of levels of squares still to generate, including this one
+     * @param key The key of the square
+     */
+    private static void generateBranch(FractalRequest request, FractalSink out, double startX, double startY,
+                                       double endX, double endY, int level, long key) {
+        if (level <= 0) {
+            return;
+        }
+        request.checkCancelled();
+        double[] roof = addSquare(request, out, startX, startY, endX, endY, level, key);
+        if (roof != null) {
+            generateBranch(request, out, roof[0], roof[1], roof[2], roof[3], level - 1,
+                    FractalRequest.childKey(key, 0));
+            generateBranch(request, out, roof[2], roof[3], roof[4], roof[5], level - 1,
+                    FractalRequest.childKey(key, 1));
+        }
+    }
+
+    /**
+     * Draws a square on a base line, with the triangle on its top, or a circle in it on the last level
+     * @param request The request, for colors
+     * @param out The sink to send the elements to
+     * @param startX The x coordinate of the left end of the base, seen from inside the square
+     * @param startY The y coordinate of the left end of the base
+     * @param endX The x coordinate of the right end of the base
+     * @param endY The y coordinate of the right end of the base
+     * @param level The number of levels of squares still to generate, including this one
+     * @param key The key of the square
+     * @return The left end of the top, the tip of the triangle and the right end of the top, as six coordinates, or
+     * null on the last level
+     */
+    private static double[] addSquare(FractalRequest request, FractalSink out, double startX, double startY,
+                                      double endX, double endY, int level, long key) {
+        // The base turned a quarter, pointing from the base into the square
+        double upX = endY - startY;
+        double upY = startX - endX;
+        double topLeftX = startX + upX;
+        double topLeftY = startY + upY;
+        double topRightX = endX + upX;
+        double topRightY = endY + upY;
+        int color = request.fillColor(key);
+        out.addFilledTriangle((float) startX, (float) startY, (float) endX, (float) endY, (float) topRightX,
+                (float) topRightY, color);
+        out.addFilledTriangle((float) startX, (float) startY, (float) topRightX, (float) topRightY, (float) topLeftX,
+                (float) topLeftY, color);
+        if (level == 1) {
+            out.addCircle((float) ((startX + topRightX) / 2), (float) ((startY + topRightY) / 2),
+                    (float) (Math.hypot(upX, upY) / 2), request.circleColor(key));
+            return null;
+        }
+
+        double tipX = topLeftX + (endX - startX + upX) / 2;
+        double tipY = topLeftY + (endY - startY + upY) / 2;
+        out.addFilledTriangle((float) topLeftX, (float) topLeftY, (float) tipX, (float) tipY, (float) topRightX,
+                (float) topRightY, request.accentColor(key));
+        return new double[]{topLeftX, topLeftY, tipX, tipY, topRightX, topRightY};
+    }
+}
@@ -0,0 +1,52 @@
+/**
+ * Counts escape-time iterations one point at a time. This kernel runs on every Java runtime, and is used when the
+ * Vector API is not available.
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+public class ScalarEscapeTimeKernel implements EscapeTimeKernel {
+
+    /** Unused constructor for the ScalarEscapeTimeKernel class */
+    public ScalarEscapeTimeKernel() {}
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+
+    @Override
+    public long iterateRow(double startRe, double stepRe, double im, boolean julia, double constantRe,
+                           double constantIm, int maxIterations, int[] counts, int offset, int length) {
+        long total = 0;
+        for (int index = 0; index < length; index++) {
+            double re = startRe + index * stepRe;
+            int iterations = julia ? escapeTime(re, im, constantRe, constantIm, maxIterations)
+                    : escapeTime(0, 0, re, im, maxIterations);
+            counts[offset + index] = iterations;
+            total += iterations;
+        }
+        return total;
+    }
+
+    /**
+     * Counts the iterations of z = z<sup>2</sup> + c from a starting point until it escapes the circle of radius 2
+     * @param re The real part of the first z
+     * @param im The imaginary part of the first z
+     * @param addRe The real part of c
+     * @param addIm The imaginary part of c
+     * @param maxIterations The number of iterations after which the point is taken to be inside the set
+     * @return The number of iterations, or maxIterations if the point does not escape
+     */
+    public static int escapeTime(double re, double im, double addRe, double addIm, int maxIterations) {
+        for (int iterations = 0; iterations < maxIterations; iterations++) {
+            double re2 = re * re;
+            double im2 = im * im;
+            if (re2 + im2 > 4) {
+                return iterations;
+            }
+            im = 2 * re * im + addIm;
+            re = re2 - im2 + addRe;
+        }
+        return maxIterations;
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * The Sierpinski carpet, built from squares of two filled triangles each. Depth 1 is a square; every further level
+ * cuts out the middle ninth of every square left, drawn as a square in another color with a circle inscribed in it, and
+ * carries on in the eight squares around it. A carpet of depth n has (8<sup>n-1</sup> - 1) / 7 holes, so the element
+ * count grows faster than for any other type; the holes of depth 6 are already about two pixels wide.
+ * <p>
+ * The eight squares around the first hole are generated as separate parts, in parallel for deep carpets.
+ * </p>
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+public class SierpinskiCarpet implements FractalType {
+
+    /** Unused constructor for the SierpinskiCarpet class */
+    public SierpinskiCarpet() {}
+
+    @Override
+    public String getId() {
+        return "carpet";
+    }
+
+    @Override
+    public String getName() {
+        return "Sierpinski Carpet";
+    }
+
+    @Override
+    public int getMaxDepth() {
+        return 6;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br><br>
+     * <p>The carpet is the largest square that fits in the box around the bounding triangle, centered in it.</p>
+     * @param request The parameters of the fractal and the shared services
+     * @param sink The sink to send the elements to
+     */
+    @Override
+    public void generate(FractalRequest request, FractalSink sink) {
+        if (request.getDepth() <= 0) {
+            return;
+        }
+        double size = Math.min(request.getWidth(), request.getHeight());
+        double left = request.getLeft() + (request.getWidth() - size) / 2;
+        double top = request.getTop() + (request.getHeight() - size) / 2;
+
+        FractalSink out = request.toScreen(sink);
+        long rootKey = request.getRootKey();
+        addSquare(out, left, top, size, request.fillColor(rootKey));
+        if (request.getDepth() == 1) {
+            return;
+        }
+        double third = size / 3;
+        addHole(request, out, left, top, size, rootKey);
+        request.generateParts(8, (cell, part) -> generateSquare(request, part, left + column(cell) * third,
+                top + row(cell) * third, third, request.getDepth() - 2, FractalRequest.childKey(rootKey, cell)), out);
+    }
+
+    /**
+     * Cuts the holes of a square left by its parent
+     * @param request The request, for colors and cancellation
+     * @param out The sink to send the elements to
+     * @param left The left edge of the square
+     * @param top The top edge of the square
+     * @param size The width and height of the square
+     * @param level The number of levels of holes still to cut
+     * @param key The key of the square
+     */
+    private static void generateSquare(FractalRequest request, FractalSink out, double left, double top, double size,
+                                       int level, long key) {
+        if (level <= 0) {
+            return;
+        }
+        request.checkCancelled();
+        addHole(request, out, left, top, size, key);
+        double third = size / 3;
+        for (int cell = 0; cell < 8; cell++) {
+            generateSquare(request, out, left + column(cell) * third, top + row(cell) * third, third, level - 1,
+                    FractalRequest.childKey(key, cell));
+        }
+    }
+
+    /**
+     * Draws the hole in the middle ninth of a square and the circle inscribed in it
+     * @param request The request, for colors
+     * @param out The sink to send the elements to
+     * @param left The left edge of the square
+     * @param top The top edge of the square
+     * @param size The width and height of the square
+     * @param key The key of the square
+     */
+    private static void addHole(FractalRequest request, FractalSink out, double left, double top, double size,
+                                long key) {
+        double third = size / 3;
+        addSquare(out, left + third, top + third, third, request.accentColor(key));
+        out.addCircle((float) (left + size / 2), (float) (top + size / 2), (float) (third / 2),
+                request.circleColor(key));
+    }
+
+    /**
+     * Draws a filled square as two filled triangles
+     * @param out The sink to send the elements to
+     * @param left The left edge of the square
+     * @param top The top edge of the square
+     * @param size The width and height of the square
+     * @param argb The packed color
+     */
+    private static void addSquare(FractalSink out, double left, double top, double size, int argb) {
+        float x1 = (float) left;
+        float y1 = (float) top;
+        float x2 = (float) (left + size);
+        float y2 = (float) (top + size);
+        out.addFilledTriangle(x1, y1, x2, y1, x2, y2, argb);
+        out.addFilledTriangle(x1, y1, x2, y2, x1, y2, argb);
+    }
+
+    /**
+     * Gets the column of one of the eight squares around a hole, in reading order
+     * @param cell The square, from 0 to 7
+     * @return The column, from 0 to 2
+     */
+    private static int column(int cell) {
+        // The hole is the fifth of the nine squares, so the squares after it move one place on
+        return (cell < 4 ? cell : cell + 1) % 3;
+    }
+
+    /**
+     * Gets the row of one of the eight squares around a hole, in reading order
+     * @param cell The square, from 0 to 7
+     * @return The row, from 0 to 2
+     */
+    private static int row(int cell) {
+        return (cell < 4 ? cell : cell + 1) / 3;
+    }
+}
@@ -0,0 +1,664 @@
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Iterative generation engine for the Sierpinski triangle fractal. The recursion is replaced with an explicit stack of
+ * primitive triangle coordinates, so generating a fractal allocates nothing per triangle beyond what the output
+ * {@link FractalSink} keeps. Generating into a sink that does not keep the elements uses memory proportional to the
+ * recursion depth only.
+ * <p>
+ * The elements are produced in the same order as the recursive generation: the circle and triangle of a triangle,
+ * followed by everything generated from its first, second and third corner triangles. An engine reuses its stack
+ * between calls and must not be shared between threads.
+ * </p>
+ * <p>
+ * Colors are chosen from a key for every triangle, which is a hash of the seed and the path from the root to the
+ * triangle. A triangle gets the same colors however the fractal is traversed, split or culled, so serial, parallel,
+ * streaming and zoomed generation all agree, and deepening a fractal keeps the colors it already had.
+ * </p>
+ * <p>
+ * A zoomed view is generated separately, in double precision and in screen coordinates: only triangles that overlap
+ * the screen are subdivided, so the work follows what is visible rather than the depth of the whole fractal.
+ * </p>
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+
+//--------------------------------------------------------------------------------------------------------------------//
+// Contents
+// 1. Static Variables
+// 2. Instance Variables
+// 3. Constructor
+// 4. Generation
+// 5. Viewport Generation
+// 6. Depth Changes
+// 7. Triangle Math
+// 8. Color Keys
+//--------------------------------------------------------------------------------------------------------------------//
+
+public class SierpinskiEngine {
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Static Variables
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /** The number of ints per stack entry: six coordinates and a recursion index */
+    private static final int ENTRY = 7;
+
+    /** The odd increment between keys, as used by {@link java.util.SplittableRandom} */
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /** The color slot of a circle, which a filled triangle also uses as it replaces the circle first */
+    public static final int CIRCLE_SLOT = 0;
+
+    /** The color slot of an outlined triangle */
+    public static final int TRIANGLE_SLOT = 1;
+
+    /** The number of doubles per viewport stack entry: six coordinates and a recursion index */
+    private static final int VIEW_ENTRY = 7;
+
+    /** The number of viewport triangles generated between checks for cancelled work */
+    private static final int CANCEL_CHECK_INTERVAL = 4096;
+
+    /**
+     * The furthest, in screen pixels, a viewport element may reach to be sent as it is. Float coordinates further out
+     * would lose too much precision, so larger outlines, which the corner triangles draw over anyway, are left out and
+     * larger circles are replaced by smaller ones with the same edge on the screen.
+     */
+    private static final double GUARD_SIZE = 0x1p22;
+
+    /** The palette used when only the geometry is needed, so no colors are chosen */
+    public static final int[] GEOMETRY_PALETTE = new int[]{0};
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Instance Variables
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /** The stack of triangles still to generate */
+    private int[] stack;
+
+    /** The key of each triangle on the stack */
+    private long[] keyStack;
+
+    /** The stack of viewport triangles still to generate, created on first use */
+    private double[] viewStack;
+
+    /** The key of each viewport triangle on the stack, created on first use */
+    private long[] viewKeyStack;
+
+    /** Scratch space for one corner triangle */
+    private final int[] cornerTriangle = new int[6];
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Constructor
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Constructor for the SierpinskiEngine class
+     */
+    public SierpinskiEngine() {
+        stack = new int[ENTRY * 16];
+        keyStack = new long[16];
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Generation
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Generates the elements of a triangle and its corner triangles down to the given recursion index
+     * @param out The sink to send the elements to
+     * @param triangle The triangle, as six coordinates x1, y1, x2, y2, x3, y3
+     * @param recursionIndex The recursion index; nothing is generated when it is 0 or less
+     * @param palette The packed colors to choose from; a single color is used for every element
+     * @param circleOpacity The circle opacity
+     * @param key The key of the triangle, from {@link #rootKey} for the root of a fractal
+     */
+    public void generate(FractalSink out, int[] triangle, int recursionIndex, int[] palette, int circleOpacity,
+                         long key) {
+        generate(out, triangle, recursionIndex, palette, circleOpacity, key, false);
+    }
+
+    /**
+     * Generates the elements of a triangle and its corner triangles down to the given recursion index, optionally
+     * collapsing the deepest triangles. A collapsed triangle stands in for everything that would be generated below it,
+     * so it is sent as a single filled triangle instead of a circle and an outlined triangle.
+     * @param out The sink to send the elements to
+     * @param triangle The triangle, as six coordinates x1, y1, x2, y2, x3, y3
+     * @param recursionIndex The recursion index; nothing is generated when it is 0 or less
+     * @param palette The packed colors to choose from; a single color is used for every element
+     * @param circleOpacity The circle opacity
+     * @param key The key of the triangle, from {@link #rootKey} for the root of a fractal
+     * @param collapse Whether the triangles at recursion index 1 are collapsed
+     */
+    public void generate(FractalSink out, int[] triangle, int recursionIndex, int[] palette, int circleOpacity,
+                         long key, boolean collapse) {
+        if (recursionIndex <= 0) {
+            return;
+        }
+        // At most two pending corner triangles per level, plus the one being generated
+        int capacity = (2 * recursionIndex + 1) * ENTRY;
+        if (stack.length < capacity) {
+            stack = new int[capacity];
+            keyStack = new long[capacity / ENTRY];
+        }
+        int[] stack = this.stack;
+        long[] keys = keyStack;
+        System.arraycopy(triangle, 0, stack, 0, 6);
+        stack[6] = recursionIndex;
+        keys[0] = key;
+        int top = ENTRY;
+
+        while (top > 0) {
+            top -= ENTRY;
+            int x1 = stack[top];
+            int y1 = stack[top + 1];
+            int x2 = stack[top + 2];
+            int y2 = stack[top + 3];
+            int x3 = stack[top + 4];
+            int y3 = stack[top + 5];
+            int index = stack[top + 6];
+            long nodeKey = keys[top / ENTRY];
+
+            if (collapse && index == 1) {
+                out.addFilledTriangle(x1, y1, x2, y2, x3, y3, chooseColor(palette, nodeKey, CIRCLE_SLOT));
+            } else {
+                addElements(out, x1, y1, x2, y2, x3, y3, palette, circleOpacity, nodeKey);
+            }
+
+            if (index > 1) {
+                int mid12x = (x1 + x2) / 2;
+                int mid12y = (y1 + y2) / 2;
+                int mid13x = (x1 + x3) / 2;
+                int mid13y = (y1 + y3) / 2;
+                int mid23x = (x2 + x3) / 2;
+                int mid23y = (y2 + y3) / 2;
+                // Pushed in reverse so the first corner triangle is generated first
+                keys[top / ENTRY] = cornerKey(nodeKey, 2);
+                top = push(stack, top, x3, y3, mid13x, mid13y, mid23x, mid23y, index - 1);
+                keys[top / ENTRY] = cornerKey(nodeKey, 1);
+                top = push(stack, top, x2, y2, mid12x, mid12y, mid23x, mid23y, index - 1);
+                keys[top / ENTRY] = cornerKey(nodeKey, 0);
+                top = push(stack, top, x1, y1, mid12x, mid12y, mid13x, mid13y, index - 1);
+            }
+        }
+    }
+
+    /**
+     * Pushes a triangle onto the stack
+     * @param stack The stack
+     * @param top The offset of the top of the stack
+     * @param x1 The x coordinate of the first point
+     * @param y1 The y coordinate of the first point
+     * @param x2 The x coordinate of the second point
+     * @param y2 The y coordinate of the second point
+     * @param x3 The x coordinate of the third point
+     * @param y3 The y coordinate of the third point
+     * @param recursionIndex The recursion index of the triangle
+     * @return The new offset of the top of the stack
+     */
+    private static int push(int[] stack, int top, int x1, int y1, int x2, int y2, int x3, int y3,
+                            int recursionIndex) {
+        stack[top] = x1;
+        stack[top + 1] = y1;
+        stack[top + 2] = x2;
+        stack[top + 3] = y2;
+        stack[top + 4] = x3;
+        stack[top + 5] = y3;
+        stack[top + 6] = recursionIndex;
+        return top + ENTRY;
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Viewport Generation
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Generates the elements of a triangle that are visible on a screen, in screen coordinates. A triangle that does
+     * not overlap the screen is skipped with everything below it, as its corner triangles lie inside it. A triangle
+     * smaller than the minimum size is collapsed into a single filled triangle instead of being subdivided further.
+     * The visible elements come out in the same order as {@link #generate}.
+     * @param out The sink to send the elements to
+     * @param triangle The triangle on the screen, as six coordinates x1, y1, x2, y2, x3, y3
+     * @param recursionIndex The recursion index; nothing is generated when it is 0 or less
+     * @param width The width of the screen
+     * @param height The height of the screen
+     * @param minSize The smallest width or height of a triangle that is subdivided; 0 or less for no limit
+     * @param palette The packed colors to choose from; a single color is used for every element
+     * @param circleOpacity The circle opacity
+     * @param key The key of the triangle, from {@link #rootKey} for the root of a fractal
+     * @param cancelled Checked every {@link #CANCEL_CHECK_INTERVAL} triangles, to stop early
+     * @throws CancellationException If the check reports the work as cancelled
+     */
+    public void generateView(FractalSink out, double[] triangle, int recursionIndex, double width, double height,
+                             double minSize, int[] palette, int circleOpacity, long key,
+                             BooleanSupplier cancelled) {
+        if (recursionIndex <= 0) {
+            return;
+        }
+        int capacity = (2 * recursionIndex + 1) * VIEW_ENTRY;
+        if (viewStack == null || viewStack.length < capacity) {
+            viewStack = new double[capacity];
+            viewKeyStack = new long[capacity / VIEW_ENTRY];
+        }
+        double[] stack = viewStack;
+        long[] keys = viewKeyStack;
+        System.arraycopy(triangle, 0, stack, 0, 6);
+        stack[6] = recursionIndex;
+        keys[0] = key;
+        int top = VIEW_ENTRY;
+        int generated = 0;
+
+        while (top > 0) {
+            if (++generated % CANCEL_CHECK_INTERVAL == 0 && cancelled.getAsBoolean()) {
+                throw new CancellationException();
+            }
+            top -= VIEW_ENTRY;
+            double x1 = stack[top];
+            double y1 = stack[top + 1];
+            double x2 = stack[top + 2];
+            double y2 = stack[top + 3];
+            double x3 = stack[top + 4];
+            double y3 = stack[top + 5];
+            int index = (int) stack[top + 6];
+            long nodeKey = keys[top / VIEW_ENTRY];
+
+            double minX = Math.min(x1, Math.min(x2, x3));
+            double minY = Math.min(y1, Math.min(y2, y3));
+            double maxX = Math.max(x1, Math.max(x2, x3));
+            double maxY = Math.max(y1, Math.max(y2, y3));
+            if (maxX < 0 || maxY < 0 || minX > width || minY > height) {
+                continue;
+            }
+            double size = Math.max(maxX - minX, maxY - minY);
+            if (index > 1 && size < minSize) {
+                out.addFilledTriangle((float) x1, (float) y1, (float) x2, (float) y2, (float) x3, (float) y3,
+                        chooseColor(palette, nodeKey, CIRCLE_SLOT));
+                continue;
+            }
+            addViewElements(out, x1, y1, x2, y2, x3, y3, size, width, height, palette, circleOpacity, nodeKey);
+
+            if (index > 1) {
+                double mid12x = (x1 + x2) / 2;
+                double mid12y = (y1 + y2) / 2;
+                double mid13x = (x1 + x3) / 2;
+                double mid13y = (y1 + y3) / 2;
+                double mid23x = (x2 + x3) / 2;
+                double mid23y = (y2 + y3) / 2;
+                // Pushed in reverse so the first corner triangle is generated first
+                keys[top / VIEW_ENTRY] = cornerKey(nodeKey, 2);
+                top = push(stack, top, x3, y3, mid13x, mid13y, mid23x, mid23y, index - 1);
+                keys[top / VIEW_ENTRY] = cornerKey(nodeKey, 1);
+                top = push(stack, top, x2, y2, mid12x, mid12y, mid23x, mid23y, index - 1);
+                keys[top / VIEW_ENTRY] = cornerKey(nodeKey, 0);
+                top = push(stack, top, x1, y1, mid12x, mid12y, mid13x, mid13y, index - 1);
+            }
+        }
+    }
+
+    /**
+     * Pushes a viewport triangle onto the stack
+     * @param stack The stack
+     * @param top The offset of the top of the stack
+     * @param x1 The x coordinate of the first point
+     * @param y1 The y coordinate of the first point
+     * @param x2 The x coordinate of the second point
+     * @param y2 The y coordinate of the second point
+     * @param x3 The x coordinate of the third point
+     * @param y3 The y coordinate of the third point
+     * @param recursionIndex The recursion index of the triangle
+     * @return The new offset of the top of the stack
+     */
+    private static int push(double[] stack, int top, double x1, double y1, double x2, double y2, double x3, double y3,
+                            int recursionIndex) {
+        stack[top] = x1;
+        stack[top + 1] = y1;
+        stack[top + 2] = x2;
+        stack[top + 3] = y2;
+        stack[top + 4] = x3;
+        stack[top + 5] = y3;
+        stack[top + 6] = recursionIndex;
+        return top + VIEW_ENTRY;
+    }
+
+    /**
+     * Adds the circle and triangle elements of a single viewport triangle, like {@link #addElements} but in double
+     * precision. Elements reaching further than {@link #GUARD_SIZE} are left out or replaced, so every coordinate sent
+     * fits a float to well under a pixel.
+     * @param out The sink to send the elements to
+     * @param x1 The x coordinate of the first point
+     * @param y1 The y coordinate of the first point
+     * @param x2 The x coordinate of the second point
+     * @param y2 The y coordinate of the second point
+     * @param x3 The x coordinate of the third point
+     * @param y3 The y coordinate of the third point
+     * @param size The larger of the width and height of the triangle
+     * @param width The width of the screen
+     * @param height The height of the screen
+     * @param palette The packed colors to choose from
+     * @param circleOpacity The circle opacity
+     * @param key The key of the triangle, from {@link #rootKey} for the root of a fractal
+     */
+    private static void addViewElements(FractalSink out, double x1, double y1, double x2, double y2, double x3,
+                                        double y3, double size, double width, double height, int[] palette,
+                                        int circleOpacity, long key) {
+        double centerX = (x1 + x2 + x3) / 3;
+        double centerY = (y1 + y2 + y3) / 3;
+
+        double radius = 0;
+        if (y1 <= y2) {
+            radius = Math.abs(y3 - y1) / 6;
+        } else if (y1 <= y3) {
+            radius = Math.abs(y2 - y1) / 6;
+        }
+
+        boolean circleVisible = true;
+        if (Math.max(Math.abs(centerX), Math.abs(centerY)) + radius > GUARD_SIZE) {
+            double screenX = width / 2;
+            double screenY = height / 2;
+            double reach = Math.hypot(width, height);
+            double distance = Math.hypot(screenX - centerX, screenY - centerY);
+            if (distance - radius > reach) {
+                circleVisible = false;
+            } else if (distance + reach <= radius) {
+                // The circle covers the whole screen
+                centerX = screenX;
+                centerY = screenY;
+                radius = reach;
+            } else {
+                // Keep the point of the edge nearest the screen and the direction of the edge there
+                double newRadius = Math.min(radius, GUARD_SIZE / 2);
+                centerX += (screenX - centerX) / distance * (radius - newRadius);
+                centerY += (screenY - centerY) / distance * (radius - newRadius);
+                radius = newRadius;
+            }
+        }
+
+        if (circleVisible) {
+            int circleColor = chooseColor(palette, key, CIRCLE_SLOT);
+            out.addCircle((float) centerX, (float) centerY, (float) radius,
+                    (circleOpacity << 24) | (circleColor & 0xFFFFFF));
+        }
+        if (size <= GUARD_SIZE) {
+            out.addTriangle((float) x1, (float) y1, (float) x2, (float) y2, (float) x3, (float) y3,
+                    chooseColor(palette, key, TRIANGLE_SLOT));
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Depth Changes
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Extends the geometry of a fractal to a greater recursion depth. The existing elements are copied and only the
+     * corner triangles below the deepest existing triangles are generated.
+     * @param geometry The elements of the fractal, as generated by this engine
+     * @param depth The recursion depth of the fractal
+     * @param newDepth The greater recursion depth
+     * @param cancelled Checked before each deepest existing triangle is extended
+     * @return The elements of the deeper fractal, with {@link #GEOMETRY_PALETTE} colors for the new elements
+     * @throws CancellationException If the check reports the work as cancelled
+     */
+    public FractalElementBuffer deepen(FractalElementBuffer geometry, int depth, int newDepth,
+                                       BooleanSupplier cancelled) {
+        FractalElementBuffer out = new FractalElementBuffer(elementCount(newDepth));
+        int[] triangle = new int[6];
+        int[] remaining = new int[depth + 1];
+        int level = 0;
+        remaining[0] = 1;
+        for (int node = 0; node < geometry.size() / 2; node++) {
+            out.addRange(geometry, 2 * node, 2 * node + 2);
+            remaining[level]--;
+            if (level < depth - 1) {
+                remaining[++level] = 3;
+            } else {
+                // The deepest existing triangle: generate below its corners before moving on
+                if (cancelled.getAsBoolean()) {
+                    throw new CancellationException();
+                }
+                for (int coordinate = 0; coordinate < 6; coordinate++) {
+                    triangle[coordinate] = (int) geometry.getCoordinate(2 * node + 1, coordinate);
+                }
+                for (int corner = 0; corner < 3; corner++) {
+                    generate(out, subdivide(triangle, corner, cornerTriangle), newDepth - depth, GEOMETRY_PALETTE, 0,
+                            0);
+                }
+                while (level > 0 && remaining[level] == 0) {
+                    level--;
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Reduces the geometry of a fractal to a smaller recursion depth by dropping the deepest triangles
+     * @param geometry The elements of the fractal, as generated by this engine
+     * @param depth The recursion depth of the fractal
+     * @param newDepth The smaller recursion depth
+     * @return The elements of the shallower fractal
+     */
+    public static FractalElementBuffer prune(FractalElementBuffer geometry, int depth, int newDepth) {
+        FractalElementBuffer out = new FractalElementBuffer(elementCount(newDepth));
+        int[] remaining = new int[depth + 1];
+        int level = 0;
+        remaining[0] = 1;
+        for (int node = 0; node < geometry.size() / 2; node++) {
+            if (level < newDepth) {
+                out.addRange(geometry, 2 * node, 2 * node + 2);
+            }
+            remaining[level]--;
+            if (level < depth - 1) {
+                remaining[++level] = 3;
+            } else {
+                while (level > 0 && remaining[level] == 0) {
+                    level--;
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Collapses the deepest triangles of a fractal: the circle and outlined triangle of each one are replaced by a
+     * single filled triangle in the color of the circle. Collapsing a geometry and then coloring it gives the same
+     * elements as {@link #generate} with collapsing.
+     * @param geometry The elements of the fractal, as generated by this engine
+     * @param depth The recursion depth of the fractal
+     * @return The elements of the collapsed fractal
+     */
+    public static FractalElementBuffer collapse(FractalElementBuffer geometry, int depth) {
+        // Each deepest triangle loses one of its two elements
+        FractalElementBuffer out = new FractalElementBuffer(
+                geometry.size() - (geometry.size() - elementCount(depth - 1)) / 2);
+        int[] remaining = new int[depth + 1];
+        int level = 0;
+        remaining[0] = 1;
+        for (int node = 0; node < geometry.size() / 2; node++) {
+            remaining[level]--;
+            if (level < depth - 1) {
+                out.addRange(geometry, 2 * node, 2 * node + 2);
+                remaining[++level] = 3;
+            } else {
+                int triangle = 2 * node + 1;
+                out.addFilledTriangle(geometry.getCoordinate(triangle, 0), geometry.getCoordinate(triangle, 1),
+                        geometry.getCoordinate(triangle, 2), geometry.getCoordinate(triangle, 3),
+                        geometry.getCoordinate(triangle, 4), geometry.getCoordinate(triangle, 5),
+                        geometry.getColor(2 * node));
+                while (level > 0 && remaining[level] == 0) {
+                    level--;
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Calculates the recursion depth at which a fractal stops having detail worth drawing: the triangles of the
+     * deepest level it returns are the first ones smaller than the given size, so they can be collapsed. The triangles
+     * of a level all have the same size, half that of the level above.
+     * @param triangle The bounding triangle, as six coordinates
+     * @param minSize The smallest width or height of a triangle that is drawn in detail, in the units of the
+     *                coordinates; 0 or less for no limit
+     * @return The recursion depth, or {@link Integer#MAX_VALUE} for no limit
+     */
+    public static int detailDepth(int[] triangle, double minSize) {
+        if (minSize <= 0) {
+            return Integer.MAX_VALUE;
+        }
+        int width = Math.max(triangle[0], Math.max(triangle[2], triangle[4]))
+                - Math.min(triangle[0], Math.min(triangle[2], triangle[4]));
+        int height = Math.max(triangle[1], Math.max(triangle[3], triangle[5]))
+                - Math.min(triangle[1], Math.min(triangle[3], triangle[5]));
+        double size = Math.max(width, height);
+        int depth = 1;
+        while (size >= minSize) {
+            size /= 2;
+            depth++;
+        }
+        return depth;
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Triangle Math
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Adds the circle and triangle elements of a single triangle. The circle sits at the center of the triangle with a
+     * radius of one sixth its height, and its alpha is set to the circle opacity.
+     * @param out The sink to send the elements to
+     * @param x1 The x coordinate of the first point
+     * @param y1 The y coordinate of the first point
+     * @param x2 The x coordinate of the second point
+     * @param y2 The y coordinate of the second point
+     * @param x3 The x coordinate of the third point
+     * @param y3 The y coordinate of the third point
+     * @param palette The packed colors to choose from
+     * @param circleOpacity The circle opacity
+     * @param key The key of the triangle, from {@link #rootKey} for the root of a fractal
+     */
+    public static void addElements(FractalSink out, int x1, int y1, int x2, int y2, int x3, int y3,
+                                   int[] palette, int circleOpacity, long key) {
+        int centerX = (x1 + x2 + x3) / 3;
+        int centerY = (y1 + y2 + y3) / 3;
+
+        int radius = 0;
+        if (y1 <= y2) {
+            radius = Math.abs(y3 - y1) / 6;
+        } else if (y1 <= y3) {
+            radius = Math.abs(y2 - y1) / 6;
+        }
+
+        int circleColor = chooseColor(palette, key, CIRCLE_SLOT);
+        int triangleColor = chooseColor(palette, key, TRIANGLE_SLOT);
+        out.addCircle(centerX, centerY, radius, (circleOpacity << 24) | (circleColor & 0xFFFFFF));
+        out.addTriangle(x1, y1, x2, y2, x3, y3, triangleColor);
+    }
+
+    /**
+     * Calculates one of the corner triangles of a triangle
+     * @param triangle The triangle, as six coordinates
+     * @param corner The corner, from 0 to 2
+     * @return The corner triangle, as six coordinates
+     */
+    public static int[] subdivide(int[] triangle, int corner) {
+        return subdivide(triangle, corner, new int[6]);
+    }
+
+    /**
+     * Calculates one of the corner triangles of a triangle into an existing array
+     * @param triangle The triangle, as six coordinates
+     * @param corner The corner, from 0 to 2
+     * @param out The array to store the corner triangle's six coordinates in
+     * @return The out array
+     */
+    public static int[] subdivide(int[] triangle, int corner, int[] out) {
+        int first = corner * 2;
+        int second = corner == 0 ? 2 : 0;
+        int third = corner == 2 ? 2 : 4;
+        int x = triangle[first];
+        int y = triangle[first + 1];
+        out[0] = x;
+        out[1] = y;
+        out[2] = (x + triangle[second]) / 2;
+        out[3] = (y + triangle[second + 1]) / 2;
+        out[4] = (x + triangle[third]) / 2;
+        out[5] = (y + triangle[third + 1]) / 2;
+        return out;
+    }
+
+    /**
+     * Calculates the number of elements in a fractal, two for each triangle
+     * @param recursionIndex The recursion index
+     * @return The number of elements
+     */
+    public static int elementCount(int recursionIndex) {
+        int triangles = 0;
+        for (int index = 0; index < recursionIndex; index++) {
+            triangles = triangles * 3 + 1;
+        }
+        return 2 * triangles;
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Color Keys
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Calculates the key of the root triangle of a fractal
+     * @param seed The seed for choosing colors
+     * @return The key of the root triangle
+     */
+    public static long rootKey(long seed) {
+        return mix(seed);
+    }
+
+    /**
+     * Calculates the key of a corner triangle from the key of the triangle it is in
+     * @param key The key of the triangle
+     * @param corner The corner, from 0 to 2
+     * @return The key of the corner triangle
+     */
+    public static long cornerKey(long key, int corner) {
+        return mix(key + (corner + 1) * GOLDEN_GAMMA);
+    }
+
+    /**
+     * Calculates the key of a child in a fractal with any number of children per node, from the key of its parent.
+     * The children are counted down from the key instead of up, so their hashes are never those of a corner or a
+     * color slot.
+     * @param key The key of the parent
+     * @param child The position of the child among its siblings, from 0
+     * @return The key of the child
+     */
+    public static long childKey(long key, int child) {
+        return mix(key - (child + 1) * GOLDEN_GAMMA);
+    }
+
+    /**
+     * Chooses a color from a palette for one element of a triangle. The choice only depends on the key and the slot.
+     * @param palette The packed colors to choose from
+     * @param key The key of the triangle
+     * @param slot {@link #CIRCLE_SLOT} or {@link #TRIANGLE_SLOT}
+     * @return The chosen color
+     */
+    public static int chooseColor(int[] palette, long key, int slot) {
+        if (palette.length == 1) {
+            return palette[0];
+        }
+        // Offset past the corners, so a slot never shares a hash with a corner key
+        long hash = mix(key + (slot + 4) * GOLDEN_GAMMA);
+        return palette[(int) Long.remainderUnsigned(hash, palette.length)];
+    }
+
+    /**
+     * Scrambles the bits of a value, with the finalizer of {@link java.util.SplittableRandom}
+     * @param value The value
+     * @return The scrambled value
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,212 @@
+import java.util.Arrays;
+
+/**
+ * Spatial index over the elements of an unzoomed Sierpinski triangle, which uses the recursion itself as the tree. The
+ * {@link SierpinskiEngine} sends the elements in preorder: the circle and triangle of a triangle, then everything
+ * generated from its first, second and third corner triangles. Every subtree of one level has the same number of
+ * elements, so where each triangle's elements and corner subtrees start follows from the depth alone, and the index
+ * needs no memory beyond one count per level.
+ * <p>
+ * Every element below a triangle lies within the triangle, apart from circles reaching past its edges by at most a
+ * sixth of its height, so a query only visits the triangles whose bounds, with that margin, overlap it. For a small
+ * region or a point, that is a few triangles per level, so a query takes time in the depth plus the elements found.
+ * The elements are found in preorder, which is their drawing order.
+ * </p>
+ * <p>
+ * The index is only valid for elements generated at the given depth and not zoomed, which the generator checks before
+ * creating it. A zoomed view leaves out the triangles off the screen, and its elements are indexed by a
+ * {@link FractalGridIndex} instead.
+ * </p>
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+
+//--------------------------------------------------------------------------------------------------------------------//
+// Contents
+// 1. Instance Variables
+// 2. Constructor
+// 3. Queries
+// 4. Tree Layout
+//--------------------------------------------------------------------------------------------------------------------//
+
+public class SierpinskiTreeIndex implements FractalSpatialIndex {
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Instance Variables
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /** The indexed elements */
+    private final FractalElementBuffer elements;
+
+    /** The recursion depth of the fractal, which is the number of levels of the tree */
+    private final int depth;
+
+    /** Whether the triangles of the deepest level are collapsed into single filled triangles */
+    private final boolean collapsed;
+
+    /** The number of elements in a subtree rooted at each level, with the root at level 0 */
+    private final int[] subtreeSizes;
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Constructor
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Constructor for the SierpinskiTreeIndex class
+     * @param elements The elements of an unzoomed Sierpinski triangle, which must not change while the index is used
+     * @param depth The recursion depth the elements were generated at
+     * @param collapsed Whether the triangles of the deepest level were collapsed
+     * @throws IllegalArgumentException If the number of elements does not match the depth
+     */
+    public SierpinskiTreeIndex(FractalElementBuffer elements, int depth, boolean collapsed) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("Depth must not be negative");
+        }
+        this.elements = elements;
+        this.depth = depth;
+        this.collapsed = collapsed;
+        subtreeSizes = new int[depth + 1];
+        for (int level = depth - 1; level >= 0; level--) {
+            subtreeSizes[level] = ownElements(level) + 3 * subtreeSizes[level + 1];
+        }
+        if (elements.size() != subtreeSizes[0]) {
+            throw new IllegalArgumentException("Expected " + subtreeSizes[0] + " elements for depth " + depth
+                    + " but got " + elements.size());
+        }
+    }
+
+    /**
+     * Calculates the number of elements of an unzoomed Sierpinski triangle, as the index expects them
+     * @param depth The recursion depth
+     * @param collapsed Whether the triangles of the deepest level are collapsed
+     * @return The number of elements
+     */
+    public static int elementCount(int depth, boolean collapsed) {
+        int count = SierpinskiEngine.elementCount(depth);
+        // Each of the deepest triangles loses one of its two elements when collapsed
+        return collapsed && depth > 0 ? count - (count - SierpinskiEngine.elementCount(depth - 1)) / 2 : count;
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Queries
+    //----------------------------------------------------------------------------------------------------------------//
+
+    @Override
+    public FractalElementBuffer getElements() {
+        return elements;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br><br>
+     * <p>The tree is walked from the root, skipping every triangle whose bounds and margin miss the rectangle
+     * together with everything below it.</p>
+     */
+    @Override
+    public int[] query(int minX, int minY, int maxX, int maxY) {
+        if (minX >= maxX || minY >= maxY || depth == 0) {
+            return new int[0];
+        }
+        // At most two pending corner triangles per level, plus the one being visited
+        int[] offsets = new int[2 * depth + 1];
+        int[] levels = new int[2 * depth + 1];
+        int pending = 1;
+        int[] bounds = new int[4];
+        int[] found = new int[16];
+        int count = 0;
+        while (pending > 0) {
+            pending--;
+            int offset = offsets[pending];
+            int level = levels[pending];
+            elements.getBounds(triangleElement(offset, level), bounds);
+            int margin = (bounds[3] - bounds[1]) / 6 + 2;
+            if (bounds[0] - margin >= maxX || bounds[2] + margin <= minX
+                    || bounds[1] - margin >= maxY || bounds[3] + margin <= minY) {
+                continue;
+            }
+            int own = ownElements(level);
+            for (int index = offset; index < offset + own; index++) {
+                elements.getBounds(index, bounds);
+                if (bounds[0] < maxX && bounds[2] > minX && bounds[1] < maxY && bounds[3] > minY) {
+                    if (count == found.length) {
+                        found = Arrays.copyOf(found, count * 2);
+                    }
+                    found[count++] = index;
+                }
+            }
+            if (level < depth - 1) {
+                // Pushed last corner first, so the corners are visited in order and the elements found in preorder
+                for (int corner = 2; corner >= 0; corner--) {
+                    offsets[pending] = offset + own + corner * subtreeSizes[level + 1];
+                    levels[pending] = level + 1;
+                    pending++;
+                }
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br><br>
+     * <p>The corner triangles of a triangle only share edges, so a point is in at most a few triangles per level.</p>
+     */
+    @Override
+    public int[] queryPoint(float x, float y) {
+        int pixelX = (int) Math.floor(x);
+        int pixelY = (int) Math.floor(y);
+        int[] found = query(pixelX, pixelY, pixelX + 1, pixelY + 1);
+        int count = 0;
+        for (int index : found) {
+            if (elements.contains(index, x, y)) {
+                found[count++] = index;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br><br>
+     * <p>The path is found by descending from the root into the corner subtree holding the element.</p>
+     * @throws IndexOutOfBoundsException If there is no element at the index
+     */
+    @Override
+    public int[] getPath(int index) {
+        if (index < 0 || index >= elements.size()) {
+            throw new IndexOutOfBoundsException("No element " + index + " in " + elements.size());
+        }
+        int[] path = new int[depth];
+        int offset = 0;
+        int level = 0;
+        while (index >= offset + ownElements(level)) {
+            int corner = (index - offset - ownElements(level)) / subtreeSizes[level + 1];
+            offset += ownElements(level) + corner * subtreeSizes[level + 1];
+            path[level++] = corner;
+        }
+        return Arrays.copyOf(path, level);
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Tree Layout
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Gets the number of elements of a single triangle at a level
+     * @param level The level, with the root at 0
+     * @return One for a collapsed triangle, otherwise two: the circle and the outlined triangle
+     */
+    private int ownElements(int level) {
+        return collapsed && level == depth - 1 ? 1 : 2;
+    }
+
+    /**
+     * Gets the index of the element holding the outline of a triangle
+     * @param offset The index of the first element of the triangle
+     * @param level The level of the triangle
+     * @return The index of the outlined or filled triangle
+     */
+    private int triangleElement(int offset, int level) {
+        return ownElements(level) == 1 ? offset : offset + 1;
+    }
+}
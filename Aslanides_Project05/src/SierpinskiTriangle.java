@@ -0,0 +1,71 @@
+/**
+ * The Sierpinski triangle, with a circle inscribed in every triangle: the fractal this program started with. Each
+ * triangle is split into three corner triangles at the midpoints of its sides, so a fractal of depth n has
+ * (3<sup>n</sup> - 1) / 2 triangles.
+ * <p>
+ * The elements are generated by a {@link SierpinskiEngine}, with the level of detail and the culled subdivision of
+ * zoomed views it provides. The {@link FractalGenerator} also keeps the unzoomed geometry of this type in its own
+ * cache, so changing only the colors recolors the cached triangles instead of generating them again.
+ * </p>
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+public class SierpinskiTriangle implements FractalType {
+
+    /** Unused constructor for the SierpinskiTriangle class */
+    public SierpinskiTriangle() {}
+
+    @Override
+    public String getId() {
+        return "sierpinski";
+    }
+
+    @Override
+    public String getName() {
+        return "Sierpinski Triangle";
+    }
+
+    @Override
+    public int getMaxDepth() {
+        return 12;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br><br>
+     * <p>Unzoomed, the recursion stops at the first level whose triangles are smaller than the level of detail, and
+     * the triangles of that level are filled in. Zoomed, only the triangles on screen are subdivided, one level deeper
+     * for every doubling of the zoom.</p>
+     * @param request The parameters of the fractal and the shared services
+     * @param sink The sink to send the elements to
+     */
+    @Override
+    public void generate(FractalRequest request, FractalSink sink) {
+        int[] triangle = request.getTriangle();
+        FractalView view = request.getView();
+        if (view.isIdentity()) {
+            int depth = Math.min(request.getDepth(), SierpinskiEngine.detailDepth(triangle, request.getMinSize()));
+            new SierpinskiEngine().generate(sink, triangle, depth, request.getPalette(), request.getCircleOpacity(),
+                    request.getRootKey(), depth < request.getDepth());
+        } else {
+            new SierpinskiEngine().generateView(sink, toScreen(triangle, view), request.getDepth()
+                    + view.getExtraDepth(), request.getCanvasWidth(), request.getCanvasHeight(), request.getMinSize(),
+                    request.getPalette(), request.getCircleOpacity(), request.getRootKey(), request::isCancelled);
+        }
+    }
+
+    /**
+     * Maps a triangle on the canvas to the screen
+     * @param bounds The triangle on the canvas, as six coordinates
+     * @param view The zoom and pan of the canvas
+     * @return The triangle on the screen, as six coordinates
+     */
+    private static double[] toScreen(int[] bounds, FractalView view) {
+        double[] screen = new double[6];
+        for (int point = 0; point < 6; point += 2) {
+            screen[point] = view.toScreenX(bounds[point]);
+            screen[point + 1] = view.toScreenY(bounds[point + 1]);
+        }
+        return screen;
+    }
+}
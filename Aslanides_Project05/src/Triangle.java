@@ -4,6 +4,7 @@ import java.awt.Graphics;
 
 /**
  * The triangle class is used to draw a triangle fractal element on the screen.
+ * A triangle is normally outlined; a filled triangle stands in for the detail too small to draw below it.
  * @author Abraham Aslanides
  * @version CSC 143, June 4, 2023
  */
@@ -33,6 +34,9 @@ public class Triangle implements FractalElement{
     /** The color of the triangle */
     private final Color color;
 
+    /** Whether the triangle is filled instead of outlined */
+    private final boolean filled;
+
     //----------------------------------------------------------------------------------------------------------------//
     // Constructor
     //----------------------------------------------------------------------------------------------------------------//
@@ -45,10 +49,23 @@ public class Triangle implements FractalElement{
      * @param color The color of the triangle
      */
     public Triangle(Point ptA, Point ptB, Point ptC, Color color) {
+        this(ptA, ptB, ptC, color, false);
+    }
+
+    /**
+     * Constructor for an outlined or filled triangle
+     * @param ptA The first point of the triangle
+     * @param ptB The second point of the triangle
+     * @param ptC The third point of the triangle
+     * @param color The color of the triangle
+     * @param filled Whether the triangle is filled instead of outlined
+     */
+    public Triangle(Point ptA, Point ptB, Point ptC, Color color, boolean filled) {
         this.ptA = ptA;
         this.ptB = ptB;
         this.ptC = ptC;
         this.color = color;
+        this.filled = filled;
     }
 
     //----------------------------------------------------------------------------------------------------------------//
@@ -57,6 +74,10 @@ public class Triangle implements FractalElement{
     @Override
     public void draw(Graphics g) {
         g.setColor(color);
+        if (filled) {
+            g.fillPolygon(new int[]{ptA.x, ptB.x, ptC.x}, new int[]{ptA.y, ptB.y, ptC.y}, 3);
+            return;
+        }
         g.drawLine(ptA.x, ptA.y, ptB.x, ptB.y);
         g.drawLine(ptB.x, ptB.y, ptC.x, ptC.y);
         g.drawLine(ptC.x, ptC.y, ptA.x, ptA.y);
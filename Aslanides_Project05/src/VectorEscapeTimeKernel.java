@@ -0,0 +1,80 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Counts escape-time iterations for as many points at once as the widest double vector of the processor holds: four
+ * with AVX2, eight with AVX-512. The points of a vector iterate together until all of them escaped, with the escaped
+ * ones masked out of the counts, and the points left at the end of the row go through
+ * {@link ScalarEscapeTimeKernel}. The arithmetic is the same as the scalar kernel's, operation for operation, so the
+ * counts are identical.
+ * <p>
+ * This class uses the incubating module jdk.incubator.vector. It is compiled with the module added, but only loaded
+ * by {@link EscapeTimeLayer} when the module is resolved at run time, which takes
+ * {@code --add-modules jdk.incubator.vector} on the java command line.
+ * </p>
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+public class VectorEscapeTimeKernel implements EscapeTimeKernel {
+
+    /** The widest double vector the processor supports */
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    /** The index of each lane, to place the points of a vector along the row */
+    private static final DoubleVector LANES = DoubleVector.broadcast(SPECIES, 0).addIndex(1);
+
+    /** Unused constructor for the VectorEscapeTimeKernel class */
+    public VectorEscapeTimeKernel() {}
+
+    @Override
+    public String getName() {
+        return "vector (" + SPECIES.length() + " lanes)";
+    }
+
+    @Override
+    public long iterateRow(double startRe, double stepRe, double im, boolean julia, double constantRe,
+                           double constantIm, int maxIterations, int[] counts, int offset, int length) {
+        int lanes = SPECIES.length();
+        double[] laneCounts = new double[lanes];
+        DoubleVector rowIm = DoubleVector.broadcast(SPECIES, im);
+        long total = 0;
+        int index = 0;
+        for (; index <= length - lanes; index += lanes) {
+            // startRe + index * stepRe for every lane, rounded the same way as in the scalar kernel
+            DoubleVector points = LANES.add(index).mul(stepRe).add(startRe);
+            DoubleVector re = julia ? points : DoubleVector.zero(SPECIES);
+            DoubleVector pointIm = julia ? rowIm : DoubleVector.zero(SPECIES);
+            DoubleVector addRe = julia ? DoubleVector.broadcast(SPECIES, constantRe) : points;
+            DoubleVector addIm = julia ? DoubleVector.broadcast(SPECIES, constantIm) : rowIm;
+            DoubleVector iterations = DoubleVector.zero(SPECIES);
+            VectorMask<Double> active = SPECIES.maskAll(true);
+            for (int iteration = 0; iteration < maxIterations; iteration++) {
+                DoubleVector re2 = re.mul(re);
+                DoubleVector im2 = pointIm.mul(pointIm);
+                active = active.and(re2.add(im2).compare(VectorOperators.LE, 4));
+                if (!active.anyTrue()) {
+                    break;
+                }
+                iterations = iterations.add(1, active);
+                // Escaped lanes keep iterating until the whole vector is done, but no longer count
+                pointIm = re.mul(2).mul(pointIm).add(addIm);
+                re = re2.sub(im2).add(addRe);
+            }
+            iterations.intoArray(laneCounts, 0);
+            for (int lane = 0; lane < lanes; lane++) {
+                counts[offset + index + lane] = (int) laneCounts[lane];
+                total += (int) laneCounts[lane];
+            }
+        }
+        for (; index < length; index++) {
+            double re = startRe + index * stepRe;
+            int iterations = julia ? ScalarEscapeTimeKernel.escapeTime(re, im, constantRe, constantIm, maxIterations)
+                    : ScalarEscapeTimeKernel.escapeTime(0, 0, re, im, maxIterations);
+            counts[offset + index] = iterations;
+            total += iterations;
+        }
+        return total;
+    }
+}
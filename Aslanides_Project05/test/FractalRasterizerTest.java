@@ -0,0 +1,146 @@
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Transparency;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests that the {@link FractalRasterizer} renders tiled images pixel-identical to drawing every element through one
+ * graphics object, in element order and in batches, with tiles that do not divide the image.
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+public class FractalRasterizerTest {
+
+    /** The width of the rendered images, which none of the tile sizes divide */
+    private static final int WIDTH = 601;
+
+    /** The height of the rendered images, which none of the tile sizes divide */
+    private static final int HEIGHT = 523;
+
+    /** The tile sizes compared, from tiles smaller than most elements to a single row of partial tiles */
+    private static final int[] TILE_SIZES = new int[]{37, 100, 512};
+
+    /** The scales compared, including one that puts element edges between pixels */
+    private static final double[] SCALES = new double[]{1, 0.87};
+
+    /**
+     * Checks tiled rendering in element order on a background color
+     */
+    @Test
+    public void orderedTilesMatchSerialRendering() {
+        assertTilesMatch(BufferedImage.TYPE_INT_RGB, false, Color.WHITE);
+    }
+
+    /**
+     * Checks tiled rendering in batches of one shape and color on a background color
+     */
+    @Test
+    public void batchedTilesMatchSerialRendering() {
+        assertTilesMatch(BufferedImage.TYPE_INT_RGB, true, Color.WHITE);
+    }
+
+    /**
+     * Checks tiled rendering over the pixels already in a translucent image, as over an escape-time background
+     */
+    @Test
+    public void tilesDrawnOverImageMatchSerialRendering() {
+        assertTilesMatch(BufferedImage.TYPE_INT_ARGB, false, null);
+        assertTilesMatch(BufferedImage.TYPE_INT_ARGB, true, null);
+    }
+
+    /**
+     * Checks rendering into images of a custom type, as read by ImageIO, and indexed images, which are not tiled
+     */
+    @Test
+    public void customAndIndexedImagesMatchSerialRendering() {
+        assertTilesMatch(BufferedImage.TYPE_CUSTOM, false, Color.WHITE);
+        assertTilesMatch(BufferedImage.TYPE_CUSTOM, true, null);
+        assertTilesMatch(BufferedImage.TYPE_BYTE_INDEXED, false, Color.WHITE);
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Helper Methods
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Checks that tiled rendering matches serial rendering for every tile size and scale
+     * @param type The image type, or {@link BufferedImage#TYPE_CUSTOM} for an RGB image of bytes
+     * @param batched Whether to draw in batches of one shape and color
+     * @param background The background color, or null to draw over a pattern already in the image
+     */
+    private static void assertTilesMatch(int type, boolean batched, Color background) {
+        FractalElementBuffer elements = generateElements();
+        for (int tileSize : TILE_SIZES) {
+            FractalRasterizer rasterizer = new FractalRasterizer(tileSize, 1, 3);
+            rasterizer.setBatched(batched);
+            for (double scale : SCALES) {
+                BufferedImage expected = createImage(type);
+                FractalRasterizer.renderSerial(elements, expected, background, scale, batched);
+                BufferedImage actual = createImage(type);
+                rasterizer.renderTiled(elements, actual, background, scale);
+                assertEquals(expected.getType(), actual.getType());
+                assertArrayEquals(pixels(expected), pixels(actual),
+                        "tile size " + tileSize + ", scale " + scale + (batched ? ", batched" : ", ordered"));
+            }
+            rasterizer.shutdown();
+        }
+    }
+
+    /**
+     * Generates a fractal with several colors and translucent circles, so the drawing order shows in the pixels
+     * @return The elements
+     */
+    private static FractalElementBuffer generateElements() {
+        ArrayList<Color> theme = new ArrayList<>();
+        theme.add(new Color(0x2F2059));
+        theme.add(new Color(0xE8B04B));
+        theme.add(new Color(0x3C8D93));
+        FractalGenerator generator = new FractalGenerator(theme);
+        generator.setCircleOpacity(128);
+        generator.setRecursionDepth(7);
+        return generator.getData();
+    }
+
+    /**
+     * Creates an image filled with a pattern, for the elements to be drawn over when there is no background color
+     * @param type The image type, or {@link BufferedImage#TYPE_CUSTOM} for an RGB image of bytes
+     * @return The image
+     */
+    private static BufferedImage createImage(int type) {
+        BufferedImage image;
+        if (type == BufferedImage.TYPE_CUSTOM) {
+            // Bytes in RGB order, which matches none of the predefined types
+            ColorModel colorModel = new ComponentColorModel(ColorSpace.getInstance(ColorSpace.CS_sRGB), false, false,
+                    Transparency.OPAQUE, DataBuffer.TYPE_BYTE);
+            image = new BufferedImage(colorModel, Raster.createInterleavedRaster(DataBuffer.TYPE_BYTE, WIDTH, HEIGHT,
+                    WIDTH * 3, 3, new int[]{0, 1, 2}, null), false, null);
+        } else {
+            image = new BufferedImage(WIDTH, HEIGHT, type);
+        }
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                image.setRGB(x, y, (x * 7 + y) << 24 | (x & 0xFF) << 16 | (y & 0xFF) << 8 | (x ^ y) & 0xFF);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Gets the samples of every pixel of an image
+     * @param image The image
+     * @return The samples, row by row
+     */
+    private static int[] pixels(BufferedImage image) {
+        return image.getRaster().getPixels(0, 0, image.getWidth(), image.getHeight(), (int[]) null);
+    }
+}
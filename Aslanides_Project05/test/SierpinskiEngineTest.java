@@ -0,0 +1,148 @@
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Point;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests that the {@link SierpinskiEngine} generates the same elements, in the same order, as the original recursive
+ * generation on {@link Point} objects, both when it runs serially and when the generator splits it into fork/join
+ * tasks.
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+public class SierpinskiEngineTest {
+
+    /** The deepest recursion depth compared */
+    private static final int MAX_DEPTH = 7;
+
+    /** The bounding triangle the generator uses */
+    private static final int[] GENERATOR_TRIANGLE = new int[]{300, 0, 0, 520, 600, 520};
+
+    /** Bounding triangles with odd coordinates, so the integer division of every midpoint and center is exercised */
+    private static final int[][] TRIANGLES = new int[][]{
+            GENERATOR_TRIANGLE,
+            {301, 7, 3, 523, 611, 519},
+            {0, 0, 999, 13, 421, 777},
+    };
+
+    /**
+     * Checks the serial engine against the recursion for several triangles and depths
+     */
+    @Test
+    public void serialGenerationMatchesRecursion() {
+        SierpinskiEngine engine = new SierpinskiEngine();
+        for (int[] triangle : TRIANGLES) {
+            for (int depth = 0; depth <= MAX_DEPTH; depth++) {
+                FractalElementBuffer elements = new FractalElementBuffer();
+                engine.generate(elements, triangle, depth, new int[]{0xFF0000}, 255, SierpinskiEngine.rootKey(0));
+                assertSameElements(recursiveElements(triangle, depth), elements, "depth " + depth);
+            }
+        }
+    }
+
+    /**
+     * Checks the generator's fork/join generation against the recursion, with every level of the deeper fractals
+     * split into tasks
+     */
+    @Test
+    public void parallelGenerationMatchesRecursion() {
+        ArrayList<Color> theme = new ArrayList<>();
+        theme.add(Color.RED);
+        for (int depth = 1; depth <= MAX_DEPTH; depth++) {
+            // A new generator per depth, so each depth is generated from scratch, not deepened from the last one
+            FractalGenerator generator = new FractalGenerator(theme);
+            generator.setParallelThreshold(2);
+            generator.setRecursionDepth(depth);
+            assertSameElements(recursiveElements(GENERATOR_TRIANGLE, depth), generator.getData(), "depth " + depth);
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Helper Methods
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Checks that a buffer holds the expected elements in order
+     * @param expected The type code followed by the coordinates of each expected element
+     * @param actual The generated elements
+     * @param message The message to report a mismatch with
+     */
+    private static void assertSameElements(ArrayList<float[]> expected, FractalElementBuffer actual, String message) {
+        assertEquals(expected.size(), actual.size(), message + ": number of elements");
+        for (int index = 0; index < expected.size(); index++) {
+            float[] element = expected.get(index);
+            float[] generated = new float[element.length];
+            generated[0] = actual.getType(index);
+            for (int coordinate = 1; coordinate < element.length; coordinate++) {
+                generated[coordinate] = actual.getCoordinate(index, coordinate - 1);
+            }
+            assertArrayEquals(element, generated, message + ": element " + index);
+        }
+    }
+
+    /**
+     * Generates the elements with the original recursion
+     * @param bounds The bounding triangle, as six coordinates
+     * @param depth The recursion depth
+     * @return The type code followed by the coordinates of each element, in drawing order
+     */
+    private static ArrayList<float[]> recursiveElements(int[] bounds, int depth) {
+        ArrayList<float[]> elements = new ArrayList<>();
+        Point[] triangle = new Point[]{new Point(bounds[0], bounds[1]), new Point(bounds[2], bounds[3]),
+                new Point(bounds[4], bounds[5])};
+        generateElements(elements, triangle, depth);
+        return elements;
+    }
+
+    /**
+     * Copy of the original recursive helper method of the generator, recording the geometry of each element
+     * @param newElements The list to add the elements to
+     * @param triangle The triangle to generate elements from
+     * @param recursionIndex The recursion index
+     */
+    private static void generateElements(ArrayList<float[]> newElements, Point[] triangle, int recursionIndex) {
+        if (recursionIndex > 0) {
+            // Calculate the center of the triangle
+            int centerX = (triangle[0].x + triangle[1].x + triangle[2].x) / 3;
+            int centerY = (triangle[0].y + triangle[1].y + triangle[2].y) / 3;
+
+            // Calculate the radius of the circle as one sixth the height of the triangle
+            int radius = 0;
+            if (triangle[0].y <= triangle[1].y) {
+                radius = Math.abs((triangle[2].y - triangle[0].y)) / 6;
+            } else if (triangle[0].y <= triangle[2].y) {
+                radius = Math.abs((triangle[1].y - triangle[0].y)) / 6;
+            }
+
+            newElements.add(new float[]{FractalElementBuffer.CIRCLE, centerX, centerY, radius});
+            newElements.add(new float[]{FractalElementBuffer.TRIANGLE, triangle[0].x, triangle[0].y,
+                    triangle[1].x, triangle[1].y, triangle[2].x, triangle[2].y});
+
+            // Generate new triangles at the corners of the current triangle
+            Point[] newTriangle1 = new Point[]{triangle[0], midpoint(triangle[0], triangle[1]),
+                    midpoint(triangle[0], triangle[2])};
+            Point[] newTriangle2 = new Point[]{triangle[1], midpoint(triangle[1], triangle[0]),
+                    midpoint(triangle[1], triangle[2])};
+            Point[] newTriangle3 = new Point[]{triangle[2], midpoint(triangle[2], triangle[0]),
+                    midpoint(triangle[2], triangle[1])};
+
+            generateElements(newElements, newTriangle1, recursionIndex - 1);
+            generateElements(newElements, newTriangle2, recursionIndex - 1);
+            generateElements(newElements, newTriangle3, recursionIndex - 1);
+        }
+    }
+
+    /**
+     * Calculates the midpoint of two points
+     * @param p1 The first point
+     * @param p2 The second point
+     * @return The midpoint
+     */
+    private static Point midpoint(Point p1, Point p2) {
+        return new Point((p1.x + p2.x) / 2, (p1.y + p2.y) / 2);
+    }
+}
@@ -0,0 +1,671 @@
+package benchmarks;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * Bridge from the benchmarks to the application classes. The application lives in the default package, which Java
+ * code in a named package cannot import, and JMH does not accept benchmarks in the default package. The classes are
+ * therefore looked up by name once, and their methods are called through constant method handles typed with Object
+ * in place of the application types, which the JIT compiles down to direct calls.
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+
+//--------------------------------------------------------------------------------------------------------------------//
+// Contents
+// 1. Method Handles
+// 2. Generator
+// 3. Elements
+// 4. Observers
+// 5. Themes
+// 6. Background
+// 7. Spatial Index
+// 8. Lookup
+//--------------------------------------------------------------------------------------------------------------------//
+
+final class App {
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Method Handles
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /** The lookup used to find the application classes and methods */
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    /** The FractalObserver interface */
+    private static final Class<?> OBSERVER = find("FractalObserver");
+
+    /** FractalGenerator(ArrayList) */
+    private static final MethodHandle NEW_GENERATOR =
+            constructor("FractalGenerator", methodType(void.class, ArrayList.class));
+
+    /** FractalGenerator.setRecursionDepth(int) */
+    private static final MethodHandle SET_RECURSION_DEPTH =
+            method("FractalGenerator", "setRecursionDepth", methodType(void.class, int.class));
+
+    /** FractalGenerator.setSeed(long) */
+    private static final MethodHandle SET_SEED =
+            method("FractalGenerator", "setSeed", methodType(void.class, long.class));
+
+    /** FractalTypes.forId(String) */
+    private static final MethodHandle TYPE_FOR_ID =
+            staticMethod("FractalTypes", "forId", methodType(find("FractalType"), String.class));
+
+    /** FractalType.getMaxDepth() */
+    private static final MethodHandle GET_MAX_DEPTH = method("FractalType", "getMaxDepth", methodType(int.class));
+
+    /** FractalGenerator.setFractalType(FractalType) */
+    private static final MethodHandle SET_FRACTAL_TYPE =
+            method("FractalGenerator", "setFractalType", methodType(void.class, find("FractalType")));
+
+    /** FractalGenerator.getData() */
+    private static final MethodHandle GET_DATA =
+            method("FractalGenerator", "getData", methodType(find("FractalElementBuffer")));
+
+    /** FractalGenerator.generateElements() */
+    private static final MethodHandle GENERATE_ELEMENTS =
+            method("FractalGenerator", "generateElements", methodType(void.class));
+
+    /** FractalGenerator.getMetrics() */
+    private static final MethodHandle GET_METRICS =
+            method("FractalGenerator", "getMetrics", methodType(find("FractalMetrics")));
+
+    /** FractalMetrics.setEnabled(boolean) */
+    private static final MethodHandle SET_METRICS_ENABLED =
+            method("FractalMetrics", "setEnabled", methodType(void.class, boolean.class));
+
+    /** FractalGenerator.clearCaches() */
+    private static final MethodHandle CLEAR_CACHES = method("FractalGenerator", "clearCaches", methodType(void.class));
+
+    /** FractalGenerator.registerObserver(FractalObserver) */
+    private static final MethodHandle REGISTER_OBSERVER =
+            method("FractalGenerator", "registerObserver", methodType(void.class, OBSERVER));
+
+    /** FractalGenerator.notifyObservers() */
+    private static final MethodHandle NOTIFY_OBSERVERS =
+            method("FractalGenerator", "notifyObservers", methodType(void.class));
+
+    /** FractalElementBuffer.size() */
+    private static final MethodHandle BUFFER_SIZE = method("FractalElementBuffer", "size", methodType(int.class));
+
+    /** FractalElementBuffer.draw(Graphics) */
+    private static final MethodHandle BUFFER_DRAW =
+            method("FractalElementBuffer", "draw", methodType(void.class, Graphics.class));
+
+    /** FractalElementBuffer.drawBatched(Graphics2D) */
+    private static final MethodHandle BUFFER_DRAW_BATCHED =
+            method("FractalElementBuffer", "drawBatched", methodType(void.class, Graphics2D.class));
+
+    /** Circle(Point, double, Color, int) */
+    private static final MethodHandle NEW_CIRCLE =
+            constructor("Circle", methodType(void.class, Point.class, double.class, Color.class, int.class));
+
+    /** Triangle(Point, Point, Point, Color) */
+    private static final MethodHandle NEW_TRIANGLE =
+            constructor("Triangle", methodType(void.class, Point.class, Point.class, Point.class, Color.class));
+
+    /** FractalElement.draw(Graphics) */
+    private static final MethodHandle ELEMENT_DRAW =
+            method("FractalElement", "draw", methodType(void.class, Graphics.class));
+
+    /** FractalThemes.load(File) */
+    private static final MethodHandle LOAD_THEMES = staticMethod("FractalThemes", "load",
+            methodType(find("FractalThemes"), File.class));
+
+    /** FractalThemes.getTheme(int) */
+    private static final MethodHandle GET_THEME =
+            method("FractalThemes", "getTheme", methodType(ArrayList.class, int.class));
+
+    /** FractalGenerator.setBackground(EscapeTimeFractal) */
+    private static final MethodHandle SET_BACKGROUND =
+            method("FractalGenerator", "setBackground", methodType(void.class, find("EscapeTimeFractal")));
+
+    /** FractalGenerator.getBackgroundLayer() */
+    private static final MethodHandle GET_BACKGROUND_LAYER =
+            method("FractalGenerator", "getBackgroundLayer", methodType(find("EscapeTimeLayer")));
+
+    /** EscapeTimeLayer.getDefaultKernel() */
+    private static final MethodHandle GET_DEFAULT_KERNEL =
+            staticMethod("EscapeTimeLayer", "getDefaultKernel", methodType(find("EscapeTimeKernel")));
+
+    /** ScalarEscapeTimeKernel() */
+    private static final MethodHandle NEW_SCALAR_KERNEL =
+            constructor("ScalarEscapeTimeKernel", methodType(void.class));
+
+    /** EscapeTimeKernel.getName() */
+    private static final MethodHandle KERNEL_NAME = method("EscapeTimeKernel", "getName", methodType(String.class));
+
+    /** EscapeTimeLayer.render(BufferedImage, double, EscapeTimeKernel) */
+    private static final MethodHandle RENDER_LAYER = method("EscapeTimeLayer", "render",
+            methodType(long.class, BufferedImage.class, double.class, find("EscapeTimeKernel")));
+
+    /** FractalGenerator.getSnapshot() */
+    private static final MethodHandle GET_SNAPSHOT =
+            method("FractalGenerator", "getSnapshot", methodType(find("FractalSnapshot")));
+
+    /** FractalSnapshot.getIndex() */
+    private static final MethodHandle SNAPSHOT_INDEX =
+            method("FractalSnapshot", "getIndex", methodType(find("FractalSpatialIndex")));
+
+    /** FractalGridIndex(FractalElementBuffer) */
+    private static final MethodHandle NEW_GRID_INDEX =
+            constructor("FractalGridIndex", methodType(void.class, find("FractalElementBuffer")));
+
+    /** FractalSpatialIndex.query(int, int, int, int) */
+    private static final MethodHandle INDEX_QUERY = method("FractalSpatialIndex", "query",
+            methodType(int[].class, int.class, int.class, int.class, int.class));
+
+    /** FractalSpatialIndex.queryPoint(float, float) */
+    private static final MethodHandle INDEX_QUERY_POINT =
+            method("FractalSpatialIndex", "queryPoint", methodType(int[].class, float.class, float.class));
+
+    /** Unused constructor for the App class */
+    private App() {}
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Generator
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Creates a FractalGenerator
+     * @param theme The default theme colors
+     * @return The generator
+     */
+    static Object newGenerator(ArrayList<Color> theme) {
+        try {
+            return (Object) NEW_GENERATOR.invokeExact(theme);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Calls FractalGenerator.setRecursionDepth
+     * @param generator The generator
+     * @param recursionDepth The recursion depth
+     */
+    static void setRecursionDepth(Object generator, int recursionDepth) {
+        try {
+            SET_RECURSION_DEPTH.invokeExact(generator, recursionDepth);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Calls FractalGenerator.setSeed
+     * @param generator The generator
+     * @param seed The seed
+     */
+    static void setSeed(Object generator, long seed) {
+        try {
+            SET_SEED.invokeExact(generator, seed);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Calls FractalGenerator.setFractalType with the type found by FractalTypes.forId
+     * @param generator The generator
+     * @param id The identifier of the fractal type
+     * @return The maximum recursion depth of the type
+     */
+    static int setFractalType(Object generator, String id) {
+        try {
+            Object type = (Object) TYPE_FOR_ID.invokeExact(id);
+            SET_FRACTAL_TYPE.invokeExact(generator, type);
+            return (int) GET_MAX_DEPTH.invokeExact(type);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Calls FractalGenerator.getData
+     * @param generator The generator
+     * @return The FractalElementBuffer
+     */
+    static Object getData(Object generator) {
+        try {
+            return (Object) GET_DATA.invokeExact(generator);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Calls FractalGenerator.generateElements
+     * @param generator The generator
+     */
+    static void generateElements(Object generator) {
+        try {
+            GENERATE_ELEMENTS.invokeExact(generator);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Switches the metrics of a FractalGenerator on or off
+     * @param generator The generator
+     * @param enabled Whether metrics are recorded
+     */
+    static void setMetricsEnabled(Object generator, boolean enabled) {
+        try {
+            Object metrics = (Object) GET_METRICS.invokeExact(generator);
+            SET_METRICS_ENABLED.invokeExact(metrics, enabled);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Calls FractalGenerator.clearCaches
+     * @param generator The generator
+     */
+    static void clearCaches(Object generator) {
+        try {
+            CLEAR_CACHES.invokeExact(generator);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Elements
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Calls FractalElementBuffer.size
+     * @param buffer The FractalElementBuffer
+     * @return The number of elements
+     */
+    static int size(Object buffer) {
+        try {
+            return (int) BUFFER_SIZE.invokeExact(buffer);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Calls FractalElementBuffer.draw
+     * @param buffer The FractalElementBuffer
+     * @param g The graphics object
+     */
+    static void drawBuffer(Object buffer, Graphics g) {
+        try {
+            BUFFER_DRAW.invokeExact(buffer, g);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Calls FractalElementBuffer.drawBatched
+     * @param buffer The FractalElementBuffer
+     * @param g The graphics object
+     */
+    static void drawBufferBatched(Object buffer, Graphics2D g) {
+        try {
+            BUFFER_DRAW_BATCHED.invokeExact(buffer, g);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Creates a Circle
+     * @param center The center point
+     * @param radius The radius
+     * @param color The color
+     * @param opacity The opacity
+     * @return The circle
+     */
+    static Object newCircle(Point center, double radius, Color color, int opacity) {
+        try {
+            return (Object) NEW_CIRCLE.invokeExact(center, radius, color, opacity);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Creates a Triangle
+     * @param ptA The first point
+     * @param ptB The second point
+     * @param ptC The third point
+     * @param color The color
+     * @return The triangle
+     */
+    static Object newTriangle(Point ptA, Point ptB, Point ptC, Color color) {
+        try {
+            return (Object) NEW_TRIANGLE.invokeExact(ptA, ptB, ptC, color);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Calls FractalElement.draw
+     * @param element The Circle or Triangle
+     * @param g The graphics object
+     */
+    static void drawElement(Object element, Graphics g) {
+        try {
+            ELEMENT_DRAW.invokeExact(element, g);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Observers
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Registers an observer that runs a task on every update
+     * @param generator The generator
+     * @param update The task to run from FractalObserver.update
+     */
+    static void registerObserver(Object generator, Runnable update) {
+        try {
+            REGISTER_OBSERVER.invokeExact(generator, newObserver(update));
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Calls FractalGenerator.notifyObservers
+     * @param generator The generator
+     */
+    static void notifyObservers(Object generator) {
+        try {
+            NOTIFY_OBSERVERS.invokeExact(generator);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Creates a FractalObserver whose update method runs a task. The observer is a lambda class made by
+     * LambdaMetafactory, like one written in source, so the benchmark measures no proxy dispatch.
+     * @param update The task
+     * @return The observer
+     * @throws Throwable If the lambda class cannot be made
+     */
+    private static Object newObserver(Runnable update) throws Throwable {
+        MethodHandle run = LOOKUP.findVirtual(Runnable.class, "run", methodType(void.class));
+        CallSite site = LambdaMetafactory.metafactory(LOOKUP, "update", methodType(OBSERVER, Runnable.class),
+                methodType(void.class), run, methodType(void.class));
+        return site.getTarget().invoke(update);
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Themes
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Calls FractalThemes.load
+     * @param themeFile The theme file
+     * @return The FractalThemes
+     */
+    static Object loadThemes(File themeFile) {
+        try {
+            return (Object) LOAD_THEMES.invokeExact(themeFile);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Calls FractalThemes.getTheme
+     * @param themes The FractalThemes
+     * @param index The index of the theme
+     * @return The theme's colors
+     */
+    @SuppressWarnings("unchecked")
+    static ArrayList<Color> getTheme(Object themes, int index) {
+        try {
+            return (ArrayList<Color>) GET_THEME.invokeExact(themes, index);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Background
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Calls FractalGenerator.setBackground with the escape-time type found by FractalTypes.forId, and gets the layer
+     * @param generator The generator
+     * @param id The identifier of an escape-time fractal type
+     * @return The EscapeTimeLayer
+     */
+    static Object getBackgroundLayer(Object generator, String id) {
+        try {
+            Object type = (Object) TYPE_FOR_ID.invokeExact(id);
+            SET_BACKGROUND.invokeExact(generator, type);
+            return (Object) GET_BACKGROUND_LAYER.invokeExact(generator);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Gets an escape-time kernel
+     * @param vector Whether to get the default kernel, which is the vector kernel when it could be loaded, instead of
+     *               the scalar kernel
+     * @return The EscapeTimeKernel
+     */
+    static Object getKernel(boolean vector) {
+        try {
+            return vector ? (Object) GET_DEFAULT_KERNEL.invokeExact() : (Object) NEW_SCALAR_KERNEL.invokeExact();
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Calls EscapeTimeKernel.getName
+     * @param kernel The EscapeTimeKernel
+     * @return The name of the kernel
+     */
+    static String getKernelName(Object kernel) {
+        try {
+            return (String) KERNEL_NAME.invokeExact(kernel);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Calls EscapeTimeLayer.render
+     * @param layer The EscapeTimeLayer
+     * @param image The image
+     * @param scale The number of image pixels per screen pixel
+     * @param kernel The EscapeTimeKernel
+     * @return The sum of the iterations of every pixel
+     */
+    static long renderLayer(Object layer, BufferedImage image, double scale, Object kernel) {
+        try {
+            return (long) RENDER_LAYER.invokeExact(layer, image, scale, kernel);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Spatial Index
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Gets a spatial index of the elements of a generator: the one its snapshot holds, or a newly built grid index
+     * @param generator The generator
+     * @param snapshotIndex Whether to get the index of the snapshot, which is the tree index for an unzoomed Sierpinski
+     *                      triangle, instead of building a FractalGridIndex
+     * @return The FractalSpatialIndex
+     */
+    static Object getIndex(Object generator, boolean snapshotIndex) {
+        try {
+            if (snapshotIndex) {
+                Object snapshot = (Object) GET_SNAPSHOT.invokeExact(generator);
+                return (Object) SNAPSHOT_INDEX.invokeExact(snapshot);
+            }
+            return (Object) NEW_GRID_INDEX.invokeExact((Object) GET_DATA.invokeExact(generator));
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Calls FractalSpatialIndex.query
+     * @param index The FractalSpatialIndex
+     * @param minX The left edge of the rectangle
+     * @param minY The top edge of the rectangle
+     * @param maxX The right edge of the rectangle, exclusive
+     * @param maxY The bottom edge of the rectangle, exclusive
+     * @return The indices of the elements
+     */
+    static int[] query(Object index, int minX, int minY, int maxX, int maxY) {
+        try {
+            return (int[]) INDEX_QUERY.invokeExact(index, minX, minY, maxX, maxY);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Calls FractalSpatialIndex.queryPoint
+     * @param index The FractalSpatialIndex
+     * @param x The x coordinate of the point
+     * @param y The y coordinate of the point
+     * @return The indices of the elements
+     */
+    static int[] queryPoint(Object index, float x, float y) {
+        try {
+            return (int[]) INDEX_QUERY_POINT.invokeExact(index, x, y);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------------------------//
+    // Lookup
+    //----------------------------------------------------------------------------------------------------------------//
+
+    /**
+     * Finds an application class
+     * @param name The class name
+     * @return The class
+     */
+    private static Class<?> find(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Application class not on the class path: " + name, e);
+        }
+    }
+
+    /**
+     * Finds a constructor, with the constructed type and any application parameter types erased to Object
+     * @param className The class name
+     * @param type The constructor type, returning void
+     * @return The method handle
+     */
+    private static MethodHandle constructor(String className, MethodType type) {
+        try {
+            return erase(LOOKUP.findConstructor(find(className), type));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No such constructor in " + className + ": " + type, e);
+        }
+    }
+
+    /**
+     * Finds an instance method, with the receiver and any application return type erased to Object
+     * @param className The class name
+     * @param name The method name
+     * @param type The method type, without the receiver
+     * @return The method handle
+     */
+    private static MethodHandle method(String className, String name, MethodType type) {
+        try {
+            return erase(LOOKUP.findVirtual(find(className), name, type));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No such method: " + className + "." + name + type, e);
+        }
+    }
+
+    /**
+     * Finds a static method, with any application return type erased to Object
+     * @param className The class name
+     * @param name The method name
+     * @param type The method type
+     * @return The method handle
+     */
+    private static MethodHandle staticMethod(String className, String name, MethodType type) {
+        try {
+            return erase(LOOKUP.findStatic(find(className), name, type));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No such method: " + className + "." + name + type, e);
+        }
+    }
+
+    /**
+     * Changes the application types in a method handle's type to Object
+     * @param handle The method handle
+     * @return The method handle with the erased type
+     */
+    private static MethodHandle erase(MethodHandle handle) {
+        MethodType type = handle.type();
+        for (int index = 0; index < type.parameterCount(); index++) {
+            if (isApplicationType(type.parameterType(index))) {
+                type = type.changeParameterType(index, Object.class);
+            }
+        }
+        if (isApplicationType(type.returnType())) {
+            type = type.changeReturnType(Object.class);
+        }
+        return handle.asType(type);
+    }
+
+    /**
+     * Checks whether a type is an application class, which are all in the default package
+     * @param type The type
+     * @return Whether the type is an application class
+     */
+    private static boolean isApplicationType(Class<?> type) {
+        return !type.isPrimitive() && type.getPackageName().isEmpty();
+    }
+
+    /**
+     * Rethrows an exception thrown through a method handle without wrapping unchecked exceptions and errors
+     * @param e The exception
+     * @return Never returns, so callers can throw the result
+     */
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        throw new IllegalStateException(e);
+    }
+}
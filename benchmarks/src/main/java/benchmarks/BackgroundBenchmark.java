@@ -0,0 +1,76 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for rendering an escape-time background frame, with the vector kernel and with the scalar kernel. The
+ * forks add the jdk.incubator.vector module, so the vector kernel can be loaded; the setup fails if it was not.
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "--add-modules=jdk.incubator.vector"})
+public class BackgroundBenchmark {
+
+    /** The width and height of the image */
+    private static final int IMAGE_SIZE = 600;
+
+    /** The identifier of the escape-time fractal type */
+    @Param({"mandelbrot", "julia"})
+    public String type;
+
+    /** Whether to render with the vector kernel instead of the scalar kernel */
+    @Param({"true", "false"})
+    public boolean vector;
+
+    /** The EscapeTimeLayer */
+    private Object layer;
+
+    /** The EscapeTimeKernel */
+    private Object kernel;
+
+    /** The image to render into, as in FractalDrawing's backdrop */
+    private BufferedImage image;
+
+    /**
+     * Creates the layer of the unzoomed view, the kernel and the image
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Object generator = App.newGenerator(GenerationBenchmark.theme());
+        App.setSeed(generator, 1);
+        layer = App.getBackgroundLayer(generator, type);
+        kernel = App.getKernel(vector);
+        if (vector && App.getKernelName(kernel).equals("scalar")) {
+            throw new IllegalStateException("The vector kernel could not be loaded");
+        }
+        image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_RGB);
+    }
+
+    /**
+     * Renders one background frame
+     * @return The sum of the iterations of every pixel
+     */
+    @Benchmark
+    public long render() {
+        return App.renderLayer(layer, image, 1, kernel);
+    }
+}
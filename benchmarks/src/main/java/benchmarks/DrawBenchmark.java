@@ -0,0 +1,156 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for drawing fractal elements into a headless image, one element at a time and as a whole buffer, in
+ * element order or in batches.
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class DrawBenchmark {
+
+    /** The width and height of the image */
+    private static final int IMAGE_SIZE = 600;
+
+    /**
+     * An image to draw into, as in FractalDrawing's offscreen image
+     */
+    @State(Scope.Thread)
+    public static class Canvas {
+
+        /** The image */
+        BufferedImage image;
+
+        /** The graphics object of the image */
+        Graphics2D g;
+
+        /**
+         * Creates the image and its graphics object
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_RGB);
+            g = image.createGraphics();
+        }
+
+        /**
+         * Disposes the graphics object
+         */
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            g.dispose();
+        }
+    }
+
+    /**
+     * A circle and a triangle the size of the first level of the default fractal
+     */
+    @State(Scope.Thread)
+    public static class Elements {
+
+        /** The Circle, half transparent */
+        Object circle;
+
+        /** The Triangle */
+        Object triangle;
+
+        /**
+         * Creates the elements
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            circle = App.newCircle(new Point(300, 346), 86, new Color(141, 27, 88), 128);
+            triangle = App.newTriangle(new Point(300, 0), new Point(0, 520), new Point(600, 520),
+                    new Color(47, 32, 89));
+        }
+    }
+
+    /**
+     * The generated elements of a whole fractal
+     */
+    @State(Scope.Thread)
+    public static class Fractal {
+
+        /** The recursion depth */
+        @Param({"5", "8"})
+        public int depth;
+
+        /** The FractalElementBuffer */
+        Object buffer;
+
+        /**
+         * Generates the elements
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            Object generator = App.newGenerator(GenerationBenchmark.theme());
+            App.setSeed(generator, 1);
+            App.setRecursionDepth(generator, depth);
+            buffer = App.getData(generator);
+        }
+    }
+
+    /**
+     * Draws one Circle
+     * @param canvas The image to draw into
+     * @param elements The elements
+     */
+    @Benchmark
+    public void circleDraw(Canvas canvas, Elements elements) {
+        App.drawElement(elements.circle, canvas.g);
+    }
+
+    /**
+     * Draws one Triangle
+     * @param canvas The image to draw into
+     * @param elements The elements
+     */
+    @Benchmark
+    public void triangleDraw(Canvas canvas, Elements elements) {
+        App.drawElement(elements.triangle, canvas.g);
+    }
+
+    /**
+     * Draws all elements of a fractal in element order, as PNG exports do by default
+     * @param canvas The image to draw into
+     * @param fractal The elements
+     */
+    @Benchmark
+    public void bufferDraw(Canvas canvas, Fractal fractal) {
+        App.drawBuffer(fractal.buffer, canvas.g);
+    }
+
+    /**
+     * Draws all elements of a fractal in batches of one shape and color, as FractalDrawing does on screen
+     * @param canvas The image to draw into
+     * @param fractal The elements
+     */
+    @Benchmark
+    public void bufferDrawBatched(Canvas canvas, Fractal fractal) {
+        App.drawBufferBatched(fractal.buffer, canvas.g);
+    }
+}
@@ -0,0 +1,64 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for generating each fractal type. The types grow at different rates, so the depth is capped at each
+ * type's maximum, and the element count of a trial is worth checking with the result.
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+
+    /** The identifier of the fractal type */
+    @Param({"sierpinski", "koch", "carpet", "h-tree", "pythagoras", "mandelbrot", "julia"})
+    public String type;
+
+    /** The recursion depth, lowered to the type's maximum */
+    @Param({"6"})
+    public int depth;
+
+    /** The FractalGenerator */
+    private Object generator;
+
+    /**
+     * Creates the generator for the type and generates the elements once
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        generator = App.newGenerator(GenerationBenchmark.theme());
+        App.setMetricsEnabled(generator, false);
+        App.setSeed(generator, 1);
+        int maxDepth = App.setFractalType(generator, type);
+        App.setRecursionDepth(generator, Math.min(depth, maxDepth));
+        App.getData(generator);
+    }
+
+    /**
+     * Generates the elements from scratch, with the geometry and element caches emptied first
+     */
+    @Benchmark
+    public void generateElements() {
+        App.clearCaches(generator);
+        App.generateElements(generator);
+    }
+}
@@ -0,0 +1,87 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for generating the fractal elements and for reading them from the generator.
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerationBenchmark {
+
+    /** The recursion depth */
+    @Param({"1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12"})
+    public int depth;
+
+    /** Whether the generator records metrics; run with -p metrics=true to measure their overhead */
+    @Param({"false"})
+    public boolean metrics;
+
+    /** The FractalGenerator */
+    private Object generator;
+
+    /**
+     * Creates the generator and generates the elements once
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        generator = App.newGenerator(theme());
+        App.setMetricsEnabled(generator, metrics);
+        App.setSeed(generator, 1);
+        App.setRecursionDepth(generator, depth);
+        App.getData(generator);
+    }
+
+    /**
+     * Generates the elements from scratch, with the geometry and element caches emptied first
+     */
+    @Benchmark
+    public void generateElements() {
+        App.clearCaches(generator);
+        App.generateElements(generator);
+    }
+
+    /**
+     * Gets the elements when they are up to date, which returns the shared snapshot without copying
+     * @return The elements
+     */
+    @Benchmark
+    public Object getData() {
+        return App.getData(generator);
+    }
+
+    /**
+     * Gets the Triumph theme, the first one in Fractal_Themes.csv
+     * @return The theme colors
+     */
+    static ArrayList<Color> theme() {
+        ArrayList<Color> theme = new ArrayList<>();
+        theme.add(new Color(47, 32, 89));
+        theme.add(new Color(141, 27, 88));
+        theme.add(new Color(198, 57, 57));
+        theme.add(new Color(236, 130, 33));
+        theme.add(new Color(245, 186, 20));
+        return theme;
+    }
+}
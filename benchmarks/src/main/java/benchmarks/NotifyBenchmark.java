@@ -0,0 +1,62 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the fan-out of FractalGenerator.notifyObservers to observers that do almost no work, so the
+ * notification overhead itself is measured.
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotifyBenchmark {
+
+    /** The number of observers */
+    @Param({"1", "10", "100"})
+    public int observers;
+
+    /** The FractalGenerator */
+    private Object generator;
+
+    /** The number of updates the observers received */
+    private long updates;
+
+    /**
+     * Creates the generator and registers the observers
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        generator = App.newGenerator(GenerationBenchmark.theme());
+        for (int observer = 0; observer < observers; observer++) {
+            App.registerObserver(generator, () -> updates++);
+        }
+    }
+
+    /**
+     * Notifies every observer once
+     * @return The number of updates received so far
+     */
+    @Benchmark
+    public long notifyObservers() {
+        App.notifyObservers(generator);
+        return updates;
+    }
+}
@@ -0,0 +1,31 @@
+package benchmarks;
+
+import java.util.Arrays;
+
+/**
+ * Entry point of the benchmark jar. Runs JMH with the GC profiler always on, so every result also reports the
+ * allocation rate and bytes allocated per operation of the measured path. All JMH options are accepted.
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+public final class RunBenchmarks {
+
+    /** Unused constructor for the RunBenchmarks class */
+    private RunBenchmarks() {}
+
+    /**
+     * Runs the benchmarks
+     * @param args The JMH options, such as a benchmark name pattern or -p depth=10
+     * @throws Exception If JMH fails
+     */
+    public static void main(String[] args) throws Exception {
+        String[] jmhArgs = args;
+        if (!Arrays.asList(args).contains("gc")) {
+            jmhArgs = new String[args.length + 2];
+            jmhArgs[0] = "-prof";
+            jmhArgs[1] = "gc";
+            System.arraycopy(args, 0, jmhArgs, 2, args.length);
+        }
+        org.openjdk.jmh.Main.main(jmhArgs);
+    }
+}
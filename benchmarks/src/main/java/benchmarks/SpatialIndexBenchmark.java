@@ -0,0 +1,97 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the spatial index queries of the drawing: hit-testing a point, as the tooltip does, and finding the
+ * elements in a small region, as repainting a changed region does. The tree index of the unzoomed Sierpinski triangle
+ * is compared with a grid index built over the same elements.
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpatialIndexBenchmark {
+
+    /** The number of query positions cycled through, a power of two */
+    private static final int POSITIONS = 1024;
+
+    /** The width and height of a region query, in pixels */
+    private static final int REGION_SIZE = 32;
+
+    /** The recursion depth */
+    @Param({"8", "10", "12"})
+    public int depth;
+
+    /** The index: "tree" for the one the snapshot holds, "grid" for a FractalGridIndex */
+    @Param({"tree", "grid"})
+    public String index;
+
+    /** The FractalSpatialIndex */
+    private Object spatialIndex;
+
+    /** The x coordinates of the query positions */
+    private final float[] xs = new float[POSITIONS];
+
+    /** The y coordinates of the query positions */
+    private final float[] ys = new float[POSITIONS];
+
+    /** The next query position */
+    private int next;
+
+    /**
+     * Generates the elements, gets the index and chooses random query positions on the canvas
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Object generator = App.newGenerator(GenerationBenchmark.theme());
+        App.setSeed(generator, 1);
+        App.setRecursionDepth(generator, depth);
+        spatialIndex = App.getIndex(generator, index.equals("tree"));
+        Random random = new Random(1);
+        for (int position = 0; position < POSITIONS; position++) {
+            xs[position] = random.nextFloat() * 600;
+            ys[position] = random.nextFloat() * 600;
+        }
+    }
+
+    /**
+     * Finds the elements containing a point
+     * @return The indices of the elements
+     */
+    @Benchmark
+    public int[] queryPoint() {
+        next = (next + 1) & (POSITIONS - 1);
+        return App.queryPoint(spatialIndex, xs[next], ys[next]);
+    }
+
+    /**
+     * Finds the elements overlapping a small region
+     * @return The indices of the elements
+     */
+    @Benchmark
+    public int[] queryRegion() {
+        next = (next + 1) & (POSITIONS - 1);
+        int x = (int) xs[next];
+        int y = (int) ys[next];
+        return App.query(spatialIndex, x, y, x + REGION_SIZE, y + REGION_SIZE);
+    }
+}
@@ -0,0 +1,59 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for reading the theme file, as the GUI does on startup.
+ * @author Abraham Aslanides
+ * @version CSC 143, June 4, 2023
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ThemesBenchmark {
+
+    /** The theme file, relative to the working directory */
+    @Param({"Fractal_Themes.csv"})
+    public String themeFile;
+
+    /** The theme file */
+    private File file;
+
+    /**
+     * Checks that the theme file exists
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        file = new File(themeFile);
+        if (!file.isFile()) {
+            throw new IllegalStateException("Theme file not found: " + file.getAbsolutePath()
+                    + ". Run the benchmarks from the Aslanides_Project05 directory or pass -p themeFile=<path>.");
+        }
+    }
+
+    /**
+     * Reads the theme file
+     * @return The FractalThemes
+     */
+    @Benchmark
+    public Object loadThemes() {
+        return App.loadThemes(file);
+    }
+}